@@ -19,13 +19,16 @@ package com.flipkart.masquerade;
 import com.flipkart.masquerade.rule.Rule;
 import com.flipkart.masquerade.serialization.SerializationProperty;
 import com.flipkart.masquerade.util.Fallback;
+import com.flipkart.masquerade.util.Interval;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -57,4 +60,151 @@ public interface Configuration {
     default String methodPrefixForChainedMethods(){
         return "chainedMethod";
     }
+
+    /**
+     * With native serialization, hidden fields are normally cleared on the object before it is written out.
+     * When enabled, hidden fields are written as if they were null and the object is never modified,
+     * so the same object can be serialized for any number of evaluators, by any number of threads.
+     */
+    default boolean isNonDestructiveSerializationEnabled() {
+        return false;
+    }
+
+    /**
+     * When enabled without native serialization, the Cloak gets a copyMasked() which builds a masked copy of an object
+     * through the setters of its class, leaving the object itself untouched. Every copied class needs a public no-argument
+     * constructor, and Map and Collection fields must be declared with a type which can hold a LinkedHashMap, TreeMap,
+     * ArrayList, LinkedHashSet or TreeSet.
+     */
+    default boolean isMaskedCopyEnabled() {
+        return false;
+    }
+
+    /**
+     * When enabled without native serialization, the Cloak gets a hideReversibly() which records every field it clears
+     * in an UndoLog. Restoring the log puts the objects back as they were, so that objects from a long-lived cache can be
+     * masked in place and reused.
+     */
+    default boolean isUndoLogEnabled() {
+        return false;
+    }
+
+    /**
+     * When enabled without native serialization, every Mask also tells which fields of its class are hidden for an
+     * evaluator object, and the Cloak gets a Jackson module for every Rule which leaves those fields out while the object
+     * is written by Jackson. Objects are never modified, so custom serializers and views keep working.
+     */
+    default boolean isJacksonModuleEnabled() {
+        return false;
+    }
+
+    /**
+     * When enabled, every distinct annotation condition is evaluated at most once per hide() call
+     * and its outcome is shared by all the objects masked during that call.
+     */
+    default boolean isPredicateMemoizationEnabled() {
+        return false;
+    }
+
+    /**
+     * When enabled, the fields hidden for a class are computed once per evaluator partition and cached
+     * in the Cloak, instead of evaluating the annotation conditions for every object.
+     * A partition groups all the evaluator objects for which every annotation condition has the same outcome.
+     */
+    default boolean isVisibilityCacheEnabled() {
+        return false;
+    }
+
+    /**
+     * When enabled, the Cloak exposes the evaluator partition key of every Rule.
+     * Evaluator objects with equal keys always produce identical output, so the key can be used to cache
+     * whole responses: serializing an object for many evaluators then takes one serialization per distinct
+     * partition, or a single traversal with {@link #isFanOutEnabled()}. Keys are only comparable within the same generated code.
+     */
+    default boolean isPartitionKeyEnabled() {
+        return false;
+    }
+
+    /**
+     * Makes the generated code record a runtime profile, which can be written through the RECORDER of the predicates class
+     * of every Rule and handed to a later build. Recording adds some overhead to every hide() call.
+     */
+    default boolean isProfilingEnabled() {
+        return false;
+    }
+
+    /**
+     * Closed range of the values which the evaluator accessors can return, keyed by the accessor as named in the BasicRules.
+     * Conditions which hold for the whole range, or for none of it, are resolved at build time and removed from the generated code.
+     * An evaluator object outside its declared domain could be masked incorrectly.
+     */
+    default Map<String, Interval> evaluatorDomain() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Evaluator objects which represent most of the traffic. Every Mask gets a variant specialized for each of them,
+     * with all the annotation conditions resolved at build time. The variant is used for every evaluator object
+     * in the same partition as the profile. Each profile adds to the size of the generated code.
+     */
+    default List<Object> hotProfiles() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * When enabled with non destructive serialization, the Cloak gets a hideCoalesced() for every Rule with evaluator partitions.
+     * Concurrent calls for the same object key and evaluator partition then wait for a single serialization and share its output.
+     * Calls for other partitions serialize the same object again, so destructive Masks never get a hideCoalesced().
+     * Requires one of the switches which compute evaluator partitions.
+     */
+    default boolean isCoalescingEnabled() {
+        return false;
+    }
+
+    /**
+     * When enabled with non destructive serialization, the Cloak gets a hideAll() for every Rule with a visibility cache,
+     * which serializes an object for several evaluator objects in a single traversal. At every object, the evaluator objects
+     * are grouped by the visibility mask of its class, so each subtree is serialized once per group and the outputs only
+     * split where the masks differ.
+     */
+    default boolean isFanOutEnabled() {
+        return false;
+    }
+
+    /**
+     * Classes whose instances are never modified once they have been serialized, in addition to the classes
+     * annotated with CacheableFragment. Such objects are keyed by identity.
+     */
+    default Set<Class<?>> immutableClasses() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * When enabled, every class is treated as annotated with SharedInstance. Each call then keeps track of every object
+     * it masks, which costs more than it saves unless most objects are referenced more than once.
+     */
+    default boolean isSharedInstanceMemoizationEnabled() {
+        return false;
+    }
+
+    /**
+     * @return Maximum total length of the serialized fragments cached for every Rule
+     */
+    default long fragmentCacheWeight() {
+        return 16 * 1024 * 1024;
+    }
+
+    /**
+     * @return Number of threads which generate the Masks of the classes and write the generated files
+     */
+    default int generationParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @return Maximum number of evaluator partitions for which visibility masks are cached
+     */
+    default int visibilityCacheSize() {
+        return 1024;
+    }
 }
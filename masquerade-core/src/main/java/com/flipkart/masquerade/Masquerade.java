@@ -18,37 +18,62 @@ package com.flipkart.masquerade;
 
 import com.flipkart.masquerade.processor.*;
 import com.flipkart.masquerade.rule.Rule;
+import com.flipkart.masquerade.util.ClassFile;
 import com.flipkart.masquerade.util.EntryType;
+import com.flipkart.masquerade.util.GenerationManifest;
+import com.flipkart.masquerade.util.IndependenceAnalyzer;
+import com.flipkart.masquerade.util.InputHasher;
+import com.flipkart.masquerade.util.MaskRecord;
+import com.flipkart.masquerade.util.PartitionAnalyzer;
+import com.flipkart.masquerade.util.ProfileGuide;
 import com.flipkart.masquerade.util.RepositoryEntry;
+import com.flipkart.masquerade.util.RuntimeProfile;
 import com.flipkart.masquerade.util.TypeSpecContainer;
-import com.google.common.reflect.ClassPath;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeSpec;
 
 import javax.annotation.Generated;
 import javax.lang.model.element.Modifier;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static com.flipkart.masquerade.util.Helper.*;
 import static com.flipkart.masquerade.util.Strings.ENTRY_CLASS;
+import static com.flipkart.masquerade.util.Strings.SCHEMA_HASH_METHOD;
 
 /**
  * Created by shrey.garg on 24/04/17.
  */
 public class Masquerade {
-    private static final List<TypeSpecContainer> specs = new ArrayList<>();
+    private static final int CHUNKS_PER_WORKER = 4;
 
     public static void initialize(Configuration configuration, File destination) throws IOException, ClassNotFoundException {
         initialize(configuration, ClassLoader.getSystemClassLoader(), destination);
     }
 
     public static void initialize(Configuration configuration, ClassLoader classLoader, File destination) throws IOException, ClassNotFoundException {
-        if (configuration == null || classLoader == null || destination == null) {
+        initialize(configuration, classLoader, destination, RuntimeProfile.empty());
+    }
+
+    /**
+     * @param profile Runtime profile recorded by an earlier build of the Cloak, which guides the generated code
+     */
+    public static void initialize(Configuration configuration, ClassLoader classLoader, File destination, RuntimeProfile profile) throws IOException, ClassNotFoundException {
+        if (configuration == null || classLoader == null || destination == null || profile == null) {
             throw new NullPointerException("Masquerade does not accept any null parameters");
         }
 
@@ -56,8 +81,10 @@ public class Masquerade {
             throw new NullPointerException("Configuration cannot return any null objects");
         }
 
+        List<TypeSpecContainer> specs = new ArrayList<>();
+
         /* Fetch all the classes in the configured packages */
-        Set<ClassPath.ClassInfo> scannedClasses = getPackageClasses(classLoader, configuration.getPackagesToScan());
+        Collection<ClassFile> scannedClasses = getPackageClasses(classLoader, configuration.getPackagesToScan());
 
         /* Start construction of the entry class which will be used by the user */
         TypeSpec.Builder builder = TypeSpec.classBuilder(ENTRY_CLASS);
@@ -72,37 +99,263 @@ public class Masquerade {
         DebugProcessor debugProcessor = new DebugProcessor(configuration, builder);
         debugProcessor.addGetter();
 
+        mapClasses(scannedClasses, classLoader);
+
+        /* Classes are processed in a stable order so that the generated code does not change between builds */
+        List<Class<?>> classes = new ArrayList<>(getClasses());
+        classes.sort(Comparator.comparing(Class::getName));
+
+        /* The manifest of the previous cycle tells if the whole cycle would come out the same, and which files it generated */
+        Path manifestFile = destination.toPath().resolve(configuration.getCloakPackage().replace('.', '/')).resolve(GenerationManifest.FILE_NAME);
+        GenerationManifest previous = GenerationManifest.read(manifestFile);
+        GenerationManifest manifest = new GenerationManifest(InputHasher.hashInputs(configuration, profile, classes));
+        classes.forEach(clazz -> manifest.putClass(clazz.getName(), InputHasher.hashStructure(clazz)));
+        if (previous.isUnchanged(manifest, destination.toPath())) {
+            /* Every generated file would come out the same */
+            return;
+        }
+
+        /* Find the classes which can never have anything hidden by a Rule, so that traversal into them can be skipped */
+        IndependenceAnalyzer.analyze(configuration);
+        /* Find the evaluator partitions of every Rule, which key the cached visibility masks */
+        PartitionAnalyzer.analyze(configuration);
+        ProfileGuide.load(profile);
+
         specs.addAll(ruleProcessor.generateRuleTypeSpecs());
 
-        List<RepositoryEntry> repositoryEntries = new ArrayList<>();
-        mapClasses(scannedClasses, classLoader);
-        for (Class<?> clazz : getClasses()) {
-            /* Skip processing if the class is an Enum, Interface, Abstract or not a public class */
-            if (clazz.isEnum() || clazz.isInterface() || getClassInformation(clazz).isAbstract() || !getClassInformation(clazz).isPublic()) {
+        /* With the same analyses, the Masks of the unchanged classes can be taken from the records of the previous cycle */
+        List<String> ruleSpecs = new ArrayList<>();
+        specs.forEach(container -> ruleSpecs.add(container.getPackagePath() + " " + container.getSpec()));
+        ruleSpecs.add(builder.build().toString());
+        manifest.setAnalyses(InputHasher.hashAnalyses(configuration, classes, ruleSpecs));
+
+        ForkJoinPool pool = new ForkJoinPool(configuration.generationParallelism());
+        try {
+            /* Persisted fragments are only valid for the exact code which produced them */
+            boolean schemaHashed = configuration.getRules().stream().anyMatch(rule -> hasFragmentCache(configuration, rule));
+
+            /* Every class gets a record of its own, so the classes of every Rule are split into chunks which are generated in parallel */
+            List<Rule> rules = new ArrayList<>(configuration.getRules());
+            int chunkSize = getChunkSize(classes.size(), configuration.generationParallelism());
+            List<Rule> taskRules = new ArrayList<>();
+            List<Callable<List<MaskRecord>>> tasks = new ArrayList<>();
+            for (Rule rule : rules) {
+                for (int start = 0; start < classes.size(); start += chunkSize) {
+                    List<Class<?>> chunk = classes.subList(start, Math.min(start + chunkSize, classes.size()));
+                    taskRules.add(rule);
+                    tasks.add(() -> generateOverrides(configuration, overrideProcessor, rule, chunk, destination, schemaHashed, previous, manifest, classLoader));
+                }
+            }
+            List<List<MaskRecord>> outputs = invokeAll(pool, tasks);
+
+            /* The chunks of a Rule come back in order, so the records line up with the classes again */
+            Map<Rule, List<MaskRecord>> records = new LinkedHashMap<>();
+            rules.forEach(rule -> records.put(rule, new ArrayList<>()));
+            for (int i = 0; i < outputs.size(); i++) {
+                records.get(taskRules.get(i)).addAll(outputs.get(i));
+            }
+
+            /* Merged in the same order as a sequential run, so the output does not depend on scheduling */
+            List<RepositoryEntry> repositoryEntries = new ArrayList<>();
+            /* The schema hash goes through the files in the order they used to be generated in */
+            List<HashCode> hashes = new ArrayList<>();
+            if (schemaHashed) {
+                specs.forEach(container -> hashes.add(hash(container)));
+            }
+            for (int i = 0; i < classes.size(); i++) {
+                Class<?> clazz = classes.get(i);
                 if (clazz.isEnum()) {
                     configuration.getRules().forEach(rule -> repositoryEntries.add(new RepositoryEntry(rule, clazz, EntryType.ENUM)));
                 }
+
+                for (List<MaskRecord> ruleRecords : records.values()) {
+                    MaskRecord record = ruleRecords.get(i);
+                    repositoryEntries.addAll(record.getEntries());
+                    if (record.getFile() != null) {
+                        manifest.addFile(record.getFile());
+                    }
+                    if (record.getHash() != null) {
+                        hashes.add(record.getHash());
+                    }
+                }
+            }
+
+            /* Predicates are named after their content, so those of the records taken from the previous cycle fit in as they are */
+            List<TypeSpecContainer> aggregates = new ArrayList<>();
+            overrideProcessor.getPredicateProcessor().generatePredicates(records)
+                    .forEach(typeSpec -> aggregates.add(new TypeSpecContainer(configuration.getCloakPackage(), typeSpec)));
+            aggregates.add(new TypeSpecContainer(configuration.getCloakPackage(), repositoryProcessor.createRepository(repositoryEntries)));
+            if (schemaHashed) {
+                aggregates.forEach(container -> hashes.add(hash(container)));
+                addSchemaHash(builder, hashes);
+            }
+            specs.addAll(aggregates);
+            specs.add(new TypeSpecContainer(configuration.getCloakPackage(), builder.build()));
+
+            /* Only the aggregates are left, the Masks have been written by now */
+            List<Callable<Void>> writeTasks = new ArrayList<>();
+            for (TypeSpecContainer container : specs) {
+                manifest.addFile(container.getRelativePath());
+                writeTasks.add(() -> {
+                    write(container, destination);
+                    return null;
+                });
+            }
+            invokeAll(pool, writeTasks);
+
+            /* Files of the previous cycle which are no longer generated, such as the Masks of a removed class */
+            for (String path : previous.getFiles()) {
+                if (!manifest.getFiles().contains(path)) {
+                    delete(destination.toPath(), path);
+                }
+            }
+            manifest.write(manifestFile);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Every Mask is written as soon as it is generated, so that only its record is held on to
+     * @param previous Manifest of the previous cycle, whose records stand in for the Masks of the unchanged classes
+     * @param manifest Manifest of the current cycle, which the records are added to
+     * @return Records of the Masks of the Rule, for every class at the same index in the list
+     */
+    private static List<MaskRecord> generateOverrides(Configuration configuration, OverrideProcessor overrideProcessor, Rule rule, List<Class<?>> classes,
+                                                      File destination, boolean schemaHashed, GenerationManifest previous, GenerationManifest manifest,
+                                                      ClassLoader classLoader) throws IOException {
+        List<MaskRecord> records = new ArrayList<>();
+        for (Class<?> clazz : classes) {
+            /* Skip processing if the class is an Enum, Interface, Abstract or not a public class */
+            if (clazz.isEnum() || clazz.isInterface() || getClassInformation(clazz).isAbstract() || !getClassInformation(clazz).isPublic()) {
+                records.add(new MaskRecord());
                 continue;
             }
 
-            for (Rule rule : configuration.getRules()) {
+            /* The Mask of an unchanged class would come out the same, as long as the file it was written to is still there */
+            Optional<MaskRecord> reused = previous.getRecord(manifest, rule.getName(), clazz.getName())
+                    .map(encoded -> MaskRecord.decode(encoded, rule, classLoader))
+                    .filter(record -> record.getFile() == null || Files.isRegularFile(destination.toPath().resolve(record.getFile())));
+
+            MaskRecord record = reused.orElseGet(MaskRecord::new);
+            if (!reused.isPresent()) {
                 /* Generate an implementation class for the Mask interface created earlier */
                 /* The override might be absent in case of terminal classes */
-                overrideProcessor.createOverride(rule, clazz, repositoryEntries)
-                        .ifPresent(typeSpec -> specs.add(new TypeSpecContainer(getImplementationPackage(configuration, clazz), typeSpec)));
+                Optional<TypeSpecContainer> container = overrideProcessor.createOverride(rule, clazz, record)
+                        .map(override -> new TypeSpecContainer(getImplementationPackage(configuration, clazz), override));
+                if (container.isPresent()) {
+                    record.setFile(container.get().getRelativePath());
+                    record.setHash(schemaHashed ? hash(container.get()) : null);
+                    write(container.get(), destination);
+                }
+            }
+
+            manifest.putRecord(rule.getName(), clazz.getName(), record.encode());
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Classes differ a lot in how long their Masks take, so every worker gets a few chunks of each Rule to balance them out
+     */
+    private static int getChunkSize(int classCount, int parallelism) {
+        int chunks = Math.max(1, parallelism) * CHUNKS_PER_WORKER;
+        return Math.max(1, (classCount + chunks - 1) / chunks);
+    }
+
+    /**
+     * Files whose content is unchanged are not written, so that their timestamps do not trigger a recompilation
+     */
+    private static void write(TypeSpecContainer container, File destination) throws IOException {
+        TypeSpec.Builder typeBuilder = container.getSpec().toBuilder().addAnnotation(AnnotationSpec.builder(Generated.class).addMember("value", "$S", "com.flipkart.masquerade.Masquerade").build());
+        JavaFile javaFile = JavaFile.builder(container.getPackagePath(), typeBuilder.build())
+                .indent("    ")
+                .skipJavaLangImports(true)
+                .build();
+
+        byte[] content = javaFile.toString().getBytes(StandardCharsets.UTF_8);
+        Path file = destination.toPath().resolve(container.getRelativePath());
+        if (Files.isRegularFile(file) && Files.size(file) == content.length && Arrays.equals(Files.readAllBytes(file), content)) {
+            return;
+        }
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+    }
+
+    /**
+     * Deletes a generated file, along with the directories it leaves empty
+     */
+    private static void delete(Path destination, String path) throws IOException {
+        Path file = destination.resolve(path).normalize();
+        if (!file.startsWith(destination.normalize())) {
+            return;
+        }
+        Files.deleteIfExists(file);
+        for (Path directory = file.getParent(); directory != null && !directory.equals(destination.normalize()) && directory.startsWith(destination.normalize()); directory = directory.getParent()) {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                if (entries.iterator().hasNext()) {
+                    return;
+                }
+            } catch (NoSuchFileException e) {
+                continue;
             }
+            Files.delete(directory);
         }
+    }
 
-        specs.add(new TypeSpecContainer(configuration.getCloakPackage(), builder.build()));
-        specs.add(new TypeSpecContainer(configuration.getCloakPackage(), repositoryProcessor.createRepository(repositoryEntries)));
+    /**
+     * @return The results of the tasks, in the same order as the tasks
+     */
+    private static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> tasks) throws IOException {
+        List<ForkJoinTask<T>> submitted = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            submitted.add(pool.submit(task));
+        }
 
-        for (TypeSpecContainer container : specs) {
-            TypeSpec.Builder typeBuilder = container.getSpec().toBuilder().addAnnotation(AnnotationSpec.builder(Generated.class).addMember("value", "$S", "com.flipkart.masquerade.Masquerade").build());
-            JavaFile javaFile = JavaFile.builder(container.getPackagePath(), typeBuilder.build())
-                    .indent("    ")
-                    .skipJavaLangImports(true)
-                    .build();
-            javaFile.writeTo(destination);
+        List<T> results = new ArrayList<>();
+        for (ForkJoinTask<T> task : submitted) {
+            try {
+                results.add(task.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while generating the Cloak", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                /* An exception rethrown in another thread is a copy, which carries the original as its cause */
+                if (cause.getCause() != null && cause.getCause().getClass() == cause.getClass()) {
+                    cause = cause.getCause();
+                }
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IOException(cause);
+            }
         }
+        return results;
+    }
+
+    private static HashCode hash(TypeSpecContainer container) {
+        return Hashing.murmur3_128().newHasher()
+                .putString(container.getPackagePath(), StandardCharsets.UTF_8)
+                .putString(container.getSpec().toString(), StandardCharsets.UTF_8)
+                .hash();
+    }
+
+    /**
+     * @param hashes Hashes of the generated files, in a stable order
+     */
+    private static void addSchemaHash(TypeSpec.Builder builder, List<HashCode> hashes) {
+        List<HashCode> combined = new ArrayList<>(hashes);
+        combined.add(Hashing.murmur3_128().hashString(builder.build().toString(), StandardCharsets.UTF_8));
+
+        builder.addMethod(MethodSpec.methodBuilder(SCHEMA_HASH_METHOD)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .returns(long.class)
+                .addStatement("return $LL", Hashing.combineOrdered(combined).asLong()).build());
     }
 }
@@ -18,6 +18,8 @@ package com.flipkart.masquerade.processor;
 
 import com.flipkart.masquerade.Configuration;
 import com.flipkart.masquerade.rule.Rule;
+import com.flipkart.masquerade.runtime.FanOut;
+import com.flipkart.masquerade.runtime.MaskContext;
 import com.squareup.javapoet.*;
 
 import javax.lang.model.element.Modifier;
@@ -82,9 +84,79 @@ public abstract class BaseOverrideProcessor {
             methodBuilder.endControlFlow();
         }
 
+        if (hasMaskContext(configuration)) {
+            methodBuilder.addParameter(MaskContext.class, CONTEXT_PARAMETER);
+        }
+
         return methodBuilder;
     }
 
+    /**
+     * @param rule Current Rule
+     * @param typeName Current Class
+     * @return A MethodSpec builder which overrides the interface method serializing an object for several evaluator objects
+     */
+    protected MethodSpec.Builder generateFanOutMethod(Rule rule, TypeName typeName) {
+        MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(FAN_OUT_MASK_METHOD);
+        methodBuilder.addAnnotation(Override.class);
+        methodBuilder.addModifiers(Modifier.PUBLIC);
+        methodBuilder.addParameter(typeName, OBJECT_PARAMETER);
+        methodBuilder.addParameter(ArrayTypeName.of(rule.getEvaluatorClass()), EVALS_PARAMETER);
+        methodBuilder.addParameter(getEntryClass(configuration), CLOAK_PARAMETER);
+        methodBuilder.addParameter(getRepositoryClass(configuration), SET_PARAMETER);
+        methodBuilder.addParameter(StringBuilder[].class, OUTPUTS_PARAMETER);
+        methodBuilder.addParameter(MaskContext[].class, CONTEXTS_PARAMETER);
+
+        methodBuilder.beginControlFlow("if ($L == null)", OBJECT_PARAMETER);
+        methodBuilder.addStatement("$T.append($L, $L)", FanOut.class, OUTPUTS_PARAMETER, NULL_STRING);
+        methodBuilder.addStatement("return");
+        methodBuilder.endControlFlow();
+        return methodBuilder;
+    }
+
+    /**
+     * For objects whose output does not depend on the evaluator objects, adds an override which serializes
+     * the object once and copies the output to every other evaluator object
+     * @param rule Current Rule
+     * @param typeName Current Class
+     * @param implementation Constructed implementation class
+     * @return The implementation class, with the override if the Rule fans out
+     */
+    protected TypeSpec addSharedFanOut(Rule rule, TypeName typeName, TypeSpec implementation) {
+        if (!hasFanOut(configuration, rule)) {
+            return implementation;
+        }
+
+        MethodSpec.Builder methodBuilder = generateFanOutMethod(rule, typeName);
+        methodBuilder.addStatement("int $L = $L[0].length()", MARK_VARIABLE, OUTPUTS_PARAMETER);
+        methodBuilder.addStatement("$L($L, $L[0], $L, $L, $L[0], $L[0])", INTERFACE_METHOD, OBJECT_PARAMETER, EVALS_PARAMETER, CLOAK_PARAMETER, SET_PARAMETER, OUTPUTS_PARAMETER, CONTEXTS_PARAMETER);
+        methodBuilder.addStatement("$T.copy($L, $L)", FanOut.class, OUTPUTS_PARAMETER, MARK_VARIABLE);
+        return implementation.toBuilder().addMethod(methodBuilder.build()).build();
+    }
+
+    /**
+     * Adds an override which serializes every element once for each group of evaluator objects
+     * which see the element in the same way
+     * @param rule Current Rule
+     * @param typeName Current Class
+     * @param implementation Constructed implementation class
+     * @return The implementation class, with the override if the Rule fans out
+     */
+    protected TypeSpec addContainerFanOut(Rule rule, TypeName typeName, TypeSpec implementation) {
+        if (!hasFanOut(configuration, rule)) {
+            return implementation;
+        }
+
+        MethodSpec.Builder methodBuilder = generateFanOutMethod(rule, typeName);
+        methodBuilder.addStatement("$T.append($L, $S)", FanOut.class, OUTPUTS_PARAMETER, "[");
+        methodBuilder.beginControlFlow("for (Object o : $L)", OBJECT_PARAMETER);
+        methodBuilder.addStatement("$L.$L(o, $L)", CLOAK_PARAMETER, FAN_OUT_METHOD, getFanOutArguments());
+        methodBuilder.addStatement("$T.append($L, $S)", FanOut.class, OUTPUTS_PARAMETER, ",");
+        methodBuilder.endControlFlow();
+        methodBuilder.addStatement("$T.close($L, ']')", FanOut.class, OUTPUTS_PARAMETER);
+        return implementation.toBuilder().addMethod(methodBuilder.build()).build();
+    }
+
     /**
      * @param rule Current Rule
      * @param clazz Current Class
@@ -19,12 +19,14 @@ package com.flipkart.masquerade.processor;
 import com.flipkart.masquerade.Configuration;
 import com.flipkart.masquerade.rule.Rule;
 import com.flipkart.masquerade.serialization.FieldMeta;
+import com.flipkart.masquerade.util.IndependenceAnalyzer;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeSpec;
 
 import java.lang.reflect.Field;
 import java.util.List;
 
+import static com.flipkart.masquerade.util.Helper.getEntryArguments;
 import static com.flipkart.masquerade.util.Helper.getWrapperTypes;
 import static com.flipkart.masquerade.util.Strings.*;
 
@@ -80,22 +82,29 @@ public class DefaultOverrideProcessor extends OverrideProcessor {
         // No processing required in this case
     }
 
+    @Override
+    protected void handleHiddenField(Class<?> clazz, FieldMeta field, MethodSpec.Builder methodBuilder) {
+        // No processing required in this case
+    }
+
     @Override
     protected void returns(MethodSpec.Builder methodBuilder) {
         // Returns nothing
     }
 
     @Override
-    protected boolean skipRecursiveCall(Field field) {
+    protected boolean skipRecursiveCall(Rule rule, Field field) {
         /* Does not add the statement if the field is primitive, primitive wrapper, String or an Enum */
+        /* or if nothing reachable from the field can ever be hidden by the current Rule */
         return field.getType().isPrimitive() ||
                 getWrapperTypes().contains(field.getType()) ||
                 String.class.isAssignableFrom(field.getType()) ||
-                field.getType().isEnum();
+                field.getType().isEnum() ||
+                IndependenceAnalyzer.isIndependent(rule, field.getGenericType());
     }
 
     @Override
     protected void recursiveStatement(Rule rule, MethodSpec.Builder methodBuilder, Class<?> clazz, String getterName) {
-        methodBuilder.addStatement("$L.$L($L.$L(), $L)", CLOAK_PARAMETER, ENTRY_METHOD, OBJECT_PARAMETER, getterName, EVAL_PARAMETER);
+        methodBuilder.addStatement("$L.$L($L.$L(), $L)", CLOAK_PARAMETER, ENTRY_METHOD, OBJECT_PARAMETER, getterName, getEntryArguments(configuration));
     }
 }
@@ -25,9 +25,7 @@ import com.squareup.javapoet.TypeSpec;
 import java.util.Collection;
 import java.util.Map;
 
-import static com.flipkart.masquerade.util.Helper.getCollectionVariableName;
-import static com.flipkart.masquerade.util.Helper.getMapVariableName;
-import static com.flipkart.masquerade.util.Helper.getObjectArrayVariableName;
+import static com.flipkart.masquerade.util.Helper.*;
 import static com.flipkart.masquerade.util.Strings.*;
 
 /**
@@ -49,22 +47,22 @@ public class DefaultRuleObjectProcessor extends RuleObjectProcessor {
 
     @Override
     protected void handleRegisteredClasses(MethodSpec.Builder objectMaskBuilder) {
-        objectMaskBuilder.addStatement("$L.$L($L, $L, this, $L)", MASKER_VARIABLE, INTERFACE_METHOD, OBJECT_PARAMETER, EVAL_PARAMETER, SET_PARAMETER);
+        objectMaskBuilder.addStatement("$L.$L($L, $L)", MASKER_VARIABLE, INTERFACE_METHOD, OBJECT_PARAMETER, getMaskArguments(configuration, "this"));
     }
 
     @Override
     protected void handleMaps(Rule rule, MethodSpec.Builder objectMaskBuilder) {
-        objectMaskBuilder.addStatement("$L.$L().$L(($T) $L, $L, this, $L)", SET_PARAMETER, getMapVariableName(rule), INTERFACE_METHOD, Map.class, OBJECT_PARAMETER, EVAL_PARAMETER, SET_PARAMETER);
+        objectMaskBuilder.addStatement("$L.$L().$L(($T) $L, $L)", SET_PARAMETER, getMapVariableName(rule), INTERFACE_METHOD, Map.class, OBJECT_PARAMETER, getMaskArguments(configuration, "this"));
     }
 
     @Override
     protected void handleCollections(Rule rule, MethodSpec.Builder objectMaskBuilder) {
-        objectMaskBuilder.addStatement("$L.$L().$L(($T) $L, $L, this, $L)", SET_PARAMETER, getCollectionVariableName(rule), INTERFACE_METHOD, Collection.class, OBJECT_PARAMETER, EVAL_PARAMETER, SET_PARAMETER);
+        objectMaskBuilder.addStatement("$L.$L().$L(($T) $L, $L)", SET_PARAMETER, getCollectionVariableName(rule), INTERFACE_METHOD, Collection.class, OBJECT_PARAMETER, getMaskArguments(configuration, "this"));
     }
 
     @Override
     protected void handleObjectArrays(Rule rule, MethodSpec.Builder objectMaskBuilder) {
-        objectMaskBuilder.addStatement("$L.$L().$L(($T) $L, $L, this, $L)", SET_PARAMETER, getObjectArrayVariableName(rule), INTERFACE_METHOD, ArrayTypeName.of(Object.class), OBJECT_PARAMETER, EVAL_PARAMETER, SET_PARAMETER);
+        objectMaskBuilder.addStatement("$L.$L().$L(($T) $L, $L)", SET_PARAMETER, getObjectArrayVariableName(rule), INTERFACE_METHOD, ArrayTypeName.of(Object.class), OBJECT_PARAMETER, getMaskArguments(configuration, "this"));
     }
 
     @Override
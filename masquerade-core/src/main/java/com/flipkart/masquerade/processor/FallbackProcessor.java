@@ -33,6 +33,9 @@ public class FallbackProcessor {
     private final Configuration configuration;
     private final TypeSpec.Builder cloakBuilder;
 
+    /* The field is shared by the entry methods of every Rule */
+    private boolean fieldAdded = false;
+
     /**
      * @param configuration Configuration for the current processing cycle
      * @param cloakBuilder Entry class under construction for the cycle
@@ -47,9 +50,12 @@ public class FallbackProcessor {
             return;
         }
 
-        cloakBuilder.addField(FieldSpec
-                .builder(Fallback.class, FALLBACK_VARIABLE, Modifier.PRIVATE, Modifier.FINAL)
-                .initializer("new $T()", configuration.fallback().getClass()).build());
+        if (!fieldAdded) {
+            cloakBuilder.addField(FieldSpec
+                    .builder(Fallback.class, FALLBACK_VARIABLE, Modifier.PRIVATE, Modifier.FINAL)
+                    .initializer("new $T()", configuration.fallback().getClass()).build());
+            fieldAdded = true;
+        }
 
         objectMaskBuilder.nextControlFlow("else");
         objectMaskBuilder.addStatement("$L.append($L.$L($L))", SERIALIZED_OBJECT, FALLBACK_VARIABLE, FALLBACK_METHOD, OBJECT_PARAMETER);
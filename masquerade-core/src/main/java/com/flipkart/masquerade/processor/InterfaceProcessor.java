@@ -18,6 +18,8 @@ package com.flipkart.masquerade.processor;
 
 import com.flipkart.masquerade.Configuration;
 import com.flipkart.masquerade.rule.Rule;
+import com.flipkart.masquerade.runtime.MaskContext;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
@@ -65,8 +67,44 @@ public class InterfaceProcessor {
             methodBuilder.addParameter(StringBuilder.class, SERIALIZED_OBJECT);
         }
 
+        if (hasMaskContext(configuration)) {
+            methodBuilder.addParameter(MaskContext.class, CONTEXT_PARAMETER);
+        }
+
         ruleInterface.addMethod(methodBuilder.build());
 
+        if (hasMaskedCopy(configuration)) {
+            /* Objects in which nothing can be hidden are shared with the copy */
+            MethodSpec.Builder copyBuilder = MethodSpec.methodBuilder(COPY_METHOD);
+            copyBuilder.addModifiers(Modifier.DEFAULT, Modifier.PUBLIC);
+            copyBuilder.returns(TypeVariableName.get("T"));
+            copyBuilder.addParameter(TypeVariableName.get("T"), OBJECT_PARAMETER);
+            copyBuilder.addParameter(rule.getEvaluatorClass(), EVAL_PARAMETER);
+            copyBuilder.addParameter(getEntryClass(configuration), CLOAK_PARAMETER);
+            copyBuilder.addParameter(getRepositoryClass(configuration), SET_PARAMETER);
+            if (hasMaskContext(configuration)) {
+                copyBuilder.addParameter(MaskContext.class, CONTEXT_PARAMETER);
+            }
+            copyBuilder.addStatement("return $L", OBJECT_PARAMETER);
+            ruleInterface.addMethod(copyBuilder.build());
+        }
+
+        if (hasFanOut(configuration, rule)) {
+            /* Masks which do not group the evaluator objects serialize the object for each of them */
+            MethodSpec.Builder fanOutBuilder = MethodSpec.methodBuilder(FAN_OUT_MASK_METHOD);
+            fanOutBuilder.addModifiers(Modifier.DEFAULT, Modifier.PUBLIC);
+            fanOutBuilder.addParameter(TypeVariableName.get("T"), OBJECT_PARAMETER);
+            fanOutBuilder.addParameter(ArrayTypeName.of(rule.getEvaluatorClass()), EVALS_PARAMETER);
+            fanOutBuilder.addParameter(getEntryClass(configuration), CLOAK_PARAMETER);
+            fanOutBuilder.addParameter(getRepositoryClass(configuration), SET_PARAMETER);
+            fanOutBuilder.addParameter(StringBuilder[].class, OUTPUTS_PARAMETER);
+            fanOutBuilder.addParameter(MaskContext[].class, CONTEXTS_PARAMETER);
+            fanOutBuilder.beginControlFlow("for (int i = 0; i < $L.length; i++)", EVALS_PARAMETER);
+            fanOutBuilder.addStatement("$L($L, $L[i], $L, $L, $L[i], $L[i])", INTERFACE_METHOD, OBJECT_PARAMETER, EVALS_PARAMETER, CLOAK_PARAMETER, SET_PARAMETER, OUTPUTS_PARAMETER, CONTEXTS_PARAMETER);
+            fanOutBuilder.endControlFlow();
+            ruleInterface.addMethod(fanOutBuilder.build());
+        }
+
         return ruleInterface.build();
     }
 }
@@ -16,29 +16,29 @@
 
 package com.flipkart.masquerade.processor;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.flipkart.masquerade.Configuration;
-import com.flipkart.masquerade.annotation.IgnoreCloak;
 import com.flipkart.masquerade.rule.*;
 import com.flipkart.masquerade.serialization.FieldMeta;
-import com.flipkart.masquerade.util.EntryType;
-import com.flipkart.masquerade.util.FieldDescriptor;
-import com.flipkart.masquerade.util.RepositoryEntry;
-import com.squareup.javapoet.ClassName;
+import com.flipkart.masquerade.runtime.FanOut;
+import com.flipkart.masquerade.runtime.FieldVisibility;
+import com.flipkart.masquerade.runtime.MaskContext;
+import com.flipkart.masquerade.util.*;
+import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
+import javax.lang.model.element.Modifier;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import static com.flipkart.masquerade.util.Helper.*;
-import static com.flipkart.masquerade.util.Strings.OBJECT_PARAMETER;
+import static com.flipkart.masquerade.util.Strings.*;
 
 /**
  * Processor that creates an implementation class for a Mask interface
@@ -46,28 +46,270 @@ import static com.flipkart.masquerade.util.Strings.OBJECT_PARAMETER;
  * Created by shrey.garg on 12/05/17.
  */
 public abstract class OverrideProcessor extends BaseOverrideProcessor {
+    private static final Object RANGE_OPERAND = new Object();
+
+    private final PredicateProcessor predicateProcessor;
+
     /**
      * @param configuration Configuration for the current processing cycle
      * @param cloakBuilder  Entry class under construction for the cycle
      */
     public OverrideProcessor(Configuration configuration, TypeSpec.Builder cloakBuilder) {
         super(configuration, cloakBuilder);
+        this.predicateProcessor = new PredicateProcessor(configuration);
+    }
+
+    /**
+     * @return Processor which generates the predicates classes from the records of the implementations
+     */
+    public PredicateProcessor getPredicateProcessor() {
+        return predicateProcessor;
     }
 
     /**
      * @param rule The rule which is being processed
      * @param clazz The Class for which the Rule Mask interface will be implemented
-     * @param repositoryEntries The Initialization block entries for which the map entry for the implementation will be added
+     * @param record Record of the class, which gets the repository entries and predicates of the implementation
      * @return A fully constructed TypeSpec object for the implementation
      */
-    public Optional<TypeSpec> createOverride(Rule rule, Class<?> clazz, List<RepositoryEntry> repositoryEntries) {
+    public Optional<TypeSpec> createOverride(Rule rule, Class<?> clazz, MaskRecord record) {
+        List<RepositoryEntry> repositoryEntries = record.getEntries();
+        MethodSpec.Builder methodBuilder = generateOverrideMethod(rule, clazz);
+        /* The generic body fetches its visibility mask under a known name, so the fan out can group by it */
+        String visibilityKey = hasVisibilityCache(configuration, rule) ? predicateProcessor.registerVisibility(record, clazz) : null;
+        CodeBlock genericBody = createMaskBody(rule, clazz, null, record, visibilityKey, false);
+        if (visibilityKey != null && record.getVisibilities().get(visibilityKey).isEmpty()) {
+            record.getVisibilities().remove(visibilityKey);
+            visibilityKey = null;
+        }
+
+        if (methodBuilder.build().code.isEmpty() && genericBody.isEmpty()) {
+            addNoOpInitializerCode(rule, clazz, repositoryEntries);
+            return Optional.empty();
+        }
+
+        /* Evaluator objects in the partition of a hot profile take the variant specialized for it */
+        for (EvaluatorProfile profile : PartitionAnalyzer.getProfiles(rule)) {
+            methodBuilder.beginControlFlow("if ($L.getProfile() == $L)", CONTEXT_PARAMETER, profile.getOrdinal());
+            methodBuilder.addCode(createMaskBody(rule, clazz, profile, record, null, false));
+            methodBuilder.addStatement("return");
+            methodBuilder.endControlFlow();
+        }
+        methodBuilder.addCode(genericBody);
+
+        addInitializerCode(rule, clazz, repositoryEntries);
+
+        String implName = getImplementationName(rule, clazz);
+        MethodSpec override = methodBuilder.build();
+        List<MethodSpec> innerMethods = new ArrayList<>();
+        if (isFragmentCached(configuration, rule, clazz)) {
+            innerMethods.add(createInnerMethod(COMPUTE_METHOD, override));
+            override = createCachedOverride(rule, clazz, override);
+        }
+        if (isSharedInstance(configuration, clazz)) {
+            innerMethods.add(createInnerMethod(TRAVERSE_METHOD, override));
+            override = createSharedOverride(rule, clazz, override);
+        }
+
+        TypeSpec.Builder implementation = generateImplementationType(rule, clazz, implName, override).toBuilder().addMethods(innerMethods);
+        if (hasMaskedCopy(configuration)) {
+            implementation.addMethod(createCopyMethod(rule, clazz, record));
+        }
+        if (hasJacksonModule(configuration)) {
+            addFieldVisibility(rule, clazz, implementation, record);
+        }
+        if (hasFanOut(configuration, rule) && innerMethods.isEmpty()
+                && (visibilityKey == null || !predicateProcessor.isVisibilityFull(record, visibilityKey))) {
+            addFanOut(rule, clazz, implementation, record, visibilityKey);
+        }
+        return Optional.of(implementation.build());
+    }
+
+    /**
+     * Implements the fan out, which groups the evaluator objects by what they see of the object and
+     * serializes the object once per group. Cached and shared classes keep the default, which masks
+     * the object for every evaluator object separately.
+     * @param visibilityKey Name of the visibility mask of the generic body, or null if it has none
+     */
+    private void addFanOut(Rule rule, Class<?> clazz, TypeSpec.Builder implementation, MaskRecord record, String visibilityKey) {
+        MethodSpec.Builder methodBuilder = generateFanOutMethod(rule, TypeName.get(clazz));
+        methodBuilder.beginControlFlow("if ($L.length == 1)", EVALS_PARAMETER);
+        methodBuilder.addStatement("$L($L, $L[0], $L, $L, $L[0], $L[0])", INTERFACE_METHOD, OBJECT_PARAMETER, EVALS_PARAMETER, CLOAK_PARAMETER, SET_PARAMETER, OUTPUTS_PARAMETER, CONTEXTS_PARAMETER);
+        methodBuilder.addStatement("return");
+        methodBuilder.endControlFlow();
+
+        /* Evaluator objects with the same visibility mask and inclusion write the same output */
+        methodBuilder.addStatement("long[] $L = new long[$L.length]", KEYS_VARIABLE, EVALS_PARAMETER);
+        methodBuilder.beginControlFlow("for (int i = 0; i < $L.length; i++)", EVALS_PARAMETER);
+        if (visibilityKey == null) {
+            methodBuilder.addStatement("$L[i] = $L[i].isDefaultNonNullInclusion() ? 1L : 0L", KEYS_VARIABLE, EVALS_PARAMETER);
+        } else {
+            methodBuilder.addStatement("$L[i] = $T.$L$L($L[i], $L[i]) << 1 | ($L[i].isDefaultNonNullInclusion() ? 1L : 0L)",
+                    KEYS_VARIABLE, getPredicatesClass(configuration, rule), VISIBILITY_METHOD, visibilityKey, EVALS_PARAMETER, CONTEXTS_PARAMETER, EVALS_PARAMETER);
+        }
+        methodBuilder.endControlFlow();
+        methodBuilder.beginControlFlow("for (int[] $L : $T.group($L))", GROUP_VARIABLE, FanOut.class, KEYS_VARIABLE);
+        methodBuilder.addStatement("$L($L, $T.select($L, $L), $L, $L, $T.select($L, $L), $T.select($L, $L))", GROUP_METHOD, OBJECT_PARAMETER,
+                FanOut.class, EVALS_PARAMETER, GROUP_VARIABLE, CLOAK_PARAMETER, SET_PARAMETER,
+                FanOut.class, OUTPUTS_PARAMETER, GROUP_VARIABLE, FanOut.class, CONTEXTS_PARAMETER, GROUP_VARIABLE);
+        methodBuilder.endControlFlow();
+        MethodSpec fanOut = methodBuilder.build();
+
+        /* A group serializes into its first output and copies the rest, splitting again at every object it recurses into */
+        MethodSpec.Builder groupBuilder = MethodSpec.methodBuilder(GROUP_METHOD)
+                .addModifiers(Modifier.PRIVATE)
+                .addParameters(fanOut.parameters);
+        groupBuilder.addStatement("$T $L = $L[0]", rule.getEvaluatorClass(), EVAL_PARAMETER, EVALS_PARAMETER);
+        groupBuilder.addStatement("$T $L = $L[0]", StringBuilder.class, SERIALIZED_OBJECT, OUTPUTS_PARAMETER);
+        groupBuilder.addStatement("$T $L = $L[0]", MaskContext.class, CONTEXT_PARAMETER, CONTEXTS_PARAMETER);
+        groupBuilder.addStatement("int $L = $L.length()", MARK_VARIABLE, SERIALIZED_OBJECT);
+        groupBuilder.addCode(createMaskBody(rule, clazz, null, record, visibilityKey, true));
+        groupBuilder.addStatement("$T.copy($L, $L)", FanOut.class, OUTPUTS_PARAMETER, MARK_VARIABLE);
+
+        implementation.addMethod(fanOut);
+        implementation.addMethod(groupBuilder.build());
+    }
+
+    /**
+     * Implements FieldVisibility, which answers for every field that can be hidden whether it is hidden for an evaluator object
+     */
+    private void addFieldVisibility(Rule rule, Class<?> clazz, TypeSpec.Builder implementation, MaskRecord record) {
+        MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(HIDDEN_METHOD);
+        methodBuilder.addAnnotation(Override.class);
+        methodBuilder.addModifiers(Modifier.PUBLIC);
+        methodBuilder.returns(boolean.class);
+        methodBuilder.addParameter(int.class, FIELD_PARAMETER);
+        methodBuilder.addParameter(Object.class, EVALUATOR_PARAMETER);
+        methodBuilder.addParameter(MaskContext.class, CONTEXT_PARAMETER);
+        methodBuilder.addStatement("$T $L = ($T) $L", rule.getEvaluatorClass(), EVAL_PARAMETER, rule.getEvaluatorClass(), EVALUATOR_PARAMETER);
+        methodBuilder.beginControlFlow("switch ($L)", FIELD_PARAMETER);
+
+        List<String> hideableFields = new ArrayList<>();
+        BiFunction<BasicRule, Object, Boolean> resolver = (basicRule, value) -> RuleEvaluator.resolve(configuration.evaluatorDomain(), basicRule, value);
+        for (FieldModel model : getClassModel(clazz).getFields()) {
+            Field field = model.getField();
+            if (model.isIgnored() || field.getType().isPrimitive()) {
+                continue;
+            }
+
+            List<Rule> liveConstituents = new ArrayList<>();
+            Boolean hidden = resolveHidden(rule, field, resolver, liveConstituents);
+            if (hidden != null && hidden) {
+                methodBuilder.addStatement("case $L: return true", hideableFields.size());
+            } else if (hidden == null && !liveConstituents.isEmpty()) {
+                methodBuilder.addStatement("case $L: return $L", hideableFields.size(), joinOperations(constructOperations(rule, liveConstituents, field, record)));
+            } else {
+                continue;
+            }
+            hideableFields.add(field.getName());
+        }
+
+        methodBuilder.addStatement("default: return false");
+        methodBuilder.endControlFlow();
+
+        CodeBlock.Builder names = CodeBlock.builder();
+        for (int i = 0; i < hideableFields.size(); i++) {
+            names.add(i == 0 ? "$S" : ", $S", hideableFields.get(i));
+        }
+        implementation.addSuperinterface(FieldVisibility.class);
+        implementation.addField(FieldSpec.builder(String[].class, HIDEABLE_FIELDS, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("{ $L }", names.build()).build());
+        implementation.addMethod(MethodSpec.methodBuilder(HIDEABLE_METHOD)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(String[].class)
+                .addStatement("return $L.clone()", HIDEABLE_FIELDS).build());
+        implementation.addMethod(methodBuilder.build());
+    }
+
+    /**
+     * @param traverseMethod The override which masks the object
+     * @return An override which masks every object only once per call. With native serialization, later references
+     * to the object copy the output of the first one.
+     */
+    private MethodSpec createSharedOverride(Rule rule, Class<?> clazz, MethodSpec traverseMethod) {
+        MethodSpec.Builder methodBuilder = generateOverrideMethod(rule, clazz);
+
+        if (configuration.isNativeSerializationEnabled()) {
+            methodBuilder.beginControlFlow("if ($L.replay($L, $L))", CONTEXT_PARAMETER, OBJECT_PARAMETER, SERIALIZED_OBJECT);
+        } else {
+            methodBuilder.beginControlFlow("if (!$L.visit($L))", CONTEXT_PARAMETER, OBJECT_PARAMETER);
+        }
+        methodBuilder.addStatement("return");
+        methodBuilder.endControlFlow();
+
+        methodBuilder.addStatement("$L($L)", TRAVERSE_METHOD, getArguments(traverseMethod));
+        if (configuration.isNativeSerializationEnabled()) {
+            methodBuilder.addStatement("$L.record($L, $L)", CONTEXT_PARAMETER, OBJECT_PARAMETER, SERIALIZED_OBJECT);
+        }
+        return methodBuilder.build();
+    }
+
+    /**
+     * @param computeMethod The override which serializes the object
+     * @return An override which takes the serialized form of the object from the fragment cache, and fills the cache if it is absent
+     */
+    private MethodSpec createCachedOverride(Rule rule, Class<?> clazz, MethodSpec computeMethod) {
         MethodSpec.Builder methodBuilder = generateOverrideMethod(rule, clazz);
+
+        String key = getFragmentKey(clazz);
+        if (key == null) {
+            methodBuilder.addStatement("$T $L = null", Object.class, KEY_VARIABLE);
+        } else {
+            try {
+                getAccessorType(clazz, key);
+            } catch (NoSuchMethodException | NoSuchFieldException e) {
+                throw new UnsupportedOperationException("Please specify a PUBLIC method or field of the class as the fragment key. Class: " + clazz.getName());
+            }
+            methodBuilder.addStatement("$T $L = $L.$L", Object.class, KEY_VARIABLE, OBJECT_PARAMETER, key);
+        }
+
+        String cache = CLOAK_PARAMETER + "." + getFragmentCacheVariableName(rule) + "()";
+        methodBuilder.addStatement("$T $L = $L.get($L, $L, $L.isDefaultNonNullInclusion())", String.class, FRAGMENT_VARIABLE, cache, OBJECT_PARAMETER, KEY_VARIABLE, EVAL_PARAMETER);
+        methodBuilder.beginControlFlow("if ($L != null)", FRAGMENT_VARIABLE);
+        methodBuilder.addStatement("$L.append($L)", SERIALIZED_OBJECT, FRAGMENT_VARIABLE);
+        methodBuilder.addStatement("return");
+        methodBuilder.endControlFlow();
+
+        methodBuilder.addStatement("int $L = $L.length()", START_VARIABLE, SERIALIZED_OBJECT);
+        methodBuilder.addStatement("$L($L)", COMPUTE_METHOD, getArguments(computeMethod));
+        methodBuilder.addStatement("$L.put($L, $L, $L.isDefaultNonNullInclusion(), $L.substring($L))", cache, OBJECT_PARAMETER, KEY_VARIABLE, EVAL_PARAMETER, SERIALIZED_OBJECT, START_VARIABLE);
+        return methodBuilder.build();
+    }
+
+    /**
+     * @return A private copy of the override, to be called by the override which replaces it
+     */
+    private MethodSpec createInnerMethod(String name, MethodSpec override) {
+        return MethodSpec.methodBuilder(name)
+                .addModifiers(Modifier.PRIVATE)
+                .addParameters(override.parameters)
+                .addCode(override.code)
+                .build();
+    }
+
+    private String getArguments(MethodSpec method) {
+        List<String> arguments = new ArrayList<>();
+        method.parameters.forEach(parameter -> arguments.add(parameter.name));
+        return String.join(", ", arguments);
+    }
+
+    /**
+     * @param profile The hot profile for which the conditions are resolved at build time, or null for the generic body
+     * @param visibilityKey Name of the visibility mask the body tests, or null to register one when it is first needed
+     * @param fanOut true if the body serializes for a group of evaluator objects, recursing into objects for all of them
+     * @return The statements which mask an object of the class
+     */
+    private CodeBlock createMaskBody(Rule rule, Class<?> clazz, EvaluatorProfile profile, MaskRecord record, String visibilityKey, boolean fanOut) {
+        List<RepositoryEntry> repositoryEntries = record.getEntries();
+        MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(INTERFACE_METHOD);
         declareInitializeVariables(methodBuilder);
 
         /* Only consider fields for processing that are not static and remove fields that are to be ignored */
-        List<Field> originalFields = getNonStaticFields(clazz).stream().filter(field -> !field.isAnnotationPresent(IgnoreCloak.class) && !field.isAnnotationPresent(JsonIgnore.class)).collect(Collectors.toList());
+        List<FieldModel> originalFields = getClassModel(clazz).getFields().stream().filter(field -> !field.isIgnored()).collect(Collectors.toList());
         List<FieldMeta> nonStaticFields = orderedFields(originalFields, clazz);
         addSyntheticFields(clazz, nonStaticFields);
+        boolean visibilityDeclared = false;
         for (FieldMeta field : nonStaticFields) {
             if (skipProcessing(field)) {
                 continue;
@@ -79,55 +321,192 @@ public abstract class OverrideProcessor extends BaseOverrideProcessor {
             }
 
             if (!skipAnnotationProcessing(field)) {
-                Class<? extends Annotation> annotationClass = rule.getAnnotationClass();
-                Annotation[] annotations = field.getField().getAnnotationsByType(annotationClass);
-                if (annotations != null && annotations.length != 0) {
-                    List<CodeBlock> operationBlocks = new ArrayList<>();
-                    for (Annotation annotation : annotations) {
-                        operationBlocks.add(constructOperation(rule, annotationClass, annotation));
+                BiFunction<BasicRule, Object, Boolean> resolver = profile == null ?
+                        (basicRule, value) -> RuleEvaluator.resolve(configuration.evaluatorDomain(), basicRule, value) :
+                        profile::resolve;
+
+                List<Rule> liveConstituents = new ArrayList<>();
+                Boolean hidden = resolveHidden(rule, field.getField(), resolver, liveConstituents);
+
+                if (hidden != null && hidden) {
+                    /* The field is always hidden, so nothing reachable from it is ever needed */
+                    if (!isNonDestructive(configuration)) {
+                        clearField(methodBuilder, field.getModel(), clazz);
                     }
-                    constructFinalOperation(methodBuilder, field.getField(), clazz, operationBlocks);
+                    handleHiddenField(clazz, field, methodBuilder);
+                    continue;
+                }
+
+                if (hidden == null && !liveConstituents.isEmpty()) {
+                    CodeBlock condition = joinOperations(constructOperations(rule, liveConstituents, field.getField(), record));
+                    if (hasVisibilityCache(configuration, rule)) {
+                        /* The mask for the class is fetched once, before the first field which can be hidden */
+                        if (!visibilityDeclared) {
+                            if (visibilityKey == null) {
+                                visibilityKey = predicateProcessor.registerVisibility(record, clazz);
+                            }
+                            visibilityDeclared = true;
+                            methodBuilder.addStatement("long $L = $T.$L$L($L, $L)", VISIBILITY_VARIABLE, getPredicatesClass(configuration, rule), VISIBILITY_METHOD, visibilityKey, EVAL_PARAMETER, CONTEXT_PARAMETER);
+                        }
+                        condition = predicateProcessor.addVisibility(record, visibilityKey, condition);
+                    }
+
+                    if (isNonDestructive(configuration)) {
+                        /* The hidden field is written as if it were null, without touching the object */
+                        methodBuilder.beginControlFlow("if ($L)", condition);
+                        handleHiddenField(clazz, field, methodBuilder);
+                        methodBuilder.nextControlFlow("else");
+                        addField(rule, clazz, field, methodBuilder, repositoryEntries, fanOut);
+                        methodBuilder.endControlFlow();
+                        continue;
+                    }
+                    constructFinalOperation(methodBuilder, field.getModel(), clazz, condition);
                 }
             }
 
-            handleFieldKeys(clazz, field, methodBuilder);
-            addRecursiveStatement(rule, clazz, field.getField(), methodBuilder, repositoryEntries);
-            handleFieldValues(field, methodBuilder);
+            addField(rule, clazz, field, methodBuilder, repositoryEntries, fanOut);
         }
 
         returns(methodBuilder);
 
-        MethodSpec methodSpec = methodBuilder.build();
-        if (methodSpec.code.isEmpty()) {
-            addNoOpInitializerCode(rule, clazz, repositoryEntries);
-            return Optional.empty();
+        return methodBuilder.build().code;
+    }
+
+    /**
+     * @param liveConstituents Filled with the constituents of the Rule whose conditions can only be resolved at runtime
+     * @return true if the field is always hidden, false if it is never hidden, or null if it depends on the evaluator object
+     */
+    private Boolean resolveHidden(Rule rule, Field field, BiFunction<BasicRule, Object, Boolean> resolver, List<Rule> liveConstituents) {
+        /* Constituents which can never hide the field contribute no condition */
+        Boolean hidden = false;
+        for (Rule constituent : rule.getConstituents()) {
+            Annotation[] annotations = field.getAnnotationsByType(constituent.getAnnotationClass());
+            Boolean constituentHidden = RuleEvaluator.evaluate(constituent, annotations, resolver);
+            hidden = RuleEvaluator.or(hidden, constituentHidden);
+            if (constituentHidden == null && annotations.length != 0) {
+                liveConstituents.add(constituent);
+            }
         }
+        return hidden;
+    }
 
-        addInitializerCode(rule, clazz, repositoryEntries);
+    /**
+     * @return A method which builds a masked copy of an object of the class through its setters, without modifying the object.
+     * Fields in which nothing can ever be hidden are shared with the object.
+     */
+    private MethodSpec createCopyMethod(Rule rule, Class<?> clazz, MaskRecord record) {
+        try {
+            clazz.getConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new UnsupportedOperationException("A copied class should have a public no-argument constructor. Class: " + clazz.getName());
+        }
 
-        String implName = getImplementationName(rule, clazz);
-        return Optional.ofNullable(generateImplementationType(rule, clazz, implName, methodSpec));
+        MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(COPY_METHOD);
+        methodBuilder.addAnnotation(Override.class);
+        methodBuilder.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build());
+        methodBuilder.addModifiers(Modifier.PUBLIC);
+        methodBuilder.returns(clazz);
+        methodBuilder.addParameter(clazz, OBJECT_PARAMETER);
+        methodBuilder.addParameter(rule.getEvaluatorClass(), EVAL_PARAMETER);
+        methodBuilder.addParameter(getEntryClass(configuration), CLOAK_PARAMETER);
+        methodBuilder.addParameter(getRepositoryClass(configuration), SET_PARAMETER);
+        if (hasMaskContext(configuration)) {
+            methodBuilder.addParameter(MaskContext.class, CONTEXT_PARAMETER);
+        }
+
+        if (isSharedInstance(configuration, clazz)) {
+            /* Every reference to a shared object, including a cyclic one, gets the same copy */
+            methodBuilder.addStatement("$T $L = $L.getCopy($L)", Object.class, EXISTING_VARIABLE, CONTEXT_PARAMETER, OBJECT_PARAMETER);
+            methodBuilder.beginControlFlow("if ($L != null)", EXISTING_VARIABLE);
+            methodBuilder.addStatement("return ($T) $L", clazz, EXISTING_VARIABLE);
+            methodBuilder.endControlFlow();
+        }
+        methodBuilder.addStatement("$T $L = new $T()", clazz, COPY_VARIABLE, clazz);
+        if (isSharedInstance(configuration, clazz)) {
+            methodBuilder.addStatement("$L.putCopy($L, $L)", CONTEXT_PARAMETER, OBJECT_PARAMETER, COPY_VARIABLE);
+        }
+
+        BiFunction<BasicRule, Object, Boolean> resolver = (basicRule, value) -> RuleEvaluator.resolve(configuration.evaluatorDomain(), basicRule, value);
+        for (FieldModel model : getClassModel(clazz).getFields()) {
+            Field field = model.getField();
+            String getter = getVerifiedGetter(model, clazz);
+            String setter = getVerifiedSetter(model, clazz);
+
+            boolean ignored = model.isIgnored();
+            CodeBlock value;
+            if (ignored || skipRecursiveCall(rule, field)) {
+                value = CodeBlock.of("$L.$L()", OBJECT_PARAMETER, getter);
+            } else {
+                verifyCopiedContainer(clazz, field);
+                value = CodeBlock.of("($T) $L.$L($L.$L(), $L)", field.getType(), CLOAK_PARAMETER, COPY_METHOD, OBJECT_PARAMETER, getter, getCopyArguments(configuration));
+            }
+
+            List<Rule> liveConstituents = new ArrayList<>();
+            Boolean hidden = ignored || field.getType().isPrimitive() ? Boolean.FALSE : resolveHidden(rule, field, resolver, liveConstituents);
+            if (hidden != null && hidden) {
+                methodBuilder.addStatement("$L.$L(null)", COPY_VARIABLE, setter);
+            } else if (hidden == null && !liveConstituents.isEmpty()) {
+                methodBuilder.beginControlFlow("if ($L)", joinOperations(constructOperations(rule, liveConstituents, field, record)));
+                methodBuilder.addStatement("$L.$L(null)", COPY_VARIABLE, setter);
+                methodBuilder.nextControlFlow("else");
+                methodBuilder.addStatement("$L.$L($L)", COPY_VARIABLE, setter, value);
+                methodBuilder.endControlFlow();
+            } else {
+                methodBuilder.addStatement("$L.$L($L)", COPY_VARIABLE, setter, value);
+            }
+        }
+
+        methodBuilder.addStatement("return $L", COPY_VARIABLE);
+        return methodBuilder.build();
+    }
+
+    /**
+     * Maps and Collections are copied into a LinkedHashMap or TreeMap, and an ArrayList, LinkedHashSet or TreeSet, so the field must be able to hold them
+     */
+    private void verifyCopiedContainer(Class<?> clazz, Field field) {
+        Class<?> type = field.getType();
+        boolean supported = true;
+        if (Map.class.isAssignableFrom(type)) {
+            supported = SortedMap.class.isAssignableFrom(type) ? type.isAssignableFrom(TreeMap.class) : type.isAssignableFrom(LinkedHashMap.class);
+        } else if (SortedSet.class.isAssignableFrom(type)) {
+            supported = type.isAssignableFrom(TreeSet.class);
+        } else if (Set.class.isAssignableFrom(type)) {
+            supported = type.isAssignableFrom(LinkedHashSet.class);
+        } else if (Collection.class.isAssignableFrom(type)) {
+            supported = type.isAssignableFrom(ArrayList.class);
+        }
+
+        if (!supported) {
+            throw new UnsupportedOperationException("A copied Map or Collection field should be declared with an interface type. Class: " + clazz.getName() + " Field: " + field.getName());
+        }
+    }
+
+    private void addField(Rule rule, Class<?> clazz, FieldMeta field, MethodSpec.Builder methodBuilder, List<RepositoryEntry> repositoryEntries, boolean fanOut) {
+        handleFieldKeys(clazz, field, methodBuilder);
+        addRecursiveStatement(rule, clazz, field.getModel(), methodBuilder, repositoryEntries, fanOut);
+        handleFieldValues(field, methodBuilder);
     }
 
     /**
      * Adds a call to the Entry class if the current field needs to be processed as well
-     * @param field Current Field
+     * @param model Model of the current Field
      * @param methodBuilder Current method builder
+     * @param fanOut true if the field is serialized for a group of evaluator objects
      */
-    private void addRecursiveStatement(Rule rule, Class<?> clazz, Field field, MethodSpec.Builder methodBuilder, List<RepositoryEntry> repositoryEntries) {
-        if (!skipRecursiveCall(field)) {
-            String getter = getGetterName(field.getName(), isBoolean(field.getType()), field.getType().isPrimitive());
-            try {
-                clazz.getMethod(getter);
-            } catch (NoSuchMethodException e) {
-                throw new UnsupportedOperationException("A cloak-able class should have a getter defined for all fields. Class: " + clazz.getName() + " Field: " + field.getName());
-            }
+    private void addRecursiveStatement(Rule rule, Class<?> clazz, FieldModel model, MethodSpec.Builder methodBuilder, List<RepositoryEntry> repositoryEntries, boolean fanOut) {
+        Field field = model.getField();
+        if (!skipRecursiveCall(rule, field)) {
+            String getter = getVerifiedGetter(model, clazz);
 
             if (field.getType().isEnum()) {
                 addEnumInitializerCode(rule, field.getType(), repositoryEntries);
             }
 
-            recursiveStatement(rule, methodBuilder, field.getType(), getter);
+            if (fanOut) {
+                fanOutStatement(rule, methodBuilder, field.getType(), getter);
+            } else {
+                recursiveStatement(rule, methodBuilder, field.getType(), getter);
+            }
         }
     }
 
@@ -143,42 +522,118 @@ public abstract class OverrideProcessor extends BaseOverrideProcessor {
         repositoryEntries.add(new RepositoryEntry(rule, clazz, EntryType.NEW));
     }
 
-    private CodeBlock constructOperation(Rule rule, Class<? extends Annotation> annotationClass, Annotation annotation) {
-        List<Object> operands = new ArrayList<>();
+    /**
+     * Annotations whose conditions differ only in the bounds of a single range are merged into one condition,
+     * which looks the accessor value up in the union of their ranges. Every other annotation gets its own condition.
+     * @param constituents The constituents of the Rule whose annotations on the field decide if it is hidden
+     */
+    private List<CodeBlock> constructOperations(Rule rule, List<Rule> constituents, Field field, MaskRecord record) {
+        Map<List<Object>, List<Interval>> mergedOperations = new LinkedHashMap<>();
+        for (Rule constituent : constituents) {
+            for (Annotation annotation : field.getAnnotationsByType(constituent.getAnnotationClass())) {
+                mergeOperation(rule, constituent, annotation, mergedOperations, record);
+            }
+        }
 
-        CompositeRule baseRule = rule.getValueRule();
-        String operation = constructBasicOperation(baseRule, baseRule.getConjunction(), annotationClass, annotation, operands);
+        List<CodeBlock> conditions = new ArrayList<>();
+        for (Map.Entry<List<Object>, List<Interval>> entry : mergedOperations.entrySet()) {
+            List<Object> operands = new ArrayList<>(entry.getKey().subList(1, entry.getKey().size()));
+            int rangeIndex = operands.indexOf(RANGE_OPERAND);
+            if (rangeIndex >= 0) {
+                operands.set(rangeIndex, predicateProcessor.registerIntervals(rule, record, entry.getValue()));
+            }
+            conditions.add(CodeBlock.of((String) entry.getKey().get(0), operands.toArray()));
+        }
 
-        return CodeBlock.of(operation, operands.toArray());
+        List<CodeBlock> operationBlocks = new ArrayList<>();
+        for (CodeBlock condition : ProfileGuide.orderBySelectivity(rule, conditions)) {
+            operationBlocks.add(predicateProcessor.register(rule, record, condition));
+        }
+        return operationBlocks;
     }
 
-    private void constructFinalOperation(MethodSpec.Builder builder, Field field, Class<?> clazz, List<CodeBlock> operationBlocks) {
-        String setter = getSetterName(field.getName(), isBoolean(field.getType()));
-        try {
-            clazz.getMethod(setter, field.getType());
-        } catch (NoSuchMethodException e) {
-            throw new UnsupportedOperationException("A cloak-able class should have a setter defined for all fields. Class: " + clazz.getName() + " Field: " + field.getName());
+    private void mergeOperation(Rule rule, Rule constituent, Annotation annotation, Map<List<Object>, List<Interval>> mergedOperations, MaskRecord record) {
+        List<Object> operands = new ArrayList<>();
+
+        CompositeRule baseRule = constituent.getValueRule();
+        String operation = constructBasicOperation(rule, baseRule, baseRule.getConjunction(), constituent.getAnnotationClass(), annotation, operands, record);
+        if (operation.isEmpty()) {
+            /* Every member was ignored, which leaves the identity of the conjunction */
+            operation = baseRule.getConjunction() == Conjunction.AND ? "true" : "false";
         }
 
-        StringBuilder operationBuilder = new StringBuilder();
+        List<Integer> rangeIndices = new ArrayList<>();
+        for (int i = 0; i < operands.size(); i++) {
+            if (operands.get(i) instanceof Interval) {
+                rangeIndices.add(i);
+            }
+        }
+
+        Interval range = null;
+        if (rangeIndices.size() == 1) {
+            range = (Interval) operands.set(rangeIndices.get(0), RANGE_OPERAND);
+        } else {
+            for (int index : rangeIndices) {
+                operands.set(index, predicateProcessor.registerIntervals(rule, record, Collections.singletonList((Interval) operands.get(index))));
+            }
+        }
+
+        List<Object> key = new ArrayList<>();
+        key.add(operation);
+        key.addAll(operands);
+        List<Interval> ranges = mergedOperations.computeIfAbsent(key, k -> new ArrayList<>());
+        if (range != null) {
+            ranges.add(range);
+        }
+    }
+
+    private CodeBlock joinOperations(List<CodeBlock> operationBlocks) {
+        CodeBlock.Builder condition = CodeBlock.builder();
         for (int i = 0; i < operationBlocks.size(); i++) {
-            operationBuilder.append("($L)");
+            condition.add("$L", operationBlocks.get(i));
             if (i != operationBlocks.size() - 1) {
-                operationBuilder.append(" || ");
+                condition.add(" || ");
             }
         }
+        return condition.build();
+    }
 
-        builder.beginControlFlow("if (" + operationBuilder.toString() + ")", operationBlocks.toArray());
-        builder.addStatement("$L.$L(null)", OBJECT_PARAMETER, setter);
+    private void constructFinalOperation(MethodSpec.Builder builder, FieldModel field, Class<?> clazz, CodeBlock condition) {
+        builder.beginControlFlow("if ($L)", condition);
+        clearField(builder, field, clazz);
         builder.endControlFlow();
     }
 
-    private String constructBasicOperation(CompositeRule compositeRule, Conjunction conjunction, Class<? extends Annotation> annotationClass, Annotation annotation, List<Object> operands) {
+    private void clearField(MethodSpec.Builder builder, FieldModel field, Class<?> clazz) {
+        String setter = getVerifiedSetter(field, clazz);
+        if (hasUndoLog(configuration)) {
+            /* A method reference without captures is created once per call site, so recording allocates nothing */
+            String getter = field.getGetterName();
+            builder.addStatement("$L.recordPrevious($L, $T::$L, $L.$L())", CONTEXT_PARAMETER, OBJECT_PARAMETER, clazz, setter, OBJECT_PARAMETER, getter);
+        }
+        builder.addStatement("$L.$L(null)", OBJECT_PARAMETER, setter);
+    }
+
+    private String getVerifiedGetter(FieldModel field, Class<?> clazz) {
+        if (field.getGetter() == null) {
+            throw new UnsupportedOperationException("A cloak-able class should have a getter defined for all fields. Class: " + clazz.getName() + " Field: " + field.getName());
+        }
+        return field.getGetterName();
+    }
+
+    private String getVerifiedSetter(FieldModel field, Class<?> clazz) {
+        if (field.getSetter() == null) {
+            throw new UnsupportedOperationException("A cloak-able class should have a setter defined for all fields. Class: " + clazz.getName() + " Field: " + field.getName());
+        }
+        return field.getSetterName();
+    }
+
+    private String constructBasicOperation(Rule rule, CompositeRule compositeRule, Conjunction conjunction, Class<? extends Annotation> annotationClass, Annotation annotation, List<Object> operands, MaskRecord record) {
         StringBuilder operation = new StringBuilder();
         for (ValueRule valueRule : compositeRule.getValueRules()) {
             if (valueRule instanceof CompositeRule) {
                 CompositeRule innerRule = (CompositeRule) valueRule;
-                String constructedCompositeOperation = constructBasicOperation(innerRule, innerRule.getConjunction(), annotationClass, annotation, operands);
+                String constructedCompositeOperation = constructBasicOperation(rule, innerRule, innerRule.getConjunction(), annotationClass, annotation, operands, record);
                 if (constructedCompositeOperation.length() == 0) {
                     continue;
                 }
@@ -187,61 +642,40 @@ public abstract class OverrideProcessor extends BaseOverrideProcessor {
                 continue;
             }
 
-            Object value;
-            Object defaultValue;
-
             BasicRule basicRule = (BasicRule) valueRule;
-
-            try {
-                Method annotationValue = annotationClass.getDeclaredMethod(basicRule.getAnnotationMember());
-                value = annotationValue.invoke(annotation);
-                defaultValue = annotationValue.getDefaultValue();
-            } catch (Exception e) {
-                throw new UnsupportedOperationException("Please provide a annotation member that exists");
-            }
-
-            if (basicRule.isDefaultIgnored() && value.equals(defaultValue)) {
+            Object value = getAnnotationValue(annotationClass, basicRule, annotation);
+            if (value == null) {
                 continue;
             }
 
-            FieldDescriptor descriptor = generateDescriptor(value);
+            FieldDescriptor descriptor = getFieldDescriptor(value);
             basicRule.getOperator().getGenerateOperation().accept(operation, descriptor);
             operation.append(" ").append(conjunction.getSymbol()).append(" ");
 
-            String evalFunc = getEvaluationFunction(basicRule);
-            value = handleEnum(descriptor, value);
+            if (basicRule.getOperator().isMembership()) {
+                operands.add(predicateProcessor.registerMembership(rule, record, value));
+                operands.add(getEvaluationFunction(basicRule));
+                continue;
+            } else if (basicRule.getOperator().isRange()) {
+                /* Replaced by the lookup of an interval table once the ranges of all the annotations are known */
+                operands.add(value);
+                operands.add(getEvaluationFunction(basicRule));
+                continue;
+            }
 
-            operands.add(evalFunc);
-            operands.add(value);
+            operands.add(getEvaluationFunction(basicRule));
+            operands.add(getOperand(descriptor, value));
         }
 
         return operation.length() < 4 ? operation.toString() : operation.delete(operation.length() - 4, operation.length()).toString();
     }
 
-    private FieldDescriptor generateDescriptor(Object value) {
-        boolean isPrimitive = value.getClass().isPrimitive() || getWrapperTypes().contains(value.getClass());
-        return new FieldDescriptor(
-                isPrimitive,
-                isPrimitive || value.getClass().isEnum(),
-                isPrimitive || Comparable.class.isAssignableFrom(value.getClass()),
-                value.getClass().isEnum());
-    }
-
-    private Object handleEnum(FieldDescriptor descriptor, Object value) {
-        if (!descriptor.isEnumeration()) {
-            return value;
-        }
-
-        ClassName enumName = ClassName.get(value.getClass().getPackage().getName(), value.getClass().getSimpleName());
-        return CodeBlock.of("$T.$L", enumName, value);
-    }
-
-    private List<FieldMeta> orderedFields(List<Field> fields, Class<?> clazz) {
+    private List<FieldMeta> orderedFields(List<FieldModel> fields, Class<?> clazz) {
         List<FieldMeta> fieldMetas = transform(fields, clazz);
         return enrichFieldMetas(fieldMetas, clazz);
     }
 
-    private List<FieldMeta> transform(List<Field> fields, Class<?> clazz) {
+    private List<FieldMeta> transform(List<FieldModel> fields, Class<?> clazz) {
         return fields.stream().map(field -> new FieldMeta(field, clazz)).collect(Collectors.toList());
     }
 
@@ -261,9 +695,21 @@ public abstract class OverrideProcessor extends BaseOverrideProcessor {
 
     protected abstract void handleFieldValues(FieldMeta field, MethodSpec.Builder methodBuilder);
 
+    /**
+     * Called instead of the key, value and recursion handling for a field which is always hidden
+     */
+    protected abstract void handleHiddenField(Class<?> clazz, FieldMeta field, MethodSpec.Builder methodBuilder);
+
     protected abstract void returns(MethodSpec.Builder methodBuilder);
 
-    protected abstract boolean skipRecursiveCall(Field field);
+    protected abstract boolean skipRecursiveCall(Rule rule, Field field);
 
     protected abstract void recursiveStatement(Rule rule, MethodSpec.Builder methodBuilder, Class<?> clazz, String getterName);
+
+    /**
+     * Recursion into a field while serializing for a group of evaluator objects
+     */
+    protected void fanOutStatement(Rule rule, MethodSpec.Builder methodBuilder, Class<?> clazz, String getterName) {
+        throw new UnsupportedOperationException("Fan out is only supported for native serialization. Class: " + clazz.getName());
+    }
 }
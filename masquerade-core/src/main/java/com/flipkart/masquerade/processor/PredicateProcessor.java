@@ -0,0 +1,589 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.processor;
+
+import com.flipkart.masquerade.Configuration;
+import com.flipkart.masquerade.rule.Operator;
+import com.flipkart.masquerade.rule.Rule;
+import com.flipkart.masquerade.runtime.IntervalTable;
+import com.flipkart.masquerade.runtime.MaskContext;
+import com.flipkart.masquerade.runtime.ProfileRecorder;
+import com.flipkart.masquerade.util.EvaluatorPartition;
+import com.flipkart.masquerade.util.EvaluatorProfile;
+import com.flipkart.masquerade.util.FieldDescriptor;
+import com.flipkart.masquerade.util.Interval;
+import com.flipkart.masquerade.util.MaskRecord;
+import com.flipkart.masquerade.util.PartitionAnalyzer;
+import com.flipkart.masquerade.util.PartitionDimension;
+import com.flipkart.masquerade.util.RuntimeProfile;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Primitives;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.lang.model.element.Modifier;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+
+import static com.flipkart.masquerade.util.Helper.*;
+import static com.flipkart.masquerade.util.Strings.*;
+
+/**
+ * Processor which collects the distinct annotation conditions of every Rule and generates
+ * a predicates class for each Rule, with one static method per condition.
+ * <p />
+ * Conditions, membership tests, interval tables and visibility masks are registered in the MaskRecord of the class
+ * being processed, and are named by a hash of their content. The Masks refer to them by those names, so a Mask is the same
+ * no matter which other classes are processed, or in what order, and a class can be skipped by reusing its record.
+ * Every condition still gets a dense ordinal, which is used to memoize its outcome in the context of a hide() call.
+ * The ordinals are assigned in the order of the names once the records of every class are known, and never leave the predicates class.
+ * If the visibility cache is enabled, every class gets a method which computes a bitmask of the fields hidden for it,
+ * and the Rule gets a method to compute the evaluator partition key.
+ * The arrays used with membership operators are compiled into an EnumSet, or a switch when the elements allow it.
+ * The ranges used with the BETWEEN operator are merged into interval tables which are looked up by binary search.
+ */
+public class PredicateProcessor {
+    private final Configuration configuration;
+
+    /**
+     * @param configuration Configuration for the current processing cycle
+     */
+    public PredicateProcessor(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * @param rule Current Rule
+     * @param record Record of the class being processed
+     * @param condition A boolean expression over the Evaluator object
+     * @return An expression which evaluates the condition through the predicates class
+     */
+    public CodeBlock register(Rule rule, MaskRecord record, CodeBlock condition) {
+        String text = condition.toString();
+        String key = getKey(text);
+        record.getConditions().put(key, text);
+
+        if (hasMaskContext(configuration)) {
+            return CodeBlock.of("$T.$L$L($L, $L)", getPredicatesClass(configuration, rule), PREDICATE_METHOD, key, EVAL_PARAMETER, CONTEXT_PARAMETER);
+        }
+        return CodeBlock.of("$T.$L$L($L)", getPredicatesClass(configuration, rule), PREDICATE_METHOD, key, EVAL_PARAMETER);
+    }
+
+    /**
+     * @param rule Current Rule
+     * @param record Record of the class being processed
+     * @param values Array value of an annotation member used with a membership operator
+     * @return An expression which, applied to a value, tests whether it is an element of the array
+     */
+    public CodeBlock registerMembership(Rule rule, MaskRecord record, Object values) {
+        Class<?> type = values.getClass().getComponentType();
+        StringBuilder description = new StringBuilder(type.getName());
+        for (int i = 0; i < Array.getLength(values); i++) {
+            description.append(" ").append(Array.get(values, i));
+        }
+        String key = getKey(description);
+        record.getMemberships().put(key, values);
+
+        if (type.isEnum()) {
+            return CodeBlock.of("$T.$L$L.contains", getPredicatesClass(configuration, rule), MEMBERS_FIELD, key);
+        }
+        return CodeBlock.of("$T.$L$L", getPredicatesClass(configuration, rule), MEMBERS_METHOD, key);
+    }
+
+    /**
+     * @param rule Current Rule
+     * @param record Record of the class being processed
+     * @param intervals Ranges of annotation values, any of which the value should fall in
+     * @return An expression which, applied to a value, tests whether it falls in any of the ranges
+     */
+    public CodeBlock registerIntervals(Rule rule, MaskRecord record, List<Interval> intervals) {
+        List<Interval> table = Interval.merge(intervals);
+        Class<?> type = getBoundType(intervals.get(0).getLower());
+
+        StringBuilder description = new StringBuilder(type.getName());
+        for (Interval interval : table) {
+            description.append(" ").append(interval.getLower()).append(" ").append(interval.getUpper());
+        }
+        String key = getKey(description);
+        record.getIntervalTables().put(key, table);
+        record.getIntervalTypes().put(key, type);
+
+        return CodeBlock.of("$T.$L$L", getPredicatesClass(configuration, rule), INTERVALS_METHOD, key);
+    }
+
+    /**
+     * @param record Record of the class being processed
+     * @param clazz The class being processed
+     * @return Name of a new visibility mask of the class
+     */
+    public String registerVisibility(MaskRecord record, Class<?> clazz) {
+        String key = getKey(clazz.getName() + " " + record.getVisibilities().size());
+        record.getVisibilities().put(key, new ArrayList<>());
+        return key;
+    }
+
+    /**
+     * @param record Record of the class being processed
+     * @param key Name of the visibility mask
+     * @param condition Condition under which the field is hidden
+     * @return An expression which tests the bit of the condition in the visibility mask,
+     * or the condition itself if the mask has no bits left
+     */
+    public CodeBlock addVisibility(MaskRecord record, String key, CodeBlock condition) {
+        List<String> conditions = record.getVisibilities().get(key);
+        /* Fields hidden under the same condition share its bit */
+        int bit = conditions.indexOf(condition.toString());
+        if (bit >= 0) {
+            return CodeBlock.of("($L & $L) != 0", VISIBILITY_VARIABLE, getBitLiteral(bit));
+        }
+
+        /* The highest bit is reserved for marking the mask as computed */
+        if (isVisibilityFull(record, key)) {
+            return condition;
+        }
+
+        conditions.add(condition.toString());
+        return CodeBlock.of("($L & $L) != 0", VISIBILITY_VARIABLE, getBitLiteral(conditions.size() - 1));
+    }
+
+    /**
+     * @return true if the visibility mask has no bits left, so further conditions are not part of it
+     */
+    public boolean isVisibilityFull(MaskRecord record, String key) {
+        return record.getVisibilities().get(key).size() == Long.SIZE - 1;
+    }
+
+    /**
+     * @param records The records of every class, for every Rule
+     * @return A fully constructed TypeSpec object for the predicates class of every Rule
+     */
+    public List<TypeSpec> generatePredicates(Map<Rule, List<MaskRecord>> records) {
+        List<TypeSpec> specs = new ArrayList<>();
+        for (Rule rule : configuration.getRules()) {
+            specs.add(generatePredicates(rule, records.getOrDefault(rule, Collections.emptyList())));
+        }
+        return specs;
+    }
+
+    /**
+     * @return Name of the registered content, which only changes along with it
+     */
+    private static String getKey(CharSequence content) {
+        return Hashing.murmur3_128().hashString(content, StandardCharsets.UTF_8).toString().substring(0, 16);
+    }
+
+    /**
+     * Merges what every class registered, sorted by name
+     */
+    private static <T> SortedMap<String, T> merge(List<MaskRecord> records, Function<MaskRecord, Map<String, T>> registrations) {
+        SortedMap<String, T> merged = new TreeMap<>();
+        for (MaskRecord record : records) {
+            for (Map.Entry<String, T> entry : registrations.apply(record).entrySet()) {
+                T previous = merged.putIfAbsent(entry.getKey(), entry.getValue());
+                if (previous != null && !Objects.deepEquals(previous, entry.getValue())) {
+                    throw new UnsupportedOperationException("Two different predicates share the name " + entry.getKey() + ": " + previous + ", " + entry.getValue());
+                }
+            }
+        }
+        return merged;
+    }
+
+    private TypeSpec generatePredicates(Rule rule, List<MaskRecord> records) {
+        SortedMap<String, String> conditions = merge(records, MaskRecord::getConditions);
+        TypeSpec.Builder predicatesBuilder = TypeSpec.classBuilder(getPredicatesClass(configuration, rule).simpleName());
+        predicatesBuilder.addModifiers(Modifier.PUBLIC, Modifier.FINAL);
+        predicatesBuilder.addField(
+                FieldSpec.builder(int.class, PREDICATE_COUNT, Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("$L", conditions.size()).build());
+        predicatesBuilder.addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build());
+
+        if (configuration.isProfilingEnabled()) {
+            /* Signatures are indexed by the predicate ordinal */
+            CodeBlock.Builder signatures = CodeBlock.builder();
+            Iterator<String> texts = conditions.values().iterator();
+            while (texts.hasNext()) {
+                signatures.add("$L", RuntimeProfile.getSignature(texts.next()));
+                if (texts.hasNext()) {
+                    signatures.add(", ");
+                }
+            }
+            predicatesBuilder.addField(
+                    FieldSpec.builder(ProfileRecorder.class, RECORDER_FIELD, Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                            .initializer("new $T($S, new int[] { $L })", ProfileRecorder.class, rule.getName(), signatures.build()).build());
+        }
+
+        SortedMap<String, Class<?>> types = merge(records, MaskRecord::getIntervalTypes);
+        for (Map.Entry<String, List<Interval>> table : merge(records, MaskRecord::getIntervalTables).entrySet()) {
+            generateIntervals(predicatesBuilder, table.getKey(), types.get(table.getKey()), table.getValue());
+        }
+
+        for (Map.Entry<String, Object> membership : merge(records, MaskRecord::getMemberships).entrySet()) {
+            generateMembership(predicatesBuilder, membership.getKey(), membership.getValue());
+        }
+
+        int ordinal = 0;
+        for (Map.Entry<String, String> entry : conditions.entrySet()) {
+            MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(PREDICATE_METHOD + entry.getKey());
+            methodBuilder.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+            methodBuilder.returns(boolean.class);
+            methodBuilder.addParameter(rule.getEvaluatorClass(), EVAL_PARAMETER);
+
+            if (hasMaskContext(configuration)) {
+                /* Evaluate the condition only the first time it is asked for during a hide() call */
+                methodBuilder.addParameter(MaskContext.class, CONTEXT_PARAMETER);
+                methodBuilder.addStatement("byte[] outcomes = $L.getPredicates()", CONTEXT_PARAMETER);
+                methodBuilder.beginControlFlow("if (outcomes[$L] == $T.UNKNOWN)", ordinal, MaskContext.class);
+                if (configuration.isProfilingEnabled()) {
+                    methodBuilder.addStatement("boolean $L = $L", OUTCOME_VARIABLE, entry.getValue());
+                    methodBuilder.addStatement("$L.recordCondition($L, $L)", RECORDER_FIELD, ordinal, OUTCOME_VARIABLE);
+                    methodBuilder.addStatement("outcomes[$L] = $L ? $T.TRUE : $T.FALSE", ordinal, OUTCOME_VARIABLE, MaskContext.class, MaskContext.class);
+                } else {
+                    methodBuilder.addStatement("outcomes[$L] = ($L) ? $T.TRUE : $T.FALSE", ordinal, entry.getValue(), MaskContext.class, MaskContext.class);
+                }
+                methodBuilder.endControlFlow();
+                methodBuilder.addStatement("return outcomes[$L] == $T.TRUE", ordinal, MaskContext.class);
+            } else if (configuration.isProfilingEnabled()) {
+                methodBuilder.addStatement("boolean $L = $L", OUTCOME_VARIABLE, entry.getValue());
+                methodBuilder.addStatement("$L.recordCondition($L, $L)", RECORDER_FIELD, ordinal, OUTCOME_VARIABLE);
+                methodBuilder.addStatement("return $L", OUTCOME_VARIABLE);
+            } else {
+                methodBuilder.addStatement("return $L", entry.getValue());
+            }
+
+            predicatesBuilder.addMethod(methodBuilder.build());
+            ordinal++;
+        }
+
+        if (hasPartition(configuration, rule)) {
+            EvaluatorPartition partition = PartitionAnalyzer.getPartition(rule);
+            predicatesBuilder.addMethod(generatePartition(rule, partition));
+            generateDescription(predicatesBuilder, partition);
+
+            List<EvaluatorProfile> profiles = PartitionAnalyzer.getProfiles(rule);
+            if (!profiles.isEmpty()) {
+                predicatesBuilder.addMethod(generateProfile(profiles));
+            }
+        }
+
+        if (hasVisibilityCache(configuration, rule)) {
+            SortedMap<String, List<String>> visibilities = merge(records, MaskRecord::getVisibilities);
+            predicatesBuilder.addField(
+                    FieldSpec.builder(int.class, VISIBILITY_COUNT, Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                            .initializer("$L", visibilities.size()).build());
+            int visibilityOrdinal = 0;
+            for (Map.Entry<String, List<String>> visibility : visibilities.entrySet()) {
+                predicatesBuilder.addMethod(generateVisibility(rule, visibility.getKey(), visibilityOrdinal++, visibility.getValue()));
+            }
+        }
+
+        return predicatesBuilder.build();
+    }
+
+    private MethodSpec generatePartition(Rule rule, EvaluatorPartition partition) {
+        MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(PARTITION_METHOD);
+        methodBuilder.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        methodBuilder.returns(long.class);
+        methodBuilder.addParameter(rule.getEvaluatorClass(), EVAL_PARAMETER);
+        methodBuilder.addStatement("long $L = 0L", PARTITION_VARIABLE);
+        if (!partition.getDimensions().isEmpty()) {
+            methodBuilder.addStatement("int $L", REGION_VARIABLE);
+        }
+
+        for (int i = 0; i < partition.getDimensions().size(); i++) {
+            PartitionDimension dimension = partition.getDimensions().get(i);
+            String accessor = EVAL_PARAMETER + "." + dimension.getAccessor();
+
+            /* Each branch of the ladder uses the same comparisons as the conditions themselves */
+            List<CodeBlock> branches = new ArrayList<>();
+            List<Integer> regions = new ArrayList<>();
+            if (!dimension.getType().isPrimitive()) {
+                branches.add(CodeBlock.of("$L == null", accessor));
+                regions.add(dimension.getNullRegion());
+            }
+
+            List<Object> values = dimension.getValues();
+            for (int j = 0; j < values.size(); j++) {
+                if (dimension.isOrdered()) {
+                    branches.add(comparison(Operator.LESSER, accessor, values.get(j)));
+                    regions.add(2 * j);
+                    branches.add(comparison(Operator.EQUAL, accessor, values.get(j)));
+                    regions.add(2 * j + 1);
+                } else {
+                    branches.add(equality(accessor, values.get(j)));
+                    regions.add(j);
+                }
+            }
+
+            if (dimension.isOrdered()) {
+                branches.add(comparison(Operator.GREATER, accessor, values.get(values.size() - 1)));
+                regions.add(2 * values.size());
+            }
+
+            for (int j = 0; j < branches.size(); j++) {
+                if (j == 0) {
+                    methodBuilder.beginControlFlow("if ($L)", branches.get(j));
+                } else {
+                    methodBuilder.nextControlFlow("else if ($L)", branches.get(j));
+                }
+                methodBuilder.addStatement("$L = $L", REGION_VARIABLE, regions.get(j));
+            }
+            methodBuilder.nextControlFlow("else");
+            methodBuilder.addStatement("$L = $L", REGION_VARIABLE, dimension.getIncomparableRegion());
+            methodBuilder.endControlFlow();
+
+            methodBuilder.addStatement("$L |= ((long) $L) << $L", PARTITION_VARIABLE, REGION_VARIABLE, partition.getShift(i));
+        }
+
+        methodBuilder.addStatement("return $L", PARTITION_VARIABLE);
+        return methodBuilder.build();
+    }
+
+    private void generateMembership(TypeSpec.Builder predicatesBuilder, String key, Object values) {
+        Class<?> type = values.getClass().getComponentType();
+        Set<Object> elements = new LinkedHashSet<>();
+        for (int i = 0; i < Array.getLength(values); i++) {
+            elements.add(Array.get(values, i));
+        }
+
+        if (type.isEnum()) {
+            CodeBlock initializer;
+            if (elements.isEmpty()) {
+                initializer = CodeBlock.of("$T.noneOf($T.class)", EnumSet.class, type);
+            } else {
+                CodeBlock.Builder builder = CodeBlock.builder().add("$T.of(", EnumSet.class);
+                Iterator<Object> iterator = elements.iterator();
+                while (iterator.hasNext()) {
+                    Object element = iterator.next();
+                    builder.add("$L", getOperand(getFieldDescriptor(element), element));
+                    if (iterator.hasNext()) {
+                        builder.add(", ");
+                    }
+                }
+                initializer = builder.add(")").build();
+            }
+
+            predicatesBuilder.addField(
+                    FieldSpec.builder(ParameterizedTypeName.get(EnumSet.class, type), MEMBERS_FIELD + key, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                            .initializer(initializer).build());
+            return;
+        }
+
+        MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(MEMBERS_METHOD + key);
+        methodBuilder.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        methodBuilder.returns(boolean.class);
+        methodBuilder.addParameter(type, VALUE_PARAMETER);
+
+        if (elements.isEmpty()) {
+            methodBuilder.addStatement("return false");
+        } else if (type == String.class || type == int.class || type == short.class || type == byte.class || type == char.class) {
+            methodBuilder.beginControlFlow("switch ($L)", VALUE_PARAMETER);
+            for (Object element : elements) {
+                if (element instanceof String) {
+                    methodBuilder.addCode("case $S:\n", element);
+                } else if (element instanceof Character) {
+                    /* Avoids escaping character literals, the constant is converted to a char */
+                    methodBuilder.addCode("case $L:\n", (int) (Character) element);
+                } else {
+                    methodBuilder.addCode("case $L:\n", element);
+                }
+            }
+            methodBuilder.addStatement("$>return true$<");
+            methodBuilder.addCode("default:\n");
+            methodBuilder.addStatement("$>return false$<");
+            methodBuilder.endControlFlow();
+        } else {
+            CodeBlock.Builder condition = CodeBlock.builder();
+            Iterator<Object> iterator = elements.iterator();
+            while (iterator.hasNext()) {
+                condition.add(getMemberCondition(type, iterator.next()));
+                if (iterator.hasNext()) {
+                    condition.add(" || ");
+                }
+            }
+            methodBuilder.addStatement("return $L", condition.build());
+        }
+        predicatesBuilder.addMethod(methodBuilder.build());
+    }
+
+    private CodeBlock getMemberCondition(Class<?> type, Object element) {
+        if (type == Class.class) {
+            return CodeBlock.of("$L == $T.class", VALUE_PARAMETER, TypeName.get((Class<?>) element));
+        } else if (type.isPrimitive()) {
+            return equality(VALUE_PARAMETER, element);
+        }
+        throw new UnsupportedOperationException("IN operator does not support members of type " + type.getName());
+    }
+
+    private void generateIntervals(TypeSpec.Builder predicatesBuilder, String key, Class<?> type, List<Interval> table) {
+        MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(INTERVALS_METHOD + key);
+        methodBuilder.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        methodBuilder.returns(boolean.class);
+        methodBuilder.addParameter(type, VALUE_PARAMETER);
+
+        if (table.isEmpty()) {
+            methodBuilder.addStatement("return false");
+            predicatesBuilder.addMethod(methodBuilder.build());
+            return;
+        }
+
+        /* Narrower primitives are looked up in a table of the widest type of their kind */
+        Class<?> boundType = type;
+        if (type == short.class || type == byte.class || type == char.class) {
+            boundType = int.class;
+        } else if (type == float.class) {
+            boundType = double.class;
+        } else if (type == boolean.class) {
+            boundType = Boolean.class;
+        }
+
+        CodeBlock.Builder lowers = CodeBlock.builder();
+        CodeBlock.Builder uppers = CodeBlock.builder();
+        for (int i = 0; i < table.size(); i++) {
+            lowers.add("$L", getBoundLiteral(boundType, table.get(i).getLower()));
+            uppers.add("$L", getBoundLiteral(boundType, table.get(i).getUpper()));
+            if (i != table.size() - 1) {
+                lowers.add(", ");
+                uppers.add(", ");
+            }
+        }
+
+        predicatesBuilder.addField(
+                FieldSpec.builder(ArrayTypeName.of(boundType), LOWERS_FIELD + key, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("{ $L }", lowers.build()).build());
+        predicatesBuilder.addField(
+                FieldSpec.builder(ArrayTypeName.of(boundType), UPPERS_FIELD + key, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("{ $L }", uppers.build()).build());
+        methodBuilder.addStatement("return $T.contains($L$L, $L$L, $L)", IntervalTable.class, LOWERS_FIELD, key, UPPERS_FIELD, key, VALUE_PARAMETER);
+        predicatesBuilder.addMethod(methodBuilder.build());
+    }
+
+    private Class<?> getBoundType(Object bound) {
+        if (bound instanceof Enum) {
+            return ((Enum<?>) bound).getDeclaringClass();
+        }
+        return Primitives.unwrap(bound.getClass());
+    }
+
+    private CodeBlock getBoundLiteral(Class<?> boundType, Object bound) {
+        if (bound instanceof Character) {
+            return CodeBlock.of("$L", (int) (Character) bound);
+        } else if (boundType == long.class) {
+            return CodeBlock.of("$LL", bound);
+        } else if (boundType == double.class) {
+            double value = ((Number) bound).doubleValue();
+            if (Double.isInfinite(value)) {
+                return CodeBlock.of("$T.$L", Double.class, value > 0 ? "POSITIVE_INFINITY" : "NEGATIVE_INFINITY");
+            }
+            return CodeBlock.of("$L", value);
+        } else if (bound instanceof String) {
+            return CodeBlock.of("$S", bound);
+        }
+        return CodeBlock.of("$L", getOperand(getFieldDescriptor(bound), bound));
+    }
+
+    private MethodSpec generateProfile(List<EvaluatorProfile> profiles) {
+        MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(PROFILE_METHOD);
+        methodBuilder.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        methodBuilder.returns(int.class);
+        methodBuilder.addParameter(long.class, PARTITION_VARIABLE);
+        for (EvaluatorProfile profile : profiles) {
+            methodBuilder.beginControlFlow("if ($L == $LL)", PARTITION_VARIABLE, profile.getPartition());
+            methodBuilder.addStatement("return $L", profile.getOrdinal());
+            methodBuilder.endControlFlow();
+        }
+        methodBuilder.addStatement("return 0");
+        return methodBuilder.build();
+    }
+
+    private void generateDescription(TypeSpec.Builder predicatesBuilder, EvaluatorPartition partition) {
+        MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(DESCRIBE_METHOD);
+        methodBuilder.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        methodBuilder.returns(String.class);
+        methodBuilder.addParameter(long.class, PARTITION_VARIABLE);
+        methodBuilder.addStatement("$T description = new $T()", StringBuilder.class, StringBuilder.class);
+
+        for (int i = 0; i < partition.getDimensions().size(); i++) {
+            PartitionDimension dimension = partition.getDimensions().get(i);
+
+            CodeBlock.Builder regionNames = CodeBlock.builder();
+            for (int region = 0; region < dimension.getRegions(); region++) {
+                regionNames.add(region == 0 ? "$S" : ", $S", dimension.getRegionName(region));
+            }
+            predicatesBuilder.addField(
+                    FieldSpec.builder(String[].class, REGIONS_FIELD + i, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                            .initializer("{ $L }", regionNames.build()).build());
+
+            long dimensionMask = (1L << dimension.getBits()) - 1;
+            methodBuilder.addStatement("description.append($S).append($L[(int) (($L >>> $L) & 0x$LL)])",
+                    (i == 0 ? "" : ";") + dimension.getAccessor() + "=", REGIONS_FIELD + i, PARTITION_VARIABLE, partition.getShift(i), Long.toHexString(dimensionMask));
+        }
+
+        methodBuilder.addStatement("return description.toString()");
+        predicatesBuilder.addMethod(methodBuilder.build());
+    }
+
+    /**
+     * Floating point values are tested with compare() so that a NaN matches a NaN, as the build time analyses assume
+     */
+    private CodeBlock equality(String accessor, Object value) {
+        if (value instanceof Float || value instanceof Double) {
+            return CodeBlock.of("$T.compare($L, $L) == 0", value.getClass(), accessor, getOperand(getFieldDescriptor(value), value));
+        }
+        return comparison(Operator.EQUAL, accessor, value);
+    }
+
+    private CodeBlock comparison(Operator operator, String accessor, Object value) {
+        StringBuilder operation = new StringBuilder();
+        FieldDescriptor descriptor = getFieldDescriptor(value);
+        operator.getGenerateOperation().accept(operation, descriptor);
+        return CodeBlock.of(operation.toString(), accessor, getOperand(descriptor, value));
+    }
+
+    private MethodSpec generateVisibility(Rule rule, String key, int ordinal, List<String> conditions) {
+        MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(VISIBILITY_METHOD + key);
+        methodBuilder.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        methodBuilder.returns(long.class);
+        methodBuilder.addParameter(rule.getEvaluatorClass(), EVAL_PARAMETER);
+        methodBuilder.addParameter(MaskContext.class, CONTEXT_PARAMETER);
+
+        /* Computed once per evaluator partition, every other call just reads the cached mask */
+        methodBuilder.addStatement("long $L = $L.getVisibility($L)", VISIBILITY_VARIABLE, CONTEXT_PARAMETER, ordinal);
+        methodBuilder.beginControlFlow("if ($L == 0L)", VISIBILITY_VARIABLE);
+        methodBuilder.addStatement("$L = $T.COMPUTED", VISIBILITY_VARIABLE, MaskContext.class);
+        for (int i = 0; i < conditions.size(); i++) {
+            methodBuilder.beginControlFlow("if ($L)", conditions.get(i));
+            methodBuilder.addStatement("$L |= $L", VISIBILITY_VARIABLE, getBitLiteral(i));
+            methodBuilder.endControlFlow();
+        }
+        methodBuilder.addStatement("$L.setVisibility($L, $L)", CONTEXT_PARAMETER, ordinal, VISIBILITY_VARIABLE);
+        methodBuilder.endControlFlow();
+        methodBuilder.addStatement("return $L", VISIBILITY_VARIABLE);
+
+        return methodBuilder.build();
+    }
+
+    private String getBitLiteral(int bit) {
+        return "0x" + Long.toHexString(1L << bit) + "L";
+    }
+}
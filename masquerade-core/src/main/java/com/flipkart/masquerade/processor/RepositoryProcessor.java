@@ -83,7 +83,6 @@ public class RepositoryProcessor {
             handlePrimitiveEntries(repositoryBuilder, rule, initializer);
             handleStringEntry(repositoryBuilder, rule, initializer);
             handleToStringEntries(repositoryBuilder, rule, initializer);
-            handleProcessedEntries(repositoryBuilder, initializer, repositoryEntries);
             handleMapEntry(repositoryBuilder, rule);
             handleCollectionEntry(repositoryBuilder, rule);
             handleObjectArrayEntry(repositoryBuilder, rule);
@@ -95,6 +94,8 @@ public class RepositoryProcessor {
                 handleNoOpEntry(repositoryBuilder, rule);
             }
         }
+        /* The entries of every Rule are in the same list, so they are added only once */
+        handleProcessedEntries(repositoryBuilder, initializer, repositoryEntries);
 
         repositoryBuilder.addMethod(MethodSpec
                 .methodBuilder(INIT_VC_MAP_METHOD_NAME).returns(TypeName.VOID)
@@ -18,16 +18,21 @@ package com.flipkart.masquerade.processor;
 
 import com.flipkart.masquerade.Configuration;
 import com.flipkart.masquerade.rule.Rule;
-import com.squareup.javapoet.AnnotationSpec;
-import com.squareup.javapoet.FieldSpec;
-import com.squareup.javapoet.MethodSpec;
-import com.squareup.javapoet.TypeSpec;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.flipkart.masquerade.runtime.CloakModule;
+import com.flipkart.masquerade.runtime.Coalescer;
+import com.flipkart.masquerade.runtime.FanOut;
+import com.flipkart.masquerade.runtime.FragmentCache;
+import com.flipkart.masquerade.runtime.MaskContext;
+import com.flipkart.masquerade.runtime.UndoLog;
+import com.flipkart.masquerade.runtime.VisibilityCache;
+import com.flipkart.masquerade.util.ProfileGuide;
+import com.squareup.javapoet.*;
 
 import javax.lang.model.element.Modifier;
-import java.util.Collection;
-import java.util.Map;
+import java.util.*;
 
-import static com.flipkart.masquerade.util.Helper.getRuleInterface;
+import static com.flipkart.masquerade.util.Helper.*;
 import static com.flipkart.masquerade.util.Strings.*;
 
 /**
@@ -36,11 +41,17 @@ import static com.flipkart.masquerade.util.Strings.*;
  * Created by shrey.garg on 12/05/17.
  */
 public abstract class RuleObjectProcessor {
-    private final Configuration configuration;
-    private final TypeSpec.Builder cloakBuilder;
+    /* Default capacity of a StringBuilder */
+    private static final int DEFAULT_SIZE_HINT = 16;
+
+    protected final Configuration configuration;
+    protected final TypeSpec.Builder cloakBuilder;
     private final DebugProcessor debugProcessor;
     private final FallbackProcessor fallbackProcessor;
 
+    /* The field is shared by the entry methods of every Rule */
+    private boolean nullStringAdded = false;
+
     /**
      * @param configuration Configuration for the current processing cycle
      * @param cloakBuilder Entry class under construction for the cycle
@@ -69,17 +80,50 @@ public abstract class RuleObjectProcessor {
             objectMaskBuilder.addParameter(StringBuilder.class, SERIALIZED_OBJECT);
         }
 
+        if (hasMaskContext(configuration)) {
+            objectMaskBuilder.addParameter(MaskContext.class, CONTEXT_PARAMETER);
+        }
+
         /* If a null Object is passed, return immediately */
         objectMaskBuilder.beginControlFlow("if ($L == null)", OBJECT_PARAMETER);
         handleReturnsForNullObjects(objectMaskBuilder);
         objectMaskBuilder.endControlFlow();
 
-        /* Fetch the Mask implementation object from Map and assign it to an interface reference for the Rule */
-        objectMaskBuilder.addStatement("$T $L = this.$L.get($L.getClass().getName())",
-                getRuleInterface(configuration, rule),
-                MASKER_VARIABLE,
-                rule.getName(),
-                OBJECT_PARAMETER);
+        if (configuration.isProfilingEnabled()) {
+            objectMaskBuilder.addStatement("$T.$L.recordClass($L.getClass())", getPredicatesClass(configuration, rule), RECORDER_FIELD, OBJECT_PARAMETER);
+        }
+
+        List<Class<?>> hotClasses = ProfileGuide.getHotClasses(rule);
+        if (hotClasses.isEmpty()) {
+            /* Fetch the Mask implementation object from Map and assign it to an interface reference for the Rule */
+            objectMaskBuilder.addStatement("$T $L = this.$L.get($L.getClass().getName())",
+                    getRuleInterface(configuration, rule),
+                    MASKER_VARIABLE,
+                    rule.getName(),
+                    OBJECT_PARAMETER);
+        } else {
+            /* The classes seen most often at runtime are matched by identity before falling back to the Map */
+            objectMaskBuilder.addStatement("$T $L", getRuleInterface(configuration, rule), MASKER_VARIABLE);
+            CodeBlock.Builder hotMasks = CodeBlock.builder();
+            for (int i = 0; i < hotClasses.size(); i++) {
+                String hotMask = HOT_MASK_PREFIX + rule.getName() + i;
+                cloakBuilder.addField(getRuleInterface(configuration, rule), hotMask, Modifier.PRIVATE);
+                hotMasks.addStatement("$L = $L.get($S)", hotMask, rule.getName(), hotClasses.get(i).getName());
+
+                if (i == 0) {
+                    objectMaskBuilder.beginControlFlow("if ($L.getClass() == $T.class)", OBJECT_PARAMETER, hotClasses.get(i));
+                } else {
+                    objectMaskBuilder.nextControlFlow("else if ($L.getClass() == $T.class)", OBJECT_PARAMETER, hotClasses.get(i));
+                }
+                objectMaskBuilder.addStatement("$L = this.$L", MASKER_VARIABLE, hotMask);
+            }
+            objectMaskBuilder.nextControlFlow("else");
+            objectMaskBuilder.addStatement("$L = this.$L.get($L.getClass().getName())", MASKER_VARIABLE, rule.getName(), OBJECT_PARAMETER);
+            objectMaskBuilder.endControlFlow();
+
+            /* Runs after the repository has filled the Map */
+            cloakBuilder.addInitializerBlock(hotMasks.build());
+        }
 
         /* Check if the retrieved Object is present */
         objectMaskBuilder.beginControlFlow("if ($L != null)", MASKER_VARIABLE);
@@ -111,6 +155,50 @@ public abstract class RuleObjectProcessor {
 
         cloakBuilder.addMethod(objectMaskBuilder.build());
 
+        if (hasMaskContext(configuration)) {
+            /* The public entry point without a context creates a fresh one for every call */
+            MethodSpec.Builder objectContextMaskBuilder = MethodSpec.methodBuilder(ENTRY_METHOD);
+            objectContextMaskBuilder.addModifiers(Modifier.PUBLIC);
+            objectContextMaskBuilder.addParameter(Object.class, OBJECT_PARAMETER);
+            objectContextMaskBuilder.addParameter(rule.getEvaluatorClass(), EVAL_PARAMETER);
+
+            if (hasPartition(configuration, rule)) {
+                /* The partition selects both the cached visibility masks and the specialized Masks */
+                objectContextMaskBuilder.addStatement("long $L = $T.$L($L)", PARTITION_VARIABLE, getPredicatesClass(configuration, rule), PARTITION_METHOD, EVAL_PARAMETER);
+            }
+
+            if (configuration.isNativeSerializationEnabled()) {
+                objectContextMaskBuilder.addParameter(StringBuilder.class, SERIALIZED_OBJECT);
+                objectContextMaskBuilder.addStatement("this.$L($L, $L, $L, $L)", ENTRY_METHOD, OBJECT_PARAMETER, EVAL_PARAMETER, SERIALIZED_OBJECT, getContextInitializer(configuration, rule));
+            } else {
+                objectContextMaskBuilder.addStatement("this.$L($L, $L, $L)", ENTRY_METHOD, OBJECT_PARAMETER, EVAL_PARAMETER, getContextInitializer(configuration, rule));
+            }
+
+            cloakBuilder.addMethod(objectContextMaskBuilder.build());
+
+            if (hasVisibilityCache(configuration, rule)) {
+                cloakBuilder.addField(
+                        FieldSpec.builder(VisibilityCache.class, getVisibilityCacheVariableName(rule), Modifier.PRIVATE, Modifier.FINAL)
+                                .initializer("new $T($L, $T.$L)", VisibilityCache.class, configuration.visibilityCacheSize(), getPredicatesClass(configuration, rule), VISIBILITY_COUNT).build());
+            }
+        }
+
+        if (configuration.isPartitionKeyEnabled() && hasPartition(configuration, rule)) {
+            addPartitionKey(rule);
+        }
+
+        if (hasMaskedCopy(configuration)) {
+            addCopy(rule);
+        }
+
+        if (hasUndoLog(configuration)) {
+            addReversibleEntry(rule);
+        }
+
+        if (hasJacksonModule(configuration)) {
+            addJacksonModule(rule);
+        }
+
         if (configuration.isNativeSerializationEnabled()) {
             MethodSpec.Builder objectBasicMaskBuilder = MethodSpec.methodBuilder(ENTRY_METHOD);
             objectBasicMaskBuilder.addModifiers(Modifier.PUBLIC);
@@ -119,18 +207,324 @@ public abstract class RuleObjectProcessor {
             /* The second parameter refers to the Evaluator Object which will be used for comparisons */
             objectBasicMaskBuilder.addParameter(rule.getEvaluatorClass(), EVAL_PARAMETER);
 
-            objectBasicMaskBuilder.addStatement("$T $L = new $T()", StringBuilder.class, SERIALIZED_OBJECT, StringBuilder.class);
+            Map<Class<?>, Integer> sizeHints = ProfileGuide.getSizeHints(rule);
+            if (sizeHints.isEmpty()) {
+                objectBasicMaskBuilder.addStatement("$T $L = new $T()", StringBuilder.class, SERIALIZED_OBJECT, StringBuilder.class);
+            } else {
+                addSizeHint(rule, sizeHints);
+                objectBasicMaskBuilder.addStatement("$T $L = new $T($L$L($L))", StringBuilder.class, SERIALIZED_OBJECT, StringBuilder.class, SIZE_HINT_METHOD, rule.getName(), OBJECT_PARAMETER);
+            }
             objectBasicMaskBuilder.addStatement("this.$L($L, $L, $L)", ENTRY_METHOD, OBJECT_PARAMETER, EVAL_PARAMETER, SERIALIZED_OBJECT);
 
+            if (configuration.isProfilingEnabled()) {
+                objectBasicMaskBuilder.beginControlFlow("if ($L != null)", OBJECT_PARAMETER);
+                objectBasicMaskBuilder.addStatement("$T.$L.recordSize($L.getClass(), $L.length())", getPredicatesClass(configuration, rule), RECORDER_FIELD, OBJECT_PARAMETER, SERIALIZED_OBJECT);
+                objectBasicMaskBuilder.endControlFlow();
+            }
+
             objectBasicMaskBuilder.returns(String.class);
             objectBasicMaskBuilder.addStatement("return $L.toString()", SERIALIZED_OBJECT);
 
             cloakBuilder.addMethod(objectBasicMaskBuilder.build());
 
-            cloakBuilder.addField(
-                    FieldSpec.builder(String.class, NULL_STRING, Modifier.PRIVATE, Modifier.FINAL)
-                            .initializer("$S", "null").build());
+            if (!nullStringAdded) {
+                cloakBuilder.addField(
+                        FieldSpec.builder(String.class, NULL_STRING, Modifier.PRIVATE, Modifier.FINAL)
+                                .initializer("$S", "null").build());
+                nullStringAdded = true;
+            }
+
+            if (hasCoalescer(configuration, rule)) {
+                addCoalescer(rule);
+            }
+
+            if (hasFanOut(configuration, rule)) {
+                addFanOut(rule);
+            }
+
+            if (hasFragmentCache(configuration, rule)) {
+                addFragmentCache(rule);
+            }
+        }
+    }
+
+    /**
+     * Adds the cache of serialized fragments of the Rule, along with an accessor for the Masks
+     */
+    private void addFragmentCache(Rule rule) {
+        String variableName = getFragmentCacheVariableName(rule);
+        cloakBuilder.addField(
+                FieldSpec.builder(FragmentCache.class, variableName, Modifier.PRIVATE, Modifier.FINAL)
+                        .initializer("new $T($S, $LL)", FragmentCache.class, rule.getName(), configuration.fragmentCacheWeight()).build());
+        cloakBuilder.addMethod(MethodSpec
+                .methodBuilder(variableName).returns(FragmentCache.class)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addStatement("return $L", variableName).build());
+    }
+
+    /**
+     * Adds the Jackson module of the Rule, along with a method which attaches an evaluator object to a writer.
+     * The writer is bound to the evaluator object, so a new one is needed for every evaluator.
+     */
+    private void addJacksonModule(Rule rule) {
+        cloakBuilder.addMethod(MethodSpec
+                .methodBuilder(getJacksonModuleMethodName(rule)).returns(CloakModule.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addStatement("return new $T($S, this.$L::get)", CloakModule.class, rule.getName(), rule.getName()).build());
+
+        MethodSpec.Builder writerBuilder = MethodSpec.methodBuilder(WRITER_METHOD);
+        writerBuilder.addModifiers(Modifier.PUBLIC);
+        writerBuilder.returns(ObjectWriter.class);
+        writerBuilder.addParameter(ObjectWriter.class, WRITER_PARAMETER);
+        writerBuilder.addParameter(rule.getEvaluatorClass(), EVAL_PARAMETER);
+        CodeBlock context = CodeBlock.of("null");
+        if (hasMaskContext(configuration)) {
+            if (hasPartition(configuration, rule)) {
+                writerBuilder.addStatement("long $L = $T.$L($L)", PARTITION_VARIABLE, getPredicatesClass(configuration, rule), PARTITION_METHOD, EVAL_PARAMETER);
+            }
+            context = getContextInitializer(configuration, rule);
+        }
+        writerBuilder.addStatement("return $L.withAttribute($T.getEvaluatorAttribute($S), $L).withAttribute($T.getContextAttribute($S), $L)",
+                WRITER_PARAMETER, CloakModule.class, rule.getName(), EVAL_PARAMETER, CloakModule.class, rule.getName(), context);
+        cloakBuilder.addMethod(writerBuilder.build());
+    }
+
+    /**
+     * Adds an entry point which records every field it clears in the given undo log
+     */
+    private void addReversibleEntry(Rule rule) {
+        MethodSpec.Builder reversibleBuilder = MethodSpec.methodBuilder(UNDO_ENTRY_METHOD);
+        reversibleBuilder.addModifiers(Modifier.PUBLIC);
+        reversibleBuilder.addParameter(Object.class, OBJECT_PARAMETER);
+        reversibleBuilder.addParameter(rule.getEvaluatorClass(), EVAL_PARAMETER);
+        reversibleBuilder.addParameter(UndoLog.class, UNDO_LOG_PARAMETER);
+        if (hasPartition(configuration, rule)) {
+            reversibleBuilder.addStatement("long $L = $T.$L($L)", PARTITION_VARIABLE, getPredicatesClass(configuration, rule), PARTITION_METHOD, EVAL_PARAMETER);
+        }
+        reversibleBuilder.addStatement("$T $L = $L", MaskContext.class, CONTEXT_PARAMETER, getContextInitializer(configuration, rule));
+        reversibleBuilder.addStatement("$L.setUndoLog($L)", CONTEXT_PARAMETER, UNDO_LOG_PARAMETER);
+        reversibleBuilder.addStatement("this.$L($L, $L, $L)", ENTRY_METHOD, OBJECT_PARAMETER, EVAL_PARAMETER, CONTEXT_PARAMETER);
+        cloakBuilder.addMethod(reversibleBuilder.build());
+    }
+
+    /**
+     * Adds the methods which build a masked copy of an object. Registered classes are copied by their Masks,
+     * containers are copied element by element and anything else is shared with the copy.
+     */
+    private void addCopy(Rule rule) {
+        MethodSpec.Builder copyBuilder = MethodSpec.methodBuilder(COPY_METHOD);
+        copyBuilder.addModifiers(Modifier.PUBLIC);
+        copyBuilder.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build());
+        copyBuilder.returns(Object.class);
+        copyBuilder.addParameter(Object.class, OBJECT_PARAMETER);
+        copyBuilder.addParameter(rule.getEvaluatorClass(), EVAL_PARAMETER);
+        if (hasMaskContext(configuration)) {
+            copyBuilder.addParameter(MaskContext.class, CONTEXT_PARAMETER);
+        }
+
+        copyBuilder.beginControlFlow("if ($L == null)", OBJECT_PARAMETER);
+        copyBuilder.addStatement("return null");
+        copyBuilder.endControlFlow();
+
+        copyBuilder.addStatement("$T $L = this.$L.get($L.getClass().getName())", getRuleInterface(configuration, rule), MASKER_VARIABLE, rule.getName(), OBJECT_PARAMETER);
+        copyBuilder.beginControlFlow("if ($L != null)", MASKER_VARIABLE);
+        if (hasMaskContext(configuration)) {
+            copyBuilder.addStatement("return $L.$L($L, $L, this, $L, $L)", MASKER_VARIABLE, COPY_METHOD, OBJECT_PARAMETER, EVAL_PARAMETER, SET_PARAMETER, CONTEXT_PARAMETER);
+        } else {
+            copyBuilder.addStatement("return $L.$L($L, $L, this, $L)", MASKER_VARIABLE, COPY_METHOD, OBJECT_PARAMETER, EVAL_PARAMETER, SET_PARAMETER);
+        }
+        copyBuilder.endControlFlow();
+
+        String arguments = getCopyArguments(configuration);
+        ParameterizedTypeName mapType = ParameterizedTypeName.get(Map.class, Object.class, Object.class);
+        copyBuilder.beginControlFlow("if ($L instanceof $T)", OBJECT_PARAMETER, Map.class);
+        copyBuilder.addStatement("$T $L", mapType, COPY_VARIABLE);
+        copyBuilder.beginControlFlow("if ($L instanceof $T)", OBJECT_PARAMETER, SortedMap.class);
+        copyBuilder.addStatement("$L = new $T<>((($T) $L).comparator())", COPY_VARIABLE, TreeMap.class, ParameterizedTypeName.get(SortedMap.class, Object.class, Object.class), OBJECT_PARAMETER);
+        copyBuilder.nextControlFlow("else");
+        copyBuilder.addStatement("$L = new $T<>()", COPY_VARIABLE, LinkedHashMap.class);
+        copyBuilder.endControlFlow();
+        copyBuilder.beginControlFlow("for ($T $L : (($T) $L).entrySet())", ParameterizedTypeName.get(Map.Entry.class, Object.class, Object.class), ELEMENT_VARIABLE, mapType, OBJECT_PARAMETER);
+        copyBuilder.addStatement("$L.put($L.getKey(), $L($L.getValue(), $L))", COPY_VARIABLE, ELEMENT_VARIABLE, COPY_METHOD, ELEMENT_VARIABLE, arguments);
+        copyBuilder.endControlFlow();
+        copyBuilder.addStatement("return $L", COPY_VARIABLE);
+        copyBuilder.endControlFlow();
+
+        ParameterizedTypeName collectionType = ParameterizedTypeName.get(Collection.class, Object.class);
+        copyBuilder.beginControlFlow("if ($L instanceof $T)", OBJECT_PARAMETER, Collection.class);
+        copyBuilder.addStatement("$T $L", collectionType, COPY_VARIABLE);
+        copyBuilder.beginControlFlow("if ($L instanceof $T)", OBJECT_PARAMETER, SortedSet.class);
+        copyBuilder.addStatement("$L = new $T<>((($T) $L).comparator())", COPY_VARIABLE, TreeSet.class, ParameterizedTypeName.get(SortedSet.class, Object.class), OBJECT_PARAMETER);
+        copyBuilder.nextControlFlow("else if ($L instanceof $T)", OBJECT_PARAMETER, Set.class);
+        copyBuilder.addStatement("$L = new $T<>()", COPY_VARIABLE, LinkedHashSet.class);
+        copyBuilder.nextControlFlow("else");
+        copyBuilder.addStatement("$L = new $T<>()", COPY_VARIABLE, ArrayList.class);
+        copyBuilder.endControlFlow();
+        copyBuilder.beginControlFlow("for ($T $L : ($T) $L)", Object.class, ELEMENT_VARIABLE, collectionType, OBJECT_PARAMETER);
+        copyBuilder.addStatement("$L.add($L($L, $L))", COPY_VARIABLE, COPY_METHOD, ELEMENT_VARIABLE, arguments);
+        copyBuilder.endControlFlow();
+        copyBuilder.addStatement("return $L", COPY_VARIABLE);
+        copyBuilder.endControlFlow();
+
+        copyBuilder.beginControlFlow("if ($L instanceof Object[])", OBJECT_PARAMETER);
+        /* The copy keeps the component type of the array */
+        copyBuilder.addStatement("Object[] $L = $T.copyOf((Object[]) $L, ((Object[]) $L).length)", COPY_VARIABLE, Arrays.class, OBJECT_PARAMETER, OBJECT_PARAMETER);
+        copyBuilder.beginControlFlow("for (int i = 0; i < $L.length; i++)", COPY_VARIABLE);
+        copyBuilder.addStatement("$L[i] = $L($L[i], $L)", COPY_VARIABLE, COPY_METHOD, COPY_VARIABLE, arguments);
+        copyBuilder.endControlFlow();
+        copyBuilder.addStatement("return $L", COPY_VARIABLE);
+        copyBuilder.endControlFlow();
+
+        copyBuilder.addStatement("return $L", OBJECT_PARAMETER);
+        cloakBuilder.addMethod(copyBuilder.build());
+
+        /* The public entry point which creates a fresh context for every call */
+        TypeVariableName typeVariable = TypeVariableName.get("T");
+        MethodSpec.Builder copyMaskedBuilder = MethodSpec.methodBuilder(COPY_ENTRY_METHOD);
+        copyMaskedBuilder.addModifiers(Modifier.PUBLIC);
+        copyMaskedBuilder.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build());
+        copyMaskedBuilder.addTypeVariable(typeVariable);
+        copyMaskedBuilder.returns(typeVariable);
+        copyMaskedBuilder.addParameter(typeVariable, OBJECT_PARAMETER);
+        copyMaskedBuilder.addParameter(rule.getEvaluatorClass(), EVAL_PARAMETER);
+        if (hasMaskContext(configuration)) {
+            if (hasPartition(configuration, rule)) {
+                copyMaskedBuilder.addStatement("long $L = $T.$L($L)", PARTITION_VARIABLE, getPredicatesClass(configuration, rule), PARTITION_METHOD, EVAL_PARAMETER);
+            }
+            copyMaskedBuilder.addStatement("return ($T) this.$L($L, $L, $L)", typeVariable, COPY_METHOD, OBJECT_PARAMETER, EVAL_PARAMETER, getContextInitializer(configuration, rule));
+        } else {
+            copyMaskedBuilder.addStatement("return ($T) this.$L($L, $L)", typeVariable, COPY_METHOD, OBJECT_PARAMETER, EVAL_PARAMETER);
         }
+        cloakBuilder.addMethod(copyMaskedBuilder.build());
+    }
+
+    /**
+     * Adds a method which lets concurrent calls for the same object key and evaluator partition share a single serialization
+     */
+    private void addCoalescer(Rule rule) {
+        String variableName = getCoalescerVariableName(rule);
+        cloakBuilder.addField(
+                FieldSpec.builder(Coalescer.class, variableName, Modifier.PRIVATE, Modifier.FINAL)
+                        .initializer("new $T()", Coalescer.class).build());
+
+        MethodSpec.Builder coalesceBuilder = MethodSpec.methodBuilder(COALESCE_METHOD);
+        coalesceBuilder.addModifiers(Modifier.PUBLIC);
+        coalesceBuilder.returns(String.class);
+        coalesceBuilder.addParameter(Object.class, OBJECT_PARAMETER);
+        coalesceBuilder.addParameter(Object.class, KEY_VARIABLE);
+        coalesceBuilder.addParameter(rule.getEvaluatorClass(), EVAL_PARAMETER);
+        coalesceBuilder.addStatement("long $L = $T.$L($L)", PARTITION_VARIABLE, getPredicatesClass(configuration, rule), PARTITION_METHOD, EVAL_PARAMETER);
+        coalesceBuilder.addStatement("return this.$L.coalesce($L, $L, () -> this.$L($L, $L))", variableName, KEY_VARIABLE, PARTITION_VARIABLE, ENTRY_METHOD, OBJECT_PARAMETER, EVAL_PARAMETER);
+        cloakBuilder.addMethod(coalesceBuilder.build());
+    }
+
+    /**
+     * Adds the methods which serialize an object for several evaluator objects in a single traversal.
+     * Evaluator objects in the same partition share one output, and the Masks split the rest only where they see an object differently.
+     */
+    private void addFanOut(Rule rule) {
+        TypeName evalsType = ArrayTypeName.of(rule.getEvaluatorClass());
+
+        MethodSpec.Builder dispatchBuilder = MethodSpec.methodBuilder(FAN_OUT_METHOD);
+        dispatchBuilder.addModifiers(Modifier.PUBLIC);
+        dispatchBuilder.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build());
+        dispatchBuilder.addParameter(Object.class, OBJECT_PARAMETER);
+        dispatchBuilder.addParameter(evalsType, EVALS_PARAMETER);
+        dispatchBuilder.addParameter(StringBuilder[].class, OUTPUTS_PARAMETER);
+        dispatchBuilder.addParameter(MaskContext[].class, CONTEXTS_PARAMETER);
+        dispatchBuilder.beginControlFlow("if ($L.length == 1)", EVALS_PARAMETER);
+        dispatchBuilder.addStatement("this.$L($L, $L[0], $L[0], $L[0])", ENTRY_METHOD, OBJECT_PARAMETER, EVALS_PARAMETER, OUTPUTS_PARAMETER, CONTEXTS_PARAMETER);
+        dispatchBuilder.addStatement("return");
+        dispatchBuilder.endControlFlow();
+        dispatchBuilder.beginControlFlow("if ($L == null)", OBJECT_PARAMETER);
+        dispatchBuilder.addStatement("$T.append($L, $L)", FanOut.class, OUTPUTS_PARAMETER, NULL_STRING);
+        dispatchBuilder.addStatement("return");
+        dispatchBuilder.endControlFlow();
+
+        dispatchBuilder.addStatement("$T $L = this.$L.get($L.getClass().getName())", getRuleInterface(configuration, rule), MASKER_VARIABLE, rule.getName(), OBJECT_PARAMETER);
+        dispatchBuilder.beginControlFlow("if ($L != null)", MASKER_VARIABLE);
+        dispatchBuilder.addStatement("$L.$L($L, $L)", MASKER_VARIABLE, FAN_OUT_MASK_METHOD, OBJECT_PARAMETER, getFanOutMaskArguments("this"));
+        dispatchBuilder.nextControlFlow("else if ($L instanceof $T)", OBJECT_PARAMETER, Map.class);
+        dispatchBuilder.addStatement("$L.$L().$L(($T) $L, $L)", SET_PARAMETER, getMapVariableName(rule), FAN_OUT_MASK_METHOD, Map.class, OBJECT_PARAMETER, getFanOutMaskArguments("this"));
+        dispatchBuilder.nextControlFlow("else if ($L instanceof $T)", OBJECT_PARAMETER, Collection.class);
+        dispatchBuilder.addStatement("$L.$L().$L(($T) $L, $L)", SET_PARAMETER, getCollectionVariableName(rule), FAN_OUT_MASK_METHOD, Collection.class, OBJECT_PARAMETER, getFanOutMaskArguments("this"));
+        dispatchBuilder.nextControlFlow("else if ($L instanceof Object[])", OBJECT_PARAMETER);
+        dispatchBuilder.addStatement("$L.$L().$L(($T) $L, $L)", SET_PARAMETER, getObjectArrayVariableName(rule), FAN_OUT_MASK_METHOD, Object[].class, OBJECT_PARAMETER, getFanOutMaskArguments("this"));
+        dispatchBuilder.nextControlFlow("else");
+        /* Anything else goes through the entry method once for every evaluator object */
+        dispatchBuilder.beginControlFlow("for (int i = 0; i < $L.length; i++)", EVALS_PARAMETER);
+        dispatchBuilder.addStatement("this.$L($L, $L[i], $L[i], $L[i])", ENTRY_METHOD, OBJECT_PARAMETER, EVALS_PARAMETER, OUTPUTS_PARAMETER, CONTEXTS_PARAMETER);
+        dispatchBuilder.endControlFlow();
+        dispatchBuilder.endControlFlow();
+        cloakBuilder.addMethod(dispatchBuilder.build());
+
+        /* The public entry point which serializes once per partition, with a fresh context for each */
+        MethodSpec.Builder fanOutBuilder = MethodSpec.methodBuilder(FAN_OUT_METHOD);
+        fanOutBuilder.addModifiers(Modifier.PUBLIC);
+        fanOutBuilder.returns(String[].class);
+        fanOutBuilder.addParameter(Object.class, OBJECT_PARAMETER);
+        fanOutBuilder.addParameter(evalsType, EVALS_PARAMETER);
+        fanOutBuilder.addStatement("long[] $L = new long[$L.length]", PARTITIONS_VARIABLE, EVALS_PARAMETER);
+        fanOutBuilder.beginControlFlow("for (int i = 0; i < $L.length; i++)", EVALS_PARAMETER);
+        fanOutBuilder.addStatement("$L[i] = $T.$L($L[i])", PARTITIONS_VARIABLE, getPredicatesClass(configuration, rule), PARTITION_METHOD, EVALS_PARAMETER);
+        fanOutBuilder.endControlFlow();
+        fanOutBuilder.addStatement("int[][] $L = $T.group($L)", GROUPS_VARIABLE, FanOut.class, PARTITIONS_VARIABLE);
+        fanOutBuilder.addStatement("$T $L = new $T[$L.length]", evalsType, REPRESENTATIVES_VARIABLE, rule.getEvaluatorClass(), GROUPS_VARIABLE);
+        fanOutBuilder.addStatement("$T[] $L = new $T[$L.length]", StringBuilder.class, OUTPUTS_PARAMETER, StringBuilder.class, GROUPS_VARIABLE);
+        fanOutBuilder.addStatement("$T[] $L = new $T[$L.length]", MaskContext.class, CONTEXTS_PARAMETER, MaskContext.class, GROUPS_VARIABLE);
+        fanOutBuilder.beginControlFlow("for (int i = 0; i < $L.length; i++)", GROUPS_VARIABLE);
+        fanOutBuilder.addStatement("long $L = $L[$L[i][0]]", PARTITION_VARIABLE, PARTITIONS_VARIABLE, GROUPS_VARIABLE);
+        fanOutBuilder.addStatement("$L[i] = $L[$L[i][0]]", REPRESENTATIVES_VARIABLE, EVALS_PARAMETER, GROUPS_VARIABLE);
+        fanOutBuilder.addStatement("$L[i] = new $T()", OUTPUTS_PARAMETER, StringBuilder.class);
+        fanOutBuilder.addStatement("$L[i] = $L", CONTEXTS_PARAMETER, getContextInitializer(configuration, rule));
+        fanOutBuilder.endControlFlow();
+        fanOutBuilder.beginControlFlow("if ($L.length > 0)", GROUPS_VARIABLE);
+        fanOutBuilder.addStatement("this.$L($L, $L, $L, $L)", FAN_OUT_METHOD, OBJECT_PARAMETER, REPRESENTATIVES_VARIABLE, OUTPUTS_PARAMETER, CONTEXTS_PARAMETER);
+        fanOutBuilder.endControlFlow();
+        fanOutBuilder.addStatement("return $T.expand($L, $L, $L.length)", FanOut.class, OUTPUTS_PARAMETER, GROUPS_VARIABLE, EVALS_PARAMETER);
+        cloakBuilder.addMethod(fanOutBuilder.build());
+    }
+
+    /**
+     * Adds a method which returns the initial capacity of the output for an object, from the sizes seen at runtime
+     */
+    private void addSizeHint(Rule rule, Map<Class<?>, Integer> sizeHints) {
+        MethodSpec.Builder sizeHintBuilder = MethodSpec.methodBuilder(SIZE_HINT_METHOD + rule.getName());
+        sizeHintBuilder.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        sizeHintBuilder.returns(int.class);
+        sizeHintBuilder.addParameter(Object.class, OBJECT_PARAMETER);
+        sizeHintBuilder.beginControlFlow("if ($L == null)", OBJECT_PARAMETER);
+        sizeHintBuilder.addStatement("return $L", DEFAULT_SIZE_HINT);
+        sizeHintBuilder.endControlFlow();
+        for (Map.Entry<Class<?>, Integer> entry : sizeHints.entrySet()) {
+            sizeHintBuilder.beginControlFlow("if ($L.getClass() == $T.class)", OBJECT_PARAMETER, entry.getKey());
+            sizeHintBuilder.addStatement("return $L", Math.max(DEFAULT_SIZE_HINT, entry.getValue()));
+            sizeHintBuilder.endControlFlow();
+        }
+        sizeHintBuilder.addStatement("return $L", DEFAULT_SIZE_HINT);
+        cloakBuilder.addMethod(sizeHintBuilder.build());
+    }
+
+    /**
+     * Adds the methods which expose the evaluator partition of the Rule.
+     * Evaluator objects with the same partition always produce the same output, so a response serialized
+     * for one of them can be cached under the object and its partition and served to the others.
+     * A hideAll(), where enabled, groups the evaluator objects by the same partition.
+     */
+    private void addPartitionKey(Rule rule) {
+        MethodSpec.Builder partitionBuilder = MethodSpec.methodBuilder(PARTITION_METHOD);
+        partitionBuilder.addModifiers(Modifier.PUBLIC);
+        partitionBuilder.returns(long.class);
+        partitionBuilder.addParameter(rule.getEvaluatorClass(), EVAL_PARAMETER);
+        partitionBuilder.addStatement("return $T.$L($L)", getPredicatesClass(configuration, rule), PARTITION_METHOD, EVAL_PARAMETER);
+        cloakBuilder.addMethod(partitionBuilder.build());
+
+        MethodSpec.Builder describeBuilder = MethodSpec.methodBuilder(DESCRIBE_PARTITION_METHOD);
+        describeBuilder.addModifiers(Modifier.PUBLIC);
+        describeBuilder.returns(String.class);
+        describeBuilder.addParameter(rule.getEvaluatorClass(), EVAL_PARAMETER);
+        describeBuilder.addStatement("return $T.$L($T.$L($L))", getPredicatesClass(configuration, rule), DESCRIBE_METHOD, getPredicatesClass(configuration, rule), PARTITION_METHOD, EVAL_PARAMETER);
+        cloakBuilder.addMethod(describeBuilder.build());
     }
 
     protected abstract void handleReturnsForNullObjects(MethodSpec.Builder objectMaskBuilder);
@@ -20,9 +20,9 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
-import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.flipkart.masquerade.Configuration;
 import com.flipkart.masquerade.rule.Rule;
+import com.flipkart.masquerade.runtime.FanOut;
 import com.flipkart.masquerade.serialization.FieldMeta;
 import com.flipkart.masquerade.serialization.SerializationProperty;
 import com.google.common.base.Defaults;
@@ -57,7 +57,7 @@ public class SerializationOverrideProcessor extends OverrideProcessor {
     @Override
     protected List<FieldMeta> enrichFieldMetas(List<FieldMeta> fieldMetas, Class<?> clazz) {
         List<FieldMeta> sortedFields = new ArrayList<>();
-        JsonPropertyOrder propertyOrder = getAnnotation(clazz, JsonPropertyOrder.class);
+        JsonPropertyOrder propertyOrder = getClassModel(clazz).getPropertyOrder();
         if (propertyOrder != null && propertyOrder.value().length > 0) {
             for (String name : propertyOrder.value()) {
                 int index = findField(name, fieldMetas);
@@ -80,8 +80,8 @@ public class SerializationOverrideProcessor extends OverrideProcessor {
 
     @Override
     protected void addSyntheticFields(Class<?> clazz, List<FieldMeta> fields) {
-        JsonTypeInfo jsonTypeInfo = getAnnotation(clazz, JsonTypeInfo.class);
-        JsonSubTypes jsonSubTypes = getAnnotation(clazz, JsonSubTypes.class);
+        JsonTypeInfo jsonTypeInfo = getClassModel(clazz).getTypeInfo();
+        JsonSubTypes jsonSubTypes = getClassModel(clazz).getSubTypes();
         if (jsonTypeInfo == null || jsonSubTypes == null) {
             return;
         }
@@ -116,10 +116,9 @@ public class SerializationOverrideProcessor extends OverrideProcessor {
 
     @Override
     protected void handleFieldKeys(Class<?> clazz, FieldMeta field, MethodSpec.Builder methodBuilder) {
-        resolveInclusionLevel(clazz, field);
-        CodeBlock inclusionCondition = constructInclusionCondition(field);
+        resolveMaskable(field);
         if (field.isMaskable()) {
-            methodBuilder.beginControlFlow("$L", inclusionCondition);
+            methodBuilder.beginControlFlow("$L", constructInclusionCondition(field));
         }
         methodBuilder.addStatement("$L.append($S)", SERIALIZED_OBJECT, QUOTES + field.getSerializableName() + QUOTES + ":");
     }
@@ -132,6 +131,28 @@ public class SerializationOverrideProcessor extends OverrideProcessor {
         }
     }
 
+    @Override
+    protected void handleHiddenField(Class<?> clazz, FieldMeta field, MethodSpec.Builder methodBuilder) {
+        resolveMaskable(field);
+        CodeBlock nullProperty = CodeBlock.of("$L.append($S)", SERIALIZED_OBJECT, QUOTES + field.getSerializableName() + QUOTES + ":null,");
+        if (!field.isMaskable()) {
+            methodBuilder.addStatement("$L", nullProperty);
+            return;
+        }
+
+        switch (field.getInclusionLevel()) {
+            case NON_DEFAULT:
+            case NON_NULL:
+            case NON_EMPTY:
+                /* The property is always left out for a null value */
+                break;
+            default:
+                methodBuilder.beginControlFlow("if (!$L.$L())", EVAL_PARAMETER, "isDefaultNonNullInclusion");
+                methodBuilder.addStatement("$L", nullProperty);
+                methodBuilder.endControlFlow();
+        }
+    }
+
     @Override
     protected void returns(MethodSpec.Builder methodBuilder) {
         methodBuilder.beginControlFlow("if ($L.charAt($L.length() - 1) == ',')", SERIALIZED_OBJECT, SERIALIZED_OBJECT);
@@ -142,7 +163,7 @@ public class SerializationOverrideProcessor extends OverrideProcessor {
     }
 
     @Override
-    protected boolean skipRecursiveCall(Field field) {
+    protected boolean skipRecursiveCall(Rule rule, Field field) {
         return false;
     }
 
@@ -173,12 +194,42 @@ public class SerializationOverrideProcessor extends OverrideProcessor {
         }
     }
 
+    @Override
+    protected void fanOutStatement(Rule rule, MethodSpec.Builder methodBuilder, Class<?> clazz, String getterName) {
+        String methodName;
+        if (clazz.isArray() && !clazz.getComponentType().isPrimitive()) {
+            methodName = getObjectArrayVariableName(rule);
+        } else if (Map.class.isAssignableFrom(clazz)) {
+            methodName = getMapVariableName(rule);
+        } else if (Collection.class.isAssignableFrom(clazz)) {
+            methodName = getCollectionVariableName(rule);
+        } else if (clazz.isArray() || String.class.isAssignableFrom(clazz) || clazz.isPrimitive() || getWrapperTypes().contains(clazz)
+                || configuration.toStringSerializableClasses().contains(clazz) || clazz.isEnum()) {
+            /* The output of these types is the same for every evaluator object, so the group writes it as one */
+            recursiveStatement(rule, methodBuilder, clazz, getterName);
+            return;
+        } else if (getClassInformation(clazz) != null && getClassInformation(clazz).getSubClasses().isEmpty()) {
+            methodName = getVariableName(configuration, rule, clazz);
+        } else {
+            methodName = null;
+        }
+
+        /* The group catches up before the object is serialized for each of its evaluator objects */
+        methodBuilder.addStatement("$T.copy($L, $L)", FanOut.class, OUTPUTS_PARAMETER, MARK_VARIABLE);
+        if (methodName == null) {
+            methodBuilder.addStatement("$L.$L($L.$L(), $L)", CLOAK_PARAMETER, FAN_OUT_METHOD, OBJECT_PARAMETER, getterName, getFanOutArguments());
+        } else {
+            methodBuilder.addStatement("$L.$L().$L($L.$L(), $L)", SET_PARAMETER, methodName, FAN_OUT_MASK_METHOD, OBJECT_PARAMETER, getterName, getFanOutMaskArguments(CLOAK_PARAMETER));
+        }
+        methodBuilder.addStatement("$L = $L.length()", MARK_VARIABLE, SERIALIZED_OBJECT);
+    }
+
     private void addRecursiveStatement(MethodSpec.Builder methodBuilder, String methodName, String getterName) {
-        methodBuilder.addStatement("$L.$L().$L($L.$L(), $L, $L, $L, $L)", SET_PARAMETER, methodName, INTERFACE_METHOD, OBJECT_PARAMETER, getterName, EVAL_PARAMETER, CLOAK_PARAMETER, SET_PARAMETER, SERIALIZED_OBJECT);
+        methodBuilder.addStatement("$L.$L().$L($L.$L(), $L)", SET_PARAMETER, methodName, INTERFACE_METHOD, OBJECT_PARAMETER, getterName, getMaskArguments(configuration, CLOAK_PARAMETER));
     }
 
     private void addDefaultRecursiveStatement(MethodSpec.Builder methodBuilder, String getterName) {
-        methodBuilder.addStatement("$L.$L($L.$L(), $L, $L)", CLOAK_PARAMETER, ENTRY_METHOD, OBJECT_PARAMETER, getterName, EVAL_PARAMETER, SERIALIZED_OBJECT);
+        methodBuilder.addStatement("$L.$L($L.$L(), $L)", CLOAK_PARAMETER, ENTRY_METHOD, OBJECT_PARAMETER, getterName, getEntryArguments(configuration));
     }
 
     private int findField(String name, List<FieldMeta> fields) {
@@ -190,55 +241,28 @@ public class SerializationOverrideProcessor extends OverrideProcessor {
         return -1;
     }
 
-    private void resolveInclusionLevel(Class<?> clazz, FieldMeta fieldMeta) {
-        JsonSerialize classJsonSerialize = getAnnotation(clazz, JsonSerialize.class);
-        JsonInclude classJsonInclude = getAnnotation(clazz, JsonInclude.class);
-
-        JsonInclude.Include classInclusion = null;
-        if (classJsonInclude == null && classJsonSerialize != null) {
-            classInclusion = mapJsonSerialize(classJsonSerialize.include());
-        } else if (classJsonInclude != null) {
-            classInclusion = classJsonInclude.value();
-        }
-
-        JsonSerialize fieldJsonSerialize = fieldMeta.getField().getAnnotation(JsonSerialize.class);
-        JsonInclude fieldJsonInclude = fieldMeta.getField().getAnnotation(JsonInclude.class);
-
-        JsonInclude.Include fieldInclusion = null;
-        if (fieldJsonInclude == null && fieldJsonSerialize != null) {
-            fieldInclusion = mapJsonSerialize(fieldJsonSerialize.include());
-        } else if (fieldJsonInclude != null) {
-            fieldInclusion = fieldJsonInclude.value();
-        }
-
-        fieldMeta.setInclusionLevel(Optional.ofNullable(fieldInclusion).orElse(Optional.ofNullable(classInclusion).orElse(JsonInclude.Include.ALWAYS)));
-    }
-
-    private JsonInclude.Include mapJsonSerialize(JsonSerialize.Inclusion inclusion) {
-        switch (inclusion) {
-            case NON_NULL:
-                return JsonInclude.Include.NON_NULL;
-            case NON_EMPTY:
-                return JsonInclude.Include.NON_EMPTY;
-            case NON_DEFAULT:
-                return JsonInclude.Include.NON_DEFAULT;
-            case DEFAULT_INCLUSION:
-            case ALWAYS:
-            default:
-                return JsonInclude.Include.ALWAYS;
+    /**
+     * Marks the field as not maskable if its inclusion level can never leave it out, so it is always written
+     */
+    private void resolveMaskable(FieldMeta fieldMeta) {
+        Class<?> type = fieldMeta.getType();
+        JsonInclude.Include inclusionLevel = fieldMeta.getInclusionLevel();
+        if (type.isPrimitive()) {
+            fieldMeta.setMaskable(inclusionLevel == JsonInclude.Include.NON_DEFAULT);
+        } else if (inclusionLevel == JsonInclude.Include.NON_EMPTY && !type.isArray()) {
+            fieldMeta.setMaskable(getEmptiableTypes().stream().anyMatch(t -> t.isAssignableFrom(type)));
         }
     }
 
+    /**
+     * @return The condition under which a maskable field is written
+     */
     private CodeBlock constructInclusionCondition(FieldMeta fieldMeta) {
         Field field = fieldMeta.getField();
-        String getterName = getGetterName(field.getName(), isBoolean(field.getType()), field.getType().isPrimitive());
+        String getterName = fieldMeta.getModel().getGetterName();
         if (field.getType().isPrimitive()) {
-            if (fieldMeta.getInclusionLevel() == JsonInclude.Include.NON_DEFAULT) {
-                Object value = Defaults.defaultValue(field.getType());
-                return CodeBlock.of("if ($L.$L() != $L)", OBJECT_PARAMETER, getterName, value);
-            }
-            fieldMeta.setMaskable(false);
-            return null;
+            Object value = Defaults.defaultValue(field.getType());
+            return CodeBlock.of("if ($L.$L() != $L)", OBJECT_PARAMETER, getterName, value);
         } else {
             switch (fieldMeta.getInclusionLevel()) {
                 case NON_DEFAULT:
@@ -247,13 +271,8 @@ public class SerializationOverrideProcessor extends OverrideProcessor {
                 case NON_EMPTY:
                     if (field.getType().isArray()) {
                         return CodeBlock.of("if ($L.$L() != null && $L.$L().length > 0)", OBJECT_PARAMETER, getterName, OBJECT_PARAMETER, getterName);
-                    } else {
-                        if (getEmptiableTypes().stream().noneMatch(t -> t.isAssignableFrom(field.getType()))) {
-                            fieldMeta.setMaskable(false);
-                            return null;
-                        }
-                        return CodeBlock.of("if ($L.$L() != null && !$L.$L().isEmpty())", OBJECT_PARAMETER, getterName, OBJECT_PARAMETER, getterName);
                     }
+                    return CodeBlock.of("if ($L.$L() != null && !$L.$L().isEmpty())", OBJECT_PARAMETER, getterName, OBJECT_PARAMETER, getterName);
                 default:
                     return CodeBlock.of("if ($L.$L() != null || !$L.$L())", OBJECT_PARAMETER, getterName, EVAL_PARAMETER, "isDefaultNonNullInclusion");
             }
@@ -50,7 +50,7 @@ public class SerializationRuleObjectProcessor extends RuleObjectProcessor {
 
     @Override
     protected void handleRegisteredClasses(MethodSpec.Builder objectMaskBuilder) {
-        objectMaskBuilder.addStatement("$L.$L($L, $L, this, $L, $L)", MASKER_VARIABLE, INTERFACE_METHOD, OBJECT_PARAMETER, EVAL_PARAMETER, SET_PARAMETER, SERIALIZED_OBJECT);
+        objectMaskBuilder.addStatement("$L.$L($L, $L)", MASKER_VARIABLE, INTERFACE_METHOD, OBJECT_PARAMETER, getMaskArguments(configuration, "this"));
     }
 
     @Override
@@ -69,7 +69,7 @@ public class SerializationRuleObjectProcessor extends RuleObjectProcessor {
     }
 
     private void addMethodCall(MethodSpec.Builder objectMaskBuilder, String methodName, Object clazz) {
-        objectMaskBuilder.addStatement("$L.$L().$L(($T) $L, $L, this, $L, $L)", SET_PARAMETER, methodName, INTERFACE_METHOD, clazz, OBJECT_PARAMETER, EVAL_PARAMETER, SET_PARAMETER, SERIALIZED_OBJECT);
+        objectMaskBuilder.addStatement("$L.$L().$L(($T) $L, $L)", SET_PARAMETER, methodName, INTERFACE_METHOD, clazz, OBJECT_PARAMETER, getMaskArguments(configuration, "this"));
     }
 
     @Override
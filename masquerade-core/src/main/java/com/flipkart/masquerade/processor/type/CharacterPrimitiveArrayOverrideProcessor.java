@@ -21,6 +21,7 @@ import com.flipkart.masquerade.processor.BaseOverrideProcessor;
 import com.flipkart.masquerade.rule.Rule;
 import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
 import java.util.ArrayList;
@@ -56,6 +57,6 @@ public class CharacterPrimitiveArrayOverrideProcessor extends BaseOverrideProces
             methodBuilder.addStatement("$L.append($S + new $T(($T[]) $L) + $S)", SERIALIZED_OBJECT, QUOTES, String.class, Character.TYPE, OBJECT_PARAMETER, QUOTES);
         }
 
-        return generateImplementationType(rule, ArrayTypeName.of(Character.TYPE), implName, methodBuilder.build());
+        return addSharedFanOut(rule, ArrayTypeName.of(Character.TYPE), generateImplementationType(rule, ArrayTypeName.of(Character.TYPE), implName, methodBuilder.build()));
     }
 }
@@ -20,11 +20,13 @@ import com.flipkart.masquerade.Configuration;
 import com.flipkart.masquerade.processor.BaseOverrideProcessor;
 import com.flipkart.masquerade.rule.Rule;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
 import java.util.Collection;
 
 import static com.flipkart.masquerade.util.Helper.getCollectionImplementationName;
+import static com.flipkart.masquerade.util.Helper.getEntryArguments;
 import static com.flipkart.masquerade.util.Strings.*;
 
 /**
@@ -51,7 +53,7 @@ public class CollectionOverrideProcessor extends BaseOverrideProcessor {
             methodBuilder.addStatement("$L.append($S)", SERIALIZED_OBJECT, "[");
             methodBuilder.beginControlFlow("for (Object o : $L)", OBJECT_PARAMETER);
             /* And recursively call this entry method for each object */
-            methodBuilder.addStatement("$L.$L(o, $L, $L)", CLOAK_PARAMETER, ENTRY_METHOD, EVAL_PARAMETER, SERIALIZED_OBJECT);
+            methodBuilder.addStatement("$L.$L(o, $L)", CLOAK_PARAMETER, ENTRY_METHOD, getEntryArguments(configuration));
             methodBuilder.addStatement("$L.append($S)", SERIALIZED_OBJECT, ",");
             methodBuilder.endControlFlow();
             methodBuilder.beginControlFlow("if ($L.charAt($L.length() - 1) == ',')", SERIALIZED_OBJECT, SERIALIZED_OBJECT);
@@ -60,10 +62,10 @@ public class CollectionOverrideProcessor extends BaseOverrideProcessor {
             methodBuilder.addStatement("$L.append($S)", SERIALIZED_OBJECT, "]");
         } else {
             methodBuilder.beginControlFlow("for (Object o : $L)", OBJECT_PARAMETER);
-            methodBuilder.addStatement("$L.$L(o, $L)", CLOAK_PARAMETER, ENTRY_METHOD, EVAL_PARAMETER);
+            methodBuilder.addStatement("$L.$L(o, $L)", CLOAK_PARAMETER, ENTRY_METHOD, getEntryArguments(configuration));
             methodBuilder.endControlFlow();
         }
 
-        return generateImplementationType(rule, Collection.class, implName, methodBuilder.build());
+        return addContainerFanOut(rule, TypeName.get(Collection.class), generateImplementationType(rule, Collection.class, implName, methodBuilder.build()));
     }
 }
@@ -20,6 +20,7 @@ import com.flipkart.masquerade.Configuration;
 import com.flipkart.masquerade.processor.BaseOverrideProcessor;
 import com.flipkart.masquerade.rule.Rule;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
 import static com.flipkart.masquerade.util.Helper.getEnumImplementationName;
@@ -49,6 +50,6 @@ public class EnumOverrideProcessor extends BaseOverrideProcessor {
             methodBuilder.addStatement("$L.append($S + String.valueOf($L) + $S)", SERIALIZED_OBJECT, QUOTES, OBJECT_PARAMETER, QUOTES);
         }
 
-        return generateImplementationType(rule, Object.class, implName, methodBuilder.build());
+        return addSharedFanOut(rule, TypeName.OBJECT, generateImplementationType(rule, Object.class, implName, methodBuilder.build()));
     }
 }
@@ -19,11 +19,16 @@ package com.flipkart.masquerade.processor.type;
 import com.flipkart.masquerade.Configuration;
 import com.flipkart.masquerade.processor.BaseOverrideProcessor;
 import com.flipkart.masquerade.rule.Rule;
+import com.flipkart.masquerade.runtime.FanOut;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
 import java.util.Map;
 
+import static com.flipkart.masquerade.util.Helper.getEntryArguments;
+import static com.flipkart.masquerade.util.Helper.getFanOutArguments;
+import static com.flipkart.masquerade.util.Helper.hasFanOut;
 import static com.flipkart.masquerade.util.Helper.getMapImplementationName;
 import static com.flipkart.masquerade.util.Strings.*;
 
@@ -51,17 +56,28 @@ public class MapOverrideProcessor extends BaseOverrideProcessor {
             methodBuilder.addStatement("$L.append($S)", SERIALIZED_OBJECT, "{");
 
             methodBuilder.addStatement(
-                    "$L.forEach((k, v) -> { $L.append($S); $L.append(k); $L.append($S); $L.append($S); $L.$L(v, $L, $L); $L.append($S); })",
-                    OBJECT_PARAMETER, SERIALIZED_OBJECT, QUOTES, SERIALIZED_OBJECT, SERIALIZED_OBJECT, QUOTES, SERIALIZED_OBJECT, ":", CLOAK_PARAMETER, ENTRY_METHOD, EVAL_PARAMETER, SERIALIZED_OBJECT, SERIALIZED_OBJECT, ",");
+                    "$L.forEach((k, v) -> { $L.append($S); $L.append(k); $L.append($S); $L.append($S); $L.$L(v, $L); $L.append($S); })",
+                    OBJECT_PARAMETER, SERIALIZED_OBJECT, QUOTES, SERIALIZED_OBJECT, SERIALIZED_OBJECT, QUOTES, SERIALIZED_OBJECT, ":", CLOAK_PARAMETER, ENTRY_METHOD, getEntryArguments(configuration), SERIALIZED_OBJECT, ",");
 
             methodBuilder.beginControlFlow("if ($L.charAt($L.length() - 1) == ',')", SERIALIZED_OBJECT, SERIALIZED_OBJECT);
             methodBuilder.addStatement("$L.deleteCharAt($L.length() - 1)", SERIALIZED_OBJECT, SERIALIZED_OBJECT);
             methodBuilder.endControlFlow();
             methodBuilder.addStatement("$L.append($S)", SERIALIZED_OBJECT, "}");
         } else {
-            methodBuilder.addStatement("$L.$L($L.values(), $L)", CLOAK_PARAMETER, ENTRY_METHOD, OBJECT_PARAMETER, EVAL_PARAMETER);
+            methodBuilder.addStatement("$L.$L($L.values(), $L)", CLOAK_PARAMETER, ENTRY_METHOD, OBJECT_PARAMETER, getEntryArguments(configuration));
         }
 
-        return generateImplementationType(rule, Map.class, implName, methodBuilder.build());
+        TypeSpec implementation = generateImplementationType(rule, Map.class, implName, methodBuilder.build());
+        if (!hasFanOut(configuration, rule)) {
+            return implementation;
+        }
+
+        MethodSpec.Builder fanOutBuilder = generateFanOutMethod(rule, TypeName.get(Map.class));
+        fanOutBuilder.addStatement("$T.append($L, $S)", FanOut.class, OUTPUTS_PARAMETER, "{");
+        fanOutBuilder.addStatement(
+                "$L.forEach((k, v) -> { $T.append($L, $S + k + $S); $L.$L(v, $L); $T.append($L, $S); })",
+                OBJECT_PARAMETER, FanOut.class, OUTPUTS_PARAMETER, QUOTES, QUOTES + ":", CLOAK_PARAMETER, FAN_OUT_METHOD, getFanOutArguments(), FanOut.class, OUTPUTS_PARAMETER, ",");
+        fanOutBuilder.addStatement("$T.close($L, '}')", FanOut.class, OUTPUTS_PARAMETER);
+        return implementation.toBuilder().addMethod(fanOutBuilder.build()).build();
     }
 }
@@ -20,6 +20,7 @@ import com.flipkart.masquerade.Configuration;
 import com.flipkart.masquerade.processor.BaseOverrideProcessor;
 import com.flipkart.masquerade.rule.Rule;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
 import java.util.ArrayList;
@@ -57,7 +58,7 @@ public class NumericalOverrideProcessor extends BaseOverrideProcessor {
                 methodBuilder.addStatement("$L.append($L.toString())", SERIALIZED_OBJECT, OBJECT_PARAMETER);
             }
 
-            typeSpecs.add(generateImplementationType(rule, numericalType, implName, methodBuilder.build()));
+            typeSpecs.add(addSharedFanOut(rule, TypeName.get(numericalType), generateImplementationType(rule, numericalType, implName, methodBuilder.build())));
         }
         return typeSpecs;
     }
@@ -23,6 +23,7 @@ import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeSpec;
 
+import static com.flipkart.masquerade.util.Helper.getEntryArguments;
 import static com.flipkart.masquerade.util.Helper.getObjectArrayImplementationName;
 import static com.flipkart.masquerade.util.Strings.*;
 
@@ -50,7 +51,7 @@ public class ObjectArrayOverrideProcessor extends BaseOverrideProcessor {
             methodBuilder.addStatement("$L.append($S)", SERIALIZED_OBJECT, "[");
             methodBuilder.beginControlFlow("for (Object o : $L)", OBJECT_PARAMETER);
             /* And recursively call this entry method for each object */
-            methodBuilder.addStatement("$L.$L(o, $L, $L)", CLOAK_PARAMETER, ENTRY_METHOD, EVAL_PARAMETER, SERIALIZED_OBJECT);
+            methodBuilder.addStatement("$L.$L(o, $L)", CLOAK_PARAMETER, ENTRY_METHOD, getEntryArguments(configuration));
             methodBuilder.addStatement("$L.append($S)", SERIALIZED_OBJECT, ",");
             methodBuilder.endControlFlow();
             methodBuilder.beginControlFlow("if ($L.charAt($L.length() - 1) == ',')", SERIALIZED_OBJECT, SERIALIZED_OBJECT);
@@ -60,10 +61,10 @@ public class ObjectArrayOverrideProcessor extends BaseOverrideProcessor {
         } else {
             methodBuilder.beginControlFlow("for (Object o : $L)", OBJECT_PARAMETER);
             /* And recursively call this entry method for each object */
-            methodBuilder.addStatement("$L.$L(o, $L)", CLOAK_PARAMETER, ENTRY_METHOD, EVAL_PARAMETER);
+            methodBuilder.addStatement("$L.$L(o, $L)", CLOAK_PARAMETER, ENTRY_METHOD, getEntryArguments(configuration));
             methodBuilder.endControlFlow();
         }
 
-        return generateImplementationType(rule, ArrayTypeName.of(Object.class), implName, methodBuilder.build());
+        return addContainerFanOut(rule, ArrayTypeName.of(Object.class), generateImplementationType(rule, ArrayTypeName.of(Object.class), implName, methodBuilder.build()));
     }
 }
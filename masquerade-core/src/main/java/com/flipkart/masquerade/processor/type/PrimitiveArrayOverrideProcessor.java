@@ -21,11 +21,13 @@ import com.flipkart.masquerade.processor.BaseOverrideProcessor;
 import com.flipkart.masquerade.rule.Rule;
 import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.flipkart.masquerade.util.Helper.getEntryArguments;
 import static com.flipkart.masquerade.util.Helper.getPrimitiveArrayImplementationName;
 import static com.flipkart.masquerade.util.Helper.getPrimitivesTypes;
 import static com.flipkart.masquerade.util.Strings.*;
@@ -57,7 +59,7 @@ public class PrimitiveArrayOverrideProcessor extends BaseOverrideProcessor {
                 methodBuilder.addStatement("$L.append($S)", SERIALIZED_OBJECT, "[");
                 methodBuilder.beginControlFlow("for ($T o : $L)", primitiveType, OBJECT_PARAMETER);
                 /* And recursively call this entry method for each object */
-                methodBuilder.addStatement("$L.$L(o, $L, $L)", CLOAK_PARAMETER, ENTRY_METHOD, EVAL_PARAMETER, SERIALIZED_OBJECT);
+                methodBuilder.addStatement("$L.$L(o, $L)", CLOAK_PARAMETER, ENTRY_METHOD, getEntryArguments(configuration));
                 methodBuilder.addStatement("$L.append($S)", SERIALIZED_OBJECT, ",");
                 methodBuilder.endControlFlow();
                 methodBuilder.beginControlFlow("if ($L.charAt($L.length() - 1) == ',')", SERIALIZED_OBJECT, SERIALIZED_OBJECT);
@@ -66,7 +68,7 @@ public class PrimitiveArrayOverrideProcessor extends BaseOverrideProcessor {
                 methodBuilder.addStatement("$L.append($S)", SERIALIZED_OBJECT, "]");
             }
 
-            typeSpecs.add(generateImplementationType(rule, ArrayTypeName.of(primitiveType), implName, methodBuilder.build()));
+            typeSpecs.add(addSharedFanOut(rule, ArrayTypeName.of(primitiveType), generateImplementationType(rule, ArrayTypeName.of(primitiveType), implName, methodBuilder.build())));
         }
         return typeSpecs;
     }
@@ -20,6 +20,7 @@ import com.flipkart.masquerade.Configuration;
 import com.flipkart.masquerade.processor.BaseOverrideProcessor;
 import com.flipkart.masquerade.rule.Rule;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
 import java.util.ArrayList;
@@ -63,7 +64,7 @@ public class PrimitiveOverrideProcessor extends BaseOverrideProcessor {
                 }
             }
 
-            typeSpecs.add(generateImplementationType(rule, primitiveType, implName, methodBuilder.build()));
+            typeSpecs.add(addSharedFanOut(rule, TypeName.get(primitiveType), generateImplementationType(rule, primitiveType, implName, methodBuilder.build())));
         }
         return typeSpecs;
     }
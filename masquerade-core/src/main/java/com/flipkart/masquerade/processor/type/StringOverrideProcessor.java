@@ -23,6 +23,7 @@ import com.flipkart.masquerade.rule.Rule;
 import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
 import javax.lang.model.element.Modifier;
@@ -72,6 +73,6 @@ public class StringOverrideProcessor extends BaseOverrideProcessor {
         builder.addField(
                 FieldSpec.builder(Integer.TYPE, "escLen", Modifier.PRIVATE, Modifier.FINAL)
                         .initializer("escCodes.length").build());
-        return builder.build();
+        return addSharedFanOut(rule, TypeName.get(String.class), builder.build());
     }
 }
@@ -21,6 +21,7 @@ package com.flipkart.masquerade.rule;
  */
 public class BasicRule extends ValueRule {
     private final String annotationMember;
+    private final String upperAnnotationMember;
     private final Operator operator;
     private final String evaluatorFunction;
     private final boolean defaultIgnored;
@@ -34,7 +35,35 @@ public class BasicRule extends ValueRule {
             throw new NullPointerException("BasicRule class does not accept any null parameters");
         }
 
+        if (operator == Operator.BETWEEN) {
+            throw new UnsupportedOperationException("BETWEEN needs both a lower and an upper annotation member");
+        }
+
         this.annotationMember = annotationMember;
+        this.upperAnnotationMember = null;
+        this.operator = operator;
+        this.evaluatorFunction = evaluatorFunction;
+        this.defaultIgnored = defaultIgnored;
+    }
+
+    /**
+     * Creates a BasicRule for a range of values, where the annotation members hold the closed bounds of the range
+     */
+    public BasicRule(String lowerAnnotationMember, String upperAnnotationMember, Operator operator, String evaluatorFunction) {
+        this(lowerAnnotationMember, upperAnnotationMember, operator, evaluatorFunction, true);
+    }
+
+    public BasicRule(String lowerAnnotationMember, String upperAnnotationMember, Operator operator, String evaluatorFunction, boolean defaultIgnored) {
+        if (lowerAnnotationMember == null || upperAnnotationMember == null || operator == null || evaluatorFunction == null) {
+            throw new NullPointerException("BasicRule class does not accept any null parameters");
+        }
+
+        if (operator != Operator.BETWEEN) {
+            throw new UnsupportedOperationException("Only BETWEEN accepts an upper annotation member");
+        }
+
+        this.annotationMember = lowerAnnotationMember;
+        this.upperAnnotationMember = upperAnnotationMember;
         this.operator = operator;
         this.evaluatorFunction = evaluatorFunction;
         this.defaultIgnored = defaultIgnored;
@@ -44,6 +73,13 @@ public class BasicRule extends ValueRule {
         return annotationMember;
     }
 
+    /**
+     * @return The annotation member holding the upper bound of a BETWEEN rule, null for every other operator
+     */
+    public String getUpperAnnotationMember() {
+        return upperAnnotationMember;
+    }
+
     public Operator getOperator() {
         return operator;
     }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.rule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Rule which applies several Rules in a single traversal. A field is hidden if any of the Rules hides it.
+ * <p />
+ * The evaluator of a CombinedRule exposes the evaluator of every combined Rule through an accessor,
+ * which is prefixed to the accessors of the combined Rule. The accessors should never return null.
+ */
+public class CombinedRule extends Rule {
+    private final List<Rule> constituents;
+
+    /**
+     * @param name Name of the Rule, used for the generated types and the entry point
+     * @param evaluatorClass Class of the combined evaluator
+     * @param members The Rules to apply, each with the accessor of its evaluator
+     */
+    public CombinedRule(String name, Class<?> evaluatorClass, Member... members) {
+        super(name, evaluatorClass);
+        if (members == null || members.length == 0) {
+            throw new NullPointerException("CombinedRule needs at least one member");
+        }
+
+        List<Rule> rules = new ArrayList<>();
+        for (Member member : members) {
+            for (Rule constituent : member.getRule().getConstituents()) {
+                rules.add(new Rule(name, constituent.getAnnotationClass(), evaluatorClass, rebase(constituent.getValueRule(), member.getEvaluatorFunction())));
+            }
+        }
+        this.constituents = Collections.unmodifiableList(rules);
+    }
+
+    @Override
+    public List<Rule> getConstituents() {
+        return constituents;
+    }
+
+    private static CompositeRule rebase(CompositeRule compositeRule, String evaluatorFunction) {
+        List<ValueRule> valueRules = new ArrayList<>();
+        for (ValueRule valueRule : compositeRule.getValueRules()) {
+            if (valueRule instanceof CompositeRule) {
+                valueRules.add(rebase((CompositeRule) valueRule, evaluatorFunction));
+                continue;
+            }
+
+            BasicRule basicRule = (BasicRule) valueRule;
+            String function = evaluatorFunction + "." + basicRule.getEvaluatorFunction();
+            if (basicRule.getOperator().isRange()) {
+                valueRules.add(new BasicRule(basicRule.getAnnotationMember(), basicRule.getUpperAnnotationMember(), basicRule.getOperator(), function, basicRule.isDefaultIgnored()));
+            } else {
+                valueRules.add(new BasicRule(basicRule.getAnnotationMember(), basicRule.getOperator(), function, basicRule.isDefaultIgnored()));
+            }
+        }
+        return new CompositeRule(compositeRule.getConjunction(), valueRules.toArray(new ValueRule[0]));
+    }
+
+    /**
+     * A Rule combined by a CombinedRule
+     */
+    public static class Member {
+        private final Rule rule;
+        private final String evaluatorFunction;
+
+        /**
+         * @param rule The Rule to apply
+         * @param evaluatorFunction Accessor of the combined evaluator which returns the evaluator of the Rule
+         */
+        public Member(Rule rule, String evaluatorFunction) {
+            if (rule == null || evaluatorFunction == null) {
+                throw new NullPointerException("Member class does not accept any null parameters");
+            }
+
+            this.rule = rule;
+            this.evaluatorFunction = evaluatorFunction;
+        }
+
+        public Rule getRule() {
+            return rule;
+        }
+
+        public String getEvaluatorFunction() {
+            return evaluatorFunction;
+        }
+    }
+}
@@ -30,7 +30,12 @@ public enum Operator {
     GREATER_EQUAL(OperationGenerator::processGreaterThanEquals),
     LESSER(OperationGenerator::processLesserThan),
     LESSER_EQUAL(OperationGenerator::processLesserThanEquals),
-    UNEQUAL(OperationGenerator::processNotEquals);
+    UNEQUAL(OperationGenerator::processNotEquals),
+    /* The annotation member is an array, the accessor value is tested for membership in it */
+    IN(OperationGenerator::processIn),
+    NOT_IN(OperationGenerator::processNotIn),
+    /* Two annotation members hold the closed bounds of a range in which the accessor value should fall */
+    BETWEEN(OperationGenerator::processIn);
 
     private final BiConsumer<StringBuilder, FieldDescriptor> generateOperation;
 
@@ -41,4 +46,12 @@ public enum Operator {
     public BiConsumer<StringBuilder, FieldDescriptor> getGenerateOperation() {
         return generateOperation;
     }
+
+    public boolean isMembership() {
+        return this == IN || this == NOT_IN;
+    }
+
+    public boolean isRange() {
+        return this == BETWEEN;
+    }
 }
@@ -17,6 +17,8 @@
 package com.flipkart.masquerade.rule;
 
 import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Created by shrey.garg on 24/04/17.
@@ -38,6 +40,20 @@ public class Rule {
         this.valueRule = valueRule;
     }
 
+    /**
+     * Creates a Rule without annotations of its own, whose conditions are given by its constituents
+     */
+    protected Rule(String name, Class<?> evaluatorClass) {
+        if (name == null || evaluatorClass == null) {
+            throw new NullPointerException("Rule class does not accept any null parameters");
+        }
+
+        this.name = name;
+        this.annotationClass = null;
+        this.evaluatorClass = evaluatorClass;
+        this.valueRule = null;
+    }
+
     public String getName() {
         return name;
     }
@@ -54,6 +70,13 @@ public class Rule {
         return valueRule;
     }
 
+    /**
+     * @return The Rules whose annotations decide what this Rule hides, all of them evaluated against the evaluator class of this Rule
+     */
+    public List<Rule> getConstituents() {
+        return Collections.singletonList(this);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
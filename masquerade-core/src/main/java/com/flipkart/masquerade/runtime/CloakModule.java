@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.masquerade.runtime;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Jackson module which leaves out the fields hidden by a Rule, without modifying the objects being serialized.
+ * <p />
+ * Every property which the Rule can hide asks the generated Mask of its class whether it is hidden for the evaluator
+ * object attached to the writer, and is written as if it were null when it is. Writers are expected to come from
+ * the writer() method of the generated Cloak, which attaches the evaluator object along with a fresh context.
+ * Properties are hidden if no evaluator object is attached.
+ */
+public class CloakModule extends SimpleModule {
+    private static final String ATTRIBUTE_PREFIX = "masquerade.";
+
+    /**
+     * @param ruleName Name of the Rule
+     * @param masks Generated Mask of a class, by class name
+     */
+    public CloakModule(String ruleName, Function<String, ?> masks) {
+        super("Masquerade" + ruleName);
+        setSerializerModifier(new VisibilityModifier(ruleName, masks));
+    }
+
+    /**
+     * Modules of different Rules can be registered on the same mapper
+     */
+    @Override
+    public Object getTypeId() {
+        return getModuleName();
+    }
+
+    public static String getEvaluatorAttribute(String ruleName) {
+        return ATTRIBUTE_PREFIX + ruleName + ".evaluator";
+    }
+
+    public static String getContextAttribute(String ruleName) {
+        return ATTRIBUTE_PREFIX + ruleName + ".context";
+    }
+
+    private static class VisibilityModifier extends BeanSerializerModifier {
+        private final String ruleName;
+        private final Function<String, ?> masks;
+
+        private VisibilityModifier(String ruleName, Function<String, ?> masks) {
+            this.ruleName = ruleName;
+            this.masks = masks;
+        }
+
+        @Override
+        public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc, List<BeanPropertyWriter> beanProperties) {
+            Object mask = masks.apply(beanDesc.getBeanClass().getName());
+            if (!(mask instanceof FieldVisibility)) {
+                return beanProperties;
+            }
+
+            FieldVisibility visibility = (FieldVisibility) mask;
+            Map<String, Integer> hideable = new HashMap<>();
+            String[] fields = visibility.hideableFields();
+            for (int i = 0; i < fields.length; i++) {
+                hideable.put(fields[i], i);
+            }
+
+            /* Writers carry the serialized name, while the Masks know the fields by their declared name */
+            Map<String, String> internalNames = new HashMap<>();
+            for (BeanPropertyDefinition property : beanDesc.findProperties()) {
+                internalNames.put(property.getName(), property.getInternalName());
+            }
+
+            for (int i = 0; i < beanProperties.size(); i++) {
+                BeanPropertyWriter writer = beanProperties.get(i);
+                Integer field = hideable.get(internalNames.getOrDefault(writer.getName(), writer.getName()));
+                if (field != null) {
+                    beanProperties.set(i, new MaskedPropertyWriter(writer, ruleName, visibility, field));
+                }
+            }
+            return beanProperties;
+        }
+    }
+
+    private static class MaskedPropertyWriter extends BeanPropertyWriter {
+        private final String evaluatorAttribute;
+        private final String contextAttribute;
+        private final FieldVisibility visibility;
+        private final int field;
+
+        private MaskedPropertyWriter(BeanPropertyWriter base, String ruleName, FieldVisibility visibility, int field) {
+            super(base);
+            this.evaluatorAttribute = getEvaluatorAttribute(ruleName);
+            this.contextAttribute = getContextAttribute(ruleName);
+            this.visibility = visibility;
+            this.field = field;
+        }
+
+        private MaskedPropertyWriter(MaskedPropertyWriter base, PropertyName name) {
+            super(base, name);
+            this.evaluatorAttribute = base.evaluatorAttribute;
+            this.contextAttribute = base.contextAttribute;
+            this.visibility = base.visibility;
+            this.field = base.field;
+        }
+
+        @Override
+        protected BeanPropertyWriter _new(PropertyName newName) {
+            return new MaskedPropertyWriter(this, newName);
+        }
+
+        @Override
+        public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            Object evaluator = prov.getAttribute(evaluatorAttribute);
+            if (evaluator != null && !visibility.isHidden(field, evaluator, (MaskContext) prov.getAttribute(contextAttribute))) {
+                super.serializeAsField(bean, gen, prov);
+                return;
+            }
+
+            /* Same as a null value */
+            if (_nullSerializer != null) {
+                gen.writeFieldName(_name);
+                _nullSerializer.serialize(null, gen, prov);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.masquerade.runtime;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Shares the output of a serialization with every identical call made while it is in flight.
+ * <p />
+ * A call is identified by the key of the object and the evaluator partition. Calls which arrive while another
+ * call with the same identity is running wait for it and return its output. Nothing is kept once a call completes.
+ */
+public class Coalescer {
+    private final ConcurrentMap<List<Object>, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param key Key of the object, equal keys must identify objects with equal serialized forms
+     * @param partition Evaluator partition of the call
+     * @param serializer Serializes the object, only invoked if no identical call is in flight
+     * @return Output of the serialization
+     */
+    public String coalesce(Object key, long partition, Supplier<String> serializer) {
+        List<Object> identity = Arrays.asList(key, partition);
+        CompletableFuture<String> flight = new CompletableFuture<>();
+        CompletableFuture<String> leader = inFlight.putIfAbsent(identity, flight);
+        if (leader != null) {
+            return await(leader);
+        }
+
+        try {
+            String serialized = serializer.get();
+            flight.complete(serialized);
+            return serialized;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(identity, flight);
+        }
+    }
+
+    private static String await(CompletableFuture<String> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            /* Followers fail with the same exception as the call they waited for */
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
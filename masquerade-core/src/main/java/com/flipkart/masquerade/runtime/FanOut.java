@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.masquerade.runtime;
+
+import java.util.Arrays;
+
+/**
+ * Operations on the outputs of a serialization for several evaluator objects in a single traversal.
+ * <p />
+ * Every output belongs to one evaluator object, at the same index. Evaluator objects which see an object in the same
+ * way form a group, the first output of the group is written by the Masks and the rest of the group copies what was
+ * written, so the outputs only split where the evaluator objects see an object differently.
+ */
+public class FanOut {
+    private FanOut() {
+    }
+
+    /**
+     * @param keys What every evaluator object sees of an object, equal keys must produce equal output
+     * @return The indices of the evaluator objects with equal keys, in the order the keys first appear
+     */
+    public static int[][] group(long[] keys) {
+        /* There are only ever a few distinct keys, so they are searched linearly */
+        long[] distinct = new long[keys.length];
+        int[] sizes = new int[keys.length];
+        int[] groupOf = new int[keys.length];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            int group = 0;
+            while (group < count && distinct[group] != keys[i]) {
+                group++;
+            }
+            if (group == count) {
+                distinct[count++] = keys[i];
+            }
+            groupOf[i] = group;
+            sizes[group]++;
+        }
+
+        int[][] groups = new int[count][];
+        for (int group = 0; group < count; group++) {
+            groups[group] = new int[sizes[group]];
+            sizes[group] = 0;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            groups[groupOf[i]][sizes[groupOf[i]]++] = i;
+        }
+        return groups;
+    }
+
+    /**
+     * @return The values at the indices of the group, or the same array if the group holds all of them
+     */
+    public static <T> T[] select(T[] values, int[] group) {
+        if (group.length == values.length) {
+            return values;
+        }
+        T[] selected = Arrays.copyOf(values, group.length);
+        for (int i = 0; i < group.length; i++) {
+            selected[i] = values[group[i]];
+        }
+        return selected;
+    }
+
+    /**
+     * Copies what the first output of a group has been given since the mark to the rest of the group
+     */
+    public static void copy(StringBuilder[] outputs, int mark) {
+        StringBuilder written = outputs[0];
+        for (int i = 1; i < outputs.length; i++) {
+            outputs[i].append(written, mark, written.length());
+        }
+    }
+
+    public static void append(StringBuilder[] outputs, String value) {
+        for (StringBuilder output : outputs) {
+            output.append(value);
+        }
+    }
+
+    /**
+     * Ends a container in every output, dropping the separator after its last element
+     */
+    public static void close(StringBuilder[] outputs, char bracket) {
+        for (StringBuilder output : outputs) {
+            if (output.charAt(output.length() - 1) == ',') {
+                output.deleteCharAt(output.length() - 1);
+            }
+            output.append(bracket);
+        }
+    }
+
+    /**
+     * @param groups The indices of the evaluator objects which share every output
+     * @return The output of every evaluator object
+     */
+    public static String[] expand(StringBuilder[] outputs, int[][] groups, int count) {
+        String[] expanded = new String[count];
+        for (int group = 0; group < groups.length; group++) {
+            String output = outputs[group].toString();
+            for (int index : groups[group]) {
+                expanded[index] = output;
+            }
+        }
+        return expanded;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.masquerade.runtime;
+
+/**
+ * Visibility decisions of the fields of a class for a Rule, implemented by the generated Masks for the Jackson module
+ */
+public interface FieldVisibility {
+    /**
+     * @return Names of the fields which can be hidden, the index of a field in this array identifies it
+     */
+    String[] hideableFields();
+
+    /**
+     * @param field Index of the field in {@link #hideableFields()}
+     * @param evaluator Evaluator object of the Rule
+     * @param context Context of the current call
+     * @return true if the field is hidden for the evaluator object
+     */
+    boolean isHidden(int field, Object evaluator, MaskContext context);
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.masquerade.runtime;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounded cache of the serialized form of immutable objects, shared by all the hide() calls of a Cloak.
+ * <p />
+ * Objects are either keyed by identity, in which case the entry goes away with the object, or by a key of their own.
+ * The output also depends on whether the evaluator includes null fields by default, so both variants are cached separately.
+ * The total length of the cached fragments is bounded, least recently used fragments are evicted first.
+ * <p />
+ * Keyed fragments can also be persisted to a {@link FragmentStore}, which is consulted when they are absent here.
+ * Keys are persisted through their String form.
+ */
+public class FragmentCache {
+    private final Cache<Object, String> inclusive;
+    private final Cache<Object, String> exclusive;
+    private final Cache<Object, String> keyed;
+    private final String name;
+
+    private volatile FragmentStore store;
+
+    /**
+     * @param name Name of the Rule whose fragments are cached
+     * @param maximumWeight Maximum total length of the cached fragments
+     */
+    public FragmentCache(String name, long maximumWeight) {
+        this.name = name;
+        /* Weak keys are compared by identity */
+        this.inclusive = CacheBuilder.newBuilder().weakKeys().maximumWeight(maximumWeight / 3).weigher(FragmentCache::weigh).build();
+        this.exclusive = CacheBuilder.newBuilder().weakKeys().maximumWeight(maximumWeight / 3).weigher(FragmentCache::weigh).build();
+        this.keyed = CacheBuilder.newBuilder().maximumWeight(maximumWeight / 3).weigher(FragmentCache::weigh).build();
+    }
+
+    /**
+     * @param object Object being serialized
+     * @param key Key of the object, or null to key it by identity
+     * @param defaultNonNullInclusion Default inclusion of null fields for the evaluator
+     * @return The cached fragment, or null if absent
+     */
+    public String get(Object object, Object key, boolean defaultNonNullInclusion) {
+        if (key == null) {
+            return (defaultNonNullInclusion ? inclusive : exclusive).getIfPresent(object);
+        }
+
+        List<Object> cacheKey = Arrays.asList(object.getClass(), key, defaultNonNullInclusion);
+        String fragment = keyed.getIfPresent(cacheKey);
+        FragmentStore currentStore = store;
+        if (fragment == null && currentStore != null) {
+            fragment = currentStore.get(getStoreKey(object, key, defaultNonNullInclusion));
+            if (fragment != null) {
+                keyed.put(cacheKey, fragment);
+            }
+        }
+        return fragment;
+    }
+
+    public void put(Object object, Object key, boolean defaultNonNullInclusion, String fragment) {
+        if (key == null) {
+            (defaultNonNullInclusion ? inclusive : exclusive).put(object, fragment);
+        } else {
+            keyed.put(Arrays.asList(object.getClass(), key, defaultNonNullInclusion), fragment);
+            FragmentStore currentStore = store;
+            if (currentStore != null) {
+                currentStore.put(getStoreKey(object, key, defaultNonNullInclusion), fragment);
+            }
+        }
+    }
+
+    /**
+     * @param store Store which persists the keyed fragments, or null to stop persisting them
+     */
+    public void attach(FragmentStore store) {
+        this.store = store;
+    }
+
+    public void invalidateAll() {
+        inclusive.invalidateAll();
+        exclusive.invalidateAll();
+        keyed.invalidateAll();
+    }
+
+    private String getStoreKey(Object object, Object key, boolean defaultNonNullInclusion) {
+        return name + ':' + object.getClass().getName() + ':' + defaultNonNullInclusion + ':' + key;
+    }
+
+    private static int weigh(Object key, String fragment) {
+        return fragment.length();
+    }
+}
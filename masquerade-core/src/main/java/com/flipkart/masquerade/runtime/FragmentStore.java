@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.masquerade.runtime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append only store of serialized fragments in a memory-mapped file, which outlives the process.
+ * <p />
+ * The file is stamped with the schema hash of the Cloak which wrote it. A store opened with a different
+ * hash is emptied, so fragments written by an older model are never served. Once the file is full, new
+ * fragments are no longer persisted.
+ */
+public class FragmentStore implements Closeable {
+    private static final long MAGIC = 0x4d41534b46524147L;
+    /* Magic, schema hash and the end of the written entries */
+    private static final int HEADER_SIZE = 8 + 8 + 4;
+    private static final int END_OFFSET = 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    /* Offset and length of every fragment, packed in a long */
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+
+    /**
+     * @param file File backing the store, created if absent
+     * @param capacity Maximum size of the file in bytes
+     * @param schemaHash Schema hash of the Cloak using the store
+     */
+    public FragmentStore(Path file, int capacity, long schemaHash) throws IOException {
+        if (capacity <= HEADER_SIZE) {
+            throw new UnsupportedOperationException("Fragment store capacity must exceed " + HEADER_SIZE + " bytes");
+        }
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        if (buffer.getLong(0) != MAGIC || buffer.getLong(8) != schemaHash || !load()) {
+            buffer.putLong(0, MAGIC);
+            buffer.putLong(8, schemaHash);
+            buffer.putInt(END_OFFSET, HEADER_SIZE);
+            index.clear();
+        }
+    }
+
+    /**
+     * @return The stored fragment, or null if absent
+     */
+    public String get(String key) {
+        Long location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        return read((int) (location >>> 32), (int) (long) location);
+    }
+
+    /**
+     * Persists the fragment, unless the key is already stored or the file is full
+     */
+    public synchronized void put(String key, String fragment) {
+        if (index.containsKey(key)) {
+            return;
+        }
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] fragmentBytes = fragment.getBytes(StandardCharsets.UTF_8);
+        int end = buffer.getInt(END_OFFSET);
+        if ((long) end + 8 + keyBytes.length + fragmentBytes.length > buffer.capacity()) {
+            return;
+        }
+
+        ByteBuffer writer = buffer.duplicate();
+        writer.position(end);
+        writer.putInt(keyBytes.length).put(keyBytes);
+        writer.putInt(fragmentBytes.length).put(fragmentBytes);
+
+        /* The entry only becomes visible to a restarted process once the end marker moves past it */
+        buffer.putInt(END_OFFSET, writer.position());
+        index.put(key, ((long) (end + 8 + keyBytes.length) << 32) | fragmentBytes.length);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Rebuilds the index from the entries in the file
+     *
+     * @return false if the file is corrupt
+     */
+    private boolean load() {
+        int end = buffer.getInt(END_OFFSET);
+        if (end < HEADER_SIZE || end > buffer.capacity()) {
+            return false;
+        }
+
+        int position = HEADER_SIZE;
+        while (position < end) {
+            if (end - position < 4) {
+                return false;
+            }
+            int keyLength = buffer.getInt(position);
+            if (keyLength < 0 || end - position - 4 < keyLength + 4) {
+                return false;
+            }
+            String key = read(position + 4, keyLength);
+            position += 4 + keyLength;
+
+            int fragmentLength = buffer.getInt(position);
+            if (fragmentLength < 0 || end - position - 4 < fragmentLength) {
+                return false;
+            }
+            index.put(key, ((long) (position + 4) << 32) | fragmentLength);
+            position += 4 + fragmentLength;
+        }
+        return true;
+    }
+
+    private String read(int offset, int length) {
+        ByteBuffer reader = buffer.duplicate();
+        reader.position(offset);
+        reader.limit(offset + length);
+        return StandardCharsets.UTF_8.decode(reader).toString();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.runtime;
+
+import java.util.Arrays;
+
+/**
+ * Lookups into the interval tables generated for the BETWEEN operator.
+ * <p />
+ * A table is a pair of arrays holding the bounds of sorted, disjoint and closed intervals.
+ */
+public final class IntervalTable {
+    private IntervalTable() {
+    }
+
+    public static boolean contains(int[] lowers, int[] uppers, int value) {
+        int index = Arrays.binarySearch(lowers, value);
+        if (index >= 0) {
+            return true;
+        }
+
+        /* The last interval which starts before the value */
+        index = -index - 2;
+        return index >= 0 && value <= uppers[index];
+    }
+
+    public static boolean contains(long[] lowers, long[] uppers, long value) {
+        int index = Arrays.binarySearch(lowers, value);
+        if (index >= 0) {
+            return true;
+        }
+
+        index = -index - 2;
+        return index >= 0 && value <= uppers[index];
+    }
+
+    public static boolean contains(double[] lowers, double[] uppers, double value) {
+        int index = Arrays.binarySearch(lowers, value);
+        if (index >= 0) {
+            return true;
+        }
+
+        index = -index - 2;
+        return index >= 0 && value <= uppers[index];
+    }
+
+    public static <T extends Comparable<? super T>> boolean contains(T[] lowers, T[] uppers, T value) {
+        int index = Arrays.binarySearch(lowers, value);
+        if (index >= 0) {
+            return true;
+        }
+
+        index = -index - 2;
+        return index >= 0 && value.compareTo(uppers[index]) <= 0;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.runtime;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+
+/**
+ * State which lives for exactly one top level hide() call on a generated Cloak.
+ * <p />
+ * A new context is created by the Cloak for every call and handed down to every Mask.
+ * It is not thread safe and should never be shared between calls.
+ */
+public class MaskContext {
+    public static final byte UNKNOWN = 0;
+    public static final byte TRUE = 1;
+    public static final byte FALSE = -1;
+
+    /* Marks a visibility mask which has been computed, so that a mask with no hidden fields is never 0 */
+    public static final long COMPUTED = Long.MIN_VALUE;
+
+    /* End offset of an object whose serialization has not completed yet */
+    private static final int IN_PROGRESS = -1;
+
+    private final byte[] predicates;
+    private final AtomicLongArray visibility;
+    private final int profile;
+
+    /* Start and end offsets of the serialized form of every shared object, packed in a long */
+    private Map<Object, Long> memo;
+    /* Copies of the shared objects, keyed by the original object */
+    private Map<Object, Object> copies;
+    private UndoLog undoLog;
+
+    /**
+     * @param predicateCount Number of distinct predicates generated for the Rule
+     */
+    public MaskContext(int predicateCount) {
+        this(predicateCount, null);
+    }
+
+    /**
+     * @param predicateCount Number of distinct predicates generated for the Rule
+     * @param visibility Visibility masks shared by all the calls with the same evaluator partition
+     */
+    public MaskContext(int predicateCount, AtomicLongArray visibility) {
+        this(predicateCount, visibility, 0);
+    }
+
+    /**
+     * @param predicateCount Number of distinct predicates generated for the Rule
+     * @param visibility Visibility masks shared by all the calls with the same evaluator partition
+     * @param profile Ordinal of the hot profile which matches the evaluator object, or 0 if none does
+     */
+    public MaskContext(int predicateCount, AtomicLongArray visibility, int profile) {
+        this.predicates = new byte[predicateCount];
+        this.visibility = visibility;
+        this.profile = profile;
+    }
+
+    /**
+     * @return Tri-state outcomes of the predicates of the Rule, indexed by the predicate ordinal
+     */
+    public byte[] getPredicates() {
+        return predicates;
+    }
+
+    /**
+     * @param ordinal Ordinal of the class in the generated predicates class
+     * @return Visibility mask of the class, or 0 if it has not been computed yet
+     */
+    public long getVisibility(int ordinal) {
+        return visibility.get(ordinal);
+    }
+
+    public void setVisibility(int ordinal, long mask) {
+        visibility.set(ordinal, mask);
+    }
+
+    public int getProfile() {
+        return profile;
+    }
+
+    /**
+     * Copies the serialized form of an object which has already been serialized during this call,
+     * otherwise marks the current end of the output as the start of the object
+     *
+     * @return true if the object was copied, false if it still has to be serialized
+     * @throws UnsupportedOperationException if the object is reachable from itself
+     */
+    public boolean replay(Object object, StringBuilder serialized) {
+        Long range = getMemo().get(object);
+        if (range == null) {
+            memo.put(object, pack(serialized.length(), IN_PROGRESS));
+            return false;
+        }
+
+        int end = (int) (long) range;
+        if (end == IN_PROGRESS) {
+            throw new UnsupportedOperationException("Cyclic reference through an object of " + object.getClass().getName() + " cannot be serialized");
+        }
+        serialized.append(serialized, (int) (range >>> 32), end);
+        return true;
+    }
+
+    /**
+     * Marks the current end of the output as the end of an object passed to {@link #replay(Object, StringBuilder)}
+     */
+    public void record(Object object, StringBuilder serialized) {
+        memo.put(object, pack((int) (memo.get(object) >>> 32), serialized.length()));
+    }
+
+    /**
+     * @return false if the object has already been visited during this call
+     */
+    public boolean visit(Object object) {
+        return getMemo().put(object, 0L) == null;
+    }
+
+    /**
+     * @param undoLog Log which records every field cleared during this call, or null to record nothing
+     */
+    public void setUndoLog(UndoLog undoLog) {
+        this.undoLog = undoLog;
+    }
+
+    /**
+     * Records the value of a field which is about to be cleared, if the call has an undo log
+     */
+    public <T, V> void recordPrevious(T object, BiConsumer<T, V> setter, V value) {
+        if (undoLog != null) {
+            undoLog.record(object, setter, value);
+        }
+    }
+
+    /**
+     * @return The copy made of the object during this call, or null if there is none
+     */
+    public Object getCopy(Object object) {
+        return copies == null ? null : copies.get(object);
+    }
+
+    public void putCopy(Object object, Object copy) {
+        if (copies == null) {
+            copies = new IdentityHashMap<>();
+        }
+        copies.put(object, copy);
+    }
+
+    private Map<Object, Long> getMemo() {
+        if (memo == null) {
+            memo = new IdentityHashMap<>();
+        }
+        return memo;
+    }
+
+    private static long pack(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.runtime;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how the generated code of a Rule behaves at runtime, so that a later build can be guided by it.
+ * <p />
+ * Three things are recorded: how often every class reaches the dispatch site of the Cloak, how often every
+ * condition evaluates to true, and the length of the output for every class passed to a top level hide() call.
+ * Conditions are identified by a signature of their generated code, which survives unrelated changes to the model.
+ */
+public class ProfileRecorder {
+    public static final String CLASS_ENTRY = "class";
+    public static final String CONDITION_ENTRY = "condition";
+    public static final String SIZE_ENTRY = "size";
+
+    private final String rule;
+    private final int[] signatures;
+    private final AtomicLongArray evaluations;
+    private final AtomicLongArray hits;
+    private final Map<String, LongAdder> classes = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> sizeCounts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> sizeTotals = new ConcurrentHashMap<>();
+
+    /**
+     * @param rule Name of the Rule
+     * @param signatures Signatures of the conditions of the Rule, indexed by the predicate ordinal
+     */
+    public ProfileRecorder(String rule, int[] signatures) {
+        this.rule = rule;
+        this.signatures = signatures;
+        this.evaluations = new AtomicLongArray(signatures.length);
+        this.hits = new AtomicLongArray(signatures.length);
+    }
+
+    public void recordClass(Class<?> clazz) {
+        classes.computeIfAbsent(clazz.getName(), name -> new LongAdder()).increment();
+    }
+
+    public void recordCondition(int ordinal, boolean outcome) {
+        evaluations.incrementAndGet(ordinal);
+        if (outcome) {
+            hits.incrementAndGet(ordinal);
+        }
+    }
+
+    public void recordSize(Class<?> clazz, int length) {
+        sizeCounts.computeIfAbsent(clazz.getName(), name -> new LongAdder()).increment();
+        sizeTotals.computeIfAbsent(clazz.getName(), name -> new LongAdder()).add(length);
+    }
+
+    /**
+     * Writes one line per recorded entry. Files written for different Rules can simply be concatenated.
+     */
+    public void write(Writer writer) throws IOException {
+        for (Map.Entry<String, LongAdder> entry : classes.entrySet()) {
+            writer.write(CLASS_ENTRY + " " + rule + " " + entry.getKey() + " " + entry.getValue().sum() + "\n");
+        }
+        for (int i = 0; i < signatures.length; i++) {
+            if (evaluations.get(i) != 0) {
+                writer.write(CONDITION_ENTRY + " " + rule + " " + signatures[i] + " " + evaluations.get(i) + " " + hits.get(i) + "\n");
+            }
+        }
+        for (Map.Entry<String, LongAdder> entry : sizeCounts.entrySet()) {
+            writer.write(SIZE_ENTRY + " " + rule + " " + entry.getKey() + " " + entry.getValue().sum() + " " + sizeTotals.get(entry.getKey()).sum() + "\n");
+        }
+        writer.flush();
+    }
+
+    public void write(File file) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            write(writer);
+        }
+    }
+}
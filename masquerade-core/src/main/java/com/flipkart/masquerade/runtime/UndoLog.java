@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.masquerade.runtime;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Record of the fields cleared by the Masks, so that the masked objects can be put back as they were.
+ * <p />
+ * Every entry holds the object, the setter of the field and its previous value. The arrays backing the log
+ * only grow when they are full, so a log reused across calls stops allocating once it has reached the size
+ * of the largest object graph. It is not thread safe.
+ */
+public class UndoLog {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private Object[] objects;
+    private BiConsumer<Object, Object>[] setters;
+    private Object[] values;
+    private int size;
+
+    public UndoLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Number of entries which can be recorded before the log grows
+     */
+    @SuppressWarnings("unchecked")
+    public UndoLog(int capacity) {
+        if (capacity <= 0) {
+            throw new UnsupportedOperationException("Undo log capacity must be positive");
+        }
+        this.objects = new Object[capacity];
+        this.setters = new BiConsumer[capacity];
+        this.values = new Object[capacity];
+    }
+
+    /**
+     * Records the value of a field before it is cleared. Null values need no restoring and are not recorded.
+     */
+    @SuppressWarnings("unchecked")
+    public <T, V> void record(T object, BiConsumer<T, V> setter, V value) {
+        if (value == null) {
+            return;
+        }
+
+        if (size == objects.length) {
+            objects = Arrays.copyOf(objects, size * 2);
+            setters = Arrays.copyOf(setters, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        objects[size] = object;
+        setters[size] = (BiConsumer<Object, Object>) setter;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Puts back every recorded value, latest first, and empties the log so that it can be reused
+     */
+    public void restore() {
+        for (int i = size - 1; i >= 0; i--) {
+            setters[i].accept(objects[i], values[i]);
+        }
+        clear();
+    }
+
+    /**
+     * Empties the log without restoring anything
+     */
+    public void clear() {
+        Arrays.fill(objects, 0, size, null);
+        Arrays.fill(setters, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.runtime;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded table of visibility masks shared by all the hide() calls of a Cloak.
+ * <p />
+ * Every row belongs to one evaluator partition and holds one mask per generated class.
+ * The table is direct mapped, a partition can only live in a single slot and a colliding partition
+ * simply replaces the row in it. Nothing is ever locked, racing writers can at worst compute a mask twice.
+ */
+public class VisibilityCache {
+    private final AtomicReferenceArray<Row> rows;
+    private final int slotMask;
+    private final int width;
+
+    /**
+     * @param size Maximum number of partitions to hold, rounded up to a power of two
+     * @param width Number of classes which have a visibility mask
+     */
+    public VisibilityCache(int size, int width) {
+        int capacity = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        this.rows = new AtomicReferenceArray<>(capacity);
+        this.slotMask = capacity - 1;
+        this.width = width;
+    }
+
+    /**
+     * @param partition Partition key of the evaluator object
+     * @return Visibility masks of the partition, indexed by class ordinal
+     */
+    public AtomicLongArray row(long partition) {
+        int slot = (int) ((partition * 0x9E3779B97F4A7C15L) >>> 32) & slotMask;
+        Row row = rows.get(slot);
+        if (row == null || row.partition != partition) {
+            row = new Row(partition, new AtomicLongArray(width));
+            rows.set(slot, row);
+        }
+        return row.masks;
+    }
+
+    private static class Row {
+        private final long partition;
+        private final AtomicLongArray masks;
+
+        private Row(long partition, AtomicLongArray masks) {
+            this.partition = partition;
+            this.masks = masks;
+        }
+    }
+}
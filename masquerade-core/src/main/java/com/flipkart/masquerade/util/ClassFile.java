@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.util;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+
+/**
+ * Header of a class file, read without loading the class
+ */
+public class ClassFile {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private final String name;
+    private final String superclassName;
+    private final int accessFlags;
+
+    public ClassFile(String name, String superclassName, int accessFlags) {
+        this.name = name;
+        this.superclassName = superclassName;
+        this.accessFlags = accessFlags;
+    }
+
+    /**
+     * Reads the constant pool only as far as needed to resolve the names of the class and its superclass
+     */
+    public static ClassFile read(InputStream stream) throws IOException {
+        DataInputStream input = new DataInputStream(stream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        /* Minor and major versions */
+        input.readUnsignedShort();
+        input.readUnsignedShort();
+
+        int count = input.readUnsignedShort();
+        String[] utf8 = new String[count];
+        int[] classes = new int[count];
+        for (int i = 1; i < count; i++) {
+            int tag = input.readUnsignedByte();
+            switch (tag) {
+                case 1:
+                    utf8[i] = input.readUTF();
+                    break;
+                case 7:
+                    classes[i] = input.readUnsignedShort();
+                    break;
+                case 8:
+                case 16:
+                case 19:
+                case 20:
+                    input.skipBytes(2);
+                    break;
+                case 15:
+                    input.skipBytes(3);
+                    break;
+                case 3:
+                case 4:
+                case 9:
+                case 10:
+                case 11:
+                case 12:
+                case 17:
+                case 18:
+                    input.skipBytes(4);
+                    break;
+                case 5:
+                case 6:
+                    /* Longs and doubles take up two entries */
+                    input.skipBytes(8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag: " + tag);
+            }
+        }
+
+        int accessFlags = input.readUnsignedShort();
+        int thisClass = input.readUnsignedShort();
+        int superClass = input.readUnsignedShort();
+        return new ClassFile(getClassName(utf8, classes, thisClass), superClass == 0 ? null : getClassName(utf8, classes, superClass), accessFlags);
+    }
+
+    private static String getClassName(String[] utf8, int[] classes, int index) throws IOException {
+        if (index <= 0 || index >= classes.length || utf8[classes[index]] == null) {
+            throw new IOException("Invalid class reference: " + index);
+        }
+        return utf8[classes[index]].replace('/', '.');
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Binary name of the superclass, or null for java.lang.Object and module descriptors
+     */
+    public String getSuperclassName() {
+        return superclassName;
+    }
+
+    public boolean isPublic() {
+        return Modifier.isPublic(accessFlags);
+    }
+
+    public boolean isAbstract() {
+        return Modifier.isAbstract(accessFlags);
+    }
+
+    public boolean isInterface() {
+        return Modifier.isInterface(accessFlags);
+    }
+}
@@ -32,6 +32,11 @@ public class ClassMeta<T> {
         this.publicClass = Helper.isPublic(clazz);
     }
 
+    public ClassMeta(ClassFile classFile) {
+        this.abstractClass = classFile.isAbstract();
+        this.publicClass = classFile.isPublic();
+    }
+
     public Set<Class<? extends T>> getSubClasses() {
         return subClasses;
     }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.flipkart.masquerade.util.Helper.getAnnotation;
+import static com.flipkart.masquerade.util.Helper.getNonStaticFields;
+
+/**
+ * Reflective view of a class, built once per generation cycle and shared by every Rule and processor.
+ * <p />
+ * Instances are immutable, so they can be read by the Rules generated in parallel.
+ */
+public class ClassModel {
+    private final Class<?> clazz;
+    private final List<FieldModel> fields;
+    private final JsonPropertyOrder propertyOrder;
+    private final JsonTypeInfo typeInfo;
+    private final JsonSubTypes subTypes;
+
+    public ClassModel(Class<?> clazz) {
+        this.clazz = clazz;
+        this.propertyOrder = getAnnotation(clazz, JsonPropertyOrder.class);
+        this.typeInfo = getAnnotation(clazz, JsonTypeInfo.class);
+        this.subTypes = getAnnotation(clazz, JsonSubTypes.class);
+
+        JsonInclude.Include classInclusion = FieldModel.resolveInclusion(getAnnotation(clazz, JsonInclude.class), getAnnotation(clazz, JsonSerialize.class));
+        List<FieldModel> fields = new ArrayList<>();
+        for (Field field : getNonStaticFields(clazz)) {
+            fields.add(new FieldModel(field, clazz, classInclusion));
+        }
+        this.fields = Collections.unmodifiableList(fields);
+    }
+
+    public Class<?> getModelledClass() {
+        return clazz;
+    }
+
+    /**
+     * @return Non-static fields of the class and its superclasses, in the order of {@link Helper#getNonStaticFields(Class)}
+     */
+    public List<FieldModel> getFields() {
+        return fields;
+    }
+
+    public JsonPropertyOrder getPropertyOrder() {
+        return propertyOrder;
+    }
+
+    public JsonTypeInfo getTypeInfo() {
+        return typeInfo;
+    }
+
+    public JsonSubTypes getSubTypes() {
+        return subTypes;
+    }
+}
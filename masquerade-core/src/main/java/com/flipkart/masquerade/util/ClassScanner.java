@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Finds the top level classes of packages by reading their class files, without loading any of them.
+ * <p />
+ * Only the classpath roots which contain the packages are visited, through the resources the class loader resolves for them.
+ * When a class is present in more than one root, the first one wins, as it would when the class is loaded.
+ */
+public class ClassScanner {
+    private static final String CLASS_SUFFIX = ".class";
+
+    /**
+     * @return Headers of the top level classes in the packages and their sub-packages
+     */
+    public static Collection<ClassFile> scan(ClassLoader classLoader, List<String> packagesToScan) throws IOException {
+        Map<String, ClassFile> classFiles = new LinkedHashMap<>();
+        for (String basePackage : packagesToScan) {
+            String packagePath = basePackage.replace('.', '/');
+            Enumeration<URL> roots = classLoader.getResources(packagePath);
+            while (roots.hasMoreElements()) {
+                URL root = roots.nextElement();
+                if ("file".equals(root.getProtocol())) {
+                    scanDirectory(toPath(root), classFiles);
+                } else if ("jar".equals(root.getProtocol())) {
+                    scanJar(root, packagePath.isEmpty() ? "" : packagePath + "/", classFiles);
+                }
+            }
+        }
+        return classFiles.values();
+    }
+
+    private static void scanDirectory(Path directory, Map<String, ClassFile> classFiles) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.filter(file -> isTopLevelClass(file.getFileName().toString())).forEach(files::add);
+        }
+        for (Path file : files) {
+            try (InputStream stream = Files.newInputStream(file)) {
+                add(ClassFile.read(stream), classFiles);
+            }
+        }
+    }
+
+    private static void scanJar(URL root, String prefix, Map<String, ClassFile> classFiles) throws IOException {
+        URLConnection connection = root.openConnection();
+        if (!(connection instanceof JarURLConnection)) {
+            return;
+        }
+        JarURLConnection jarConnection = (JarURLConnection) connection;
+        /* The cached JarFile might be shared with the class loader, so it must not be closed */
+        jarConnection.setUseCaches(false);
+        try (JarFile jar = jarConnection.getJarFile()) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.startsWith(prefix) || !isTopLevelClass(name.substring(name.lastIndexOf('/') + 1))) {
+                    continue;
+                }
+                try (InputStream stream = jar.getInputStream(entry)) {
+                    add(ClassFile.read(stream), classFiles);
+                }
+            }
+        }
+    }
+
+    private static void add(ClassFile classFile, Map<String, ClassFile> classFiles) {
+        classFiles.putIfAbsent(classFile.getName(), classFile);
+    }
+
+    /**
+     * Nested classes are reached through their enclosing classes, and package or module descriptors are not classes
+     */
+    private static boolean isTopLevelClass(String fileName) {
+        return fileName.endsWith(CLASS_SUFFIX) &&
+                fileName.indexOf('$') == -1 &&
+                !fileName.equals("package-info" + CLASS_SUFFIX) &&
+                !fileName.equals("module-info" + CLASS_SUFFIX);
+    }
+
+    private static Path toPath(URL url) throws IOException {
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid classpath entry: " + url, e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.util;
+
+import java.util.List;
+
+/**
+ * Splits the evaluator objects of a Rule into partitions, such that every condition of the Rule
+ * has the same outcome for all the evaluator objects of a partition.
+ * <p />
+ * The partition key packs the region of every dimension into a long, starting from the lowest bits.
+ */
+public class EvaluatorPartition {
+    private final List<PartitionDimension> dimensions;
+
+    public EvaluatorPartition(List<PartitionDimension> dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    public List<PartitionDimension> getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @param index Index of the dimension
+     * @return Position of the lowest bit of the dimension in the partition key
+     */
+    public int getShift(int index) {
+        int shift = 0;
+        for (int i = 0; i < index; i++) {
+            shift += dimensions.get(i).getBits();
+        }
+        return shift;
+    }
+
+    /**
+     * @param evaluator An evaluator object of the Rule
+     * @return Partition key of the evaluator object
+     */
+    public long getPartition(Object evaluator) {
+        long partition = 0L;
+        for (int i = 0; i < dimensions.size(); i++) {
+            PartitionDimension dimension = dimensions.get(i);
+            partition |= ((long) dimension.getRegion(Helper.getAccessorValue(evaluator, dimension.getAccessor()))) << getShift(i);
+        }
+        return partition;
+    }
+
+    public int getBits() {
+        return getShift(dimensions.size());
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.util;
+
+import com.flipkart.masquerade.rule.BasicRule;
+
+import static com.flipkart.masquerade.util.Helper.getAccessorValue;
+
+/**
+ * An evaluator object declared as a hot profile, for which the Masks get a specialized variant.
+ * <p />
+ * The variant is used for every evaluator object in the same partition as the profile,
+ * since all of them resolve every annotation condition the same way.
+ */
+public class EvaluatorProfile {
+    private final int ordinal;
+    private final Object evaluator;
+    private final long partition;
+
+    /**
+     * @param ordinal Ordinal of the profile, starting from 1 as 0 stands for the generic Masks
+     * @param evaluator The evaluator object declared in the Configuration
+     * @param partition Partition key of the evaluator object
+     */
+    public EvaluatorProfile(int ordinal, Object evaluator, long partition) {
+        this.ordinal = ordinal;
+        this.evaluator = evaluator;
+        this.partition = partition;
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public Object getEvaluator() {
+        return evaluator;
+    }
+
+    public long getPartition() {
+        return partition;
+    }
+
+    /**
+     * @param basicRule Current BasicRule
+     * @param value Annotation value
+     * @return Outcome of the BasicRule for the profile
+     */
+    public Boolean resolve(BasicRule basicRule, Object value) {
+        return RuleEvaluator.compare(basicRule.getOperator(), getAccessorValue(evaluator, basicRule.getEvaluatorFunction()), value);
+    }
+}
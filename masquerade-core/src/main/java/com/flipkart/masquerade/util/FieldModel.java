@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.flipkart.masquerade.annotation.IgnoreCloak;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static com.flipkart.masquerade.util.Helper.*;
+
+/**
+ * Everything about a non-static field of a class that the processors read through reflection, resolved once
+ */
+public class FieldModel {
+    private final Field field;
+    private final String getterName;
+    private final Method getter;
+    private final String setterName;
+    private final Method setter;
+    private final boolean ignored;
+    private final String serializableName;
+    private final JsonInclude.Include inclusionLevel;
+
+    /**
+     * @param clazz The class whose accessors are used for the field, which might be a subclass of the declaring class
+     * @param classInclusion Inclusion level declared for the class, or null if there is none
+     */
+    FieldModel(Field field, Class<?> clazz, JsonInclude.Include classInclusion) {
+        this.field = field;
+        this.getterName = Helper.getGetterName(field.getName(), isBoolean(field.getType()), field.getType().isPrimitive());
+        this.getter = findMethod(clazz, getterName);
+        this.setterName = Helper.getSetterName(field.getName(), isBoolean(field.getType()));
+        this.setter = findMethod(clazz, setterName, field.getType());
+        this.ignored = field.isAnnotationPresent(IgnoreCloak.class) || field.isAnnotationPresent(JsonIgnore.class);
+        this.serializableName = getter == null ? null : resolveSerializableName();
+        this.inclusionLevel = Optional.ofNullable(resolveInclusion(field.getAnnotation(JsonInclude.class), field.getAnnotation(JsonSerialize.class)))
+                .orElse(Optional.ofNullable(classInclusion).orElse(JsonInclude.Include.ALWAYS));
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public String getName() {
+        return field.getName();
+    }
+
+    public Class<?> getType() {
+        return field.getType();
+    }
+
+    public String getGetterName() {
+        return getterName;
+    }
+
+    /**
+     * @return The public getter of the field, or null if there is none
+     */
+    public Method getGetter() {
+        return getter;
+    }
+
+    public String getSetterName() {
+        return setterName;
+    }
+
+    /**
+     * @return The public setter of the field, or null if there is none
+     */
+    public Method getSetter() {
+        return setter;
+    }
+
+    /**
+     * @return true if the field is left out of masking and serialization
+     */
+    public boolean isIgnored() {
+        return ignored;
+    }
+
+    /**
+     * @return Name of the field in the serialized form, or null if the field has no getter
+     */
+    public String getSerializableName() {
+        return serializableName;
+    }
+
+    public JsonInclude.Include getInclusionLevel() {
+        return inclusionLevel;
+    }
+
+    private String resolveSerializableName() {
+        JsonProperty getterJsonProperty = getter.getAnnotation(JsonProperty.class);
+        JsonProperty setterJsonProperty = Optional.ofNullable(setter).map(m -> m.getAnnotation(JsonProperty.class)).orElse(null);
+        JsonProperty fieldJsonProperty = field.getAnnotation(JsonProperty.class);
+        return Optional.ofNullable(fieldJsonProperty).map(valueFunc)
+                .orElse(Optional.ofNullable(getterJsonProperty).map(valueFunc)
+                        .orElse(Optional.ofNullable(setterJsonProperty).map(valueFunc)
+                                .orElse(handleBooleans())));
+    }
+
+    private static final Function<JsonProperty, String> valueFunc = p -> {
+        if (p.value().trim().isEmpty()) {
+            return null;
+        }
+        return p.value();
+    };
+
+    private String handleBooleans() {
+        if (!isBoolean(field.getType())) {
+            return field.getName();
+        }
+
+        return deCapitalize(handleIsPrefix(field.getName()));
+    }
+
+    /**
+     * @return The inclusion level declared by the annotations, or null if there is none
+     */
+    static JsonInclude.Include resolveInclusion(JsonInclude jsonInclude, JsonSerialize jsonSerialize) {
+        if (jsonInclude != null) {
+            return jsonInclude.value();
+        } else if (jsonSerialize != null) {
+            return mapJsonSerialize(jsonSerialize.include());
+        }
+        return null;
+    }
+
+    private static JsonInclude.Include mapJsonSerialize(JsonSerialize.Inclusion inclusion) {
+        switch (inclusion) {
+            case NON_NULL:
+                return JsonInclude.Include.NON_NULL;
+            case NON_EMPTY:
+                return JsonInclude.Include.NON_EMPTY;
+            case NON_DEFAULT:
+                return JsonInclude.Include.NON_DEFAULT;
+            case DEFAULT_INCLUSION:
+            case ALWAYS:
+            default:
+                return JsonInclude.Include.ALWAYS;
+        }
+    }
+
+    private static Method findMethod(Class<?> clazz, String name, Class<?>... parameterTypes) {
+        try {
+            return clazz.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.masquerade.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Record of a generation cycle, kept next to the generated Cloak.
+ * <p />
+ * When the shared inputs and the structure of every class are unchanged, every generated file comes out the same and the
+ * cycle is skipped before anything is analyzed. Otherwise, when the results of the analyses are unchanged as well, the Masks of
+ * every unchanged class are taken from their records instead of being generated again, and only the aggregates are rebuilt.
+ * The recorded files are the ones a later cycle may delete once they are no longer generated.
+ */
+public class GenerationManifest {
+    public static final String FILE_NAME = "masquerade.manifest";
+
+    private static final String INPUTS_ENTRY = "inputs";
+    private static final String ANALYSES_ENTRY = "analyses";
+    private static final String CLASS_ENTRY = "class";
+    private static final String RECORD_ENTRY = "record";
+    private static final String FILE_ENTRY = "file";
+
+    private final String inputs;
+    private String analyses = "";
+    private final Map<String, String> classes = new ConcurrentHashMap<>();
+    private final Map<String, String> records = new ConcurrentHashMap<>();
+    private final Set<String> files = new TreeSet<>();
+
+    /**
+     * @param inputs Hash of the inputs shared by every Mask of the cycle
+     */
+    public GenerationManifest(String inputs) {
+        this.inputs = inputs;
+    }
+
+    /**
+     * @return The manifest of the previous cycle, or an empty one if there is none or it cannot be read
+     */
+    public static GenerationManifest read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return new GenerationManifest("");
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (line == null || !line.startsWith(INPUTS_ENTRY + " ")) {
+                return new GenerationManifest("");
+            }
+
+            GenerationManifest manifest = new GenerationManifest(line.substring(INPUTS_ENTRY.length() + 1));
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                if (ANALYSES_ENTRY.equals(parts[0]) && parts.length == 2) {
+                    manifest.analyses = parts[1];
+                } else if (CLASS_ENTRY.equals(parts[0]) && parts.length == 3) {
+                    manifest.classes.put(parts[1], parts[2]);
+                } else if (RECORD_ENTRY.equals(parts[0]) && parts.length == 4) {
+                    manifest.records.put(parts[1] + " " + parts[2], parts[3]);
+                } else if (FILE_ENTRY.equals(parts[0]) && parts.length == 2) {
+                    manifest.files.add(parts[1]);
+                } else {
+                    return new GenerationManifest("");
+                }
+            }
+            return manifest;
+        } catch (IOException e) {
+            /* Everything is generated again */
+            return new GenerationManifest("");
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(INPUTS_ENTRY + " " + inputs + "\n");
+            writer.write(ANALYSES_ENTRY + " " + analyses + "\n");
+            for (Map.Entry<String, String> entry : new TreeMap<>(classes).entrySet()) {
+                writer.write(CLASS_ENTRY + " " + entry.getKey() + " " + entry.getValue() + "\n");
+            }
+            for (Map.Entry<String, String> entry : new TreeMap<>(records).entrySet()) {
+                writer.write(RECORD_ENTRY + " " + entry.getKey() + " " + entry.getValue() + "\n");
+            }
+            for (String path : files) {
+                writer.write(FILE_ENTRY + " " + path + "\n");
+            }
+        }
+    }
+
+    public String getInputs() {
+        return inputs;
+    }
+
+    /**
+     * @param analyses Hash of the results of the analyses over all the classes, along with the types generated from them
+     */
+    public void setAnalyses(String analyses) {
+        this.analyses = analyses;
+    }
+
+    public void putClass(String className, String structureHash) {
+        classes.put(className, structureHash);
+    }
+
+    /**
+     * @param encoded The encoded MaskRecord of the class for the Rule
+     */
+    public void putRecord(String ruleName, String className, String encoded) {
+        records.put(ruleName + " " + className, encoded);
+    }
+
+    /**
+     * @param current Manifest of the current cycle, with its analyses and class structures
+     * @return The encoded record of the Mask of the class for the Rule, if the current cycle would generate the same Mask
+     */
+    public Optional<String> getRecord(GenerationManifest current, String ruleName, String className) {
+        if (inputs.isEmpty() || analyses.isEmpty() || !inputs.equals(current.inputs) || !analyses.equals(current.analyses)
+                || !Objects.equals(classes.get(className), current.classes.get(className))) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(records.get(ruleName + " " + className));
+    }
+
+    /**
+     * @param path Path of a generated file, relative to the destination
+     */
+    public void addFile(String path) {
+        files.add(path);
+    }
+
+    public Set<String> getFiles() {
+        return Collections.unmodifiableSet(files);
+    }
+
+    /**
+     * @return true if every generated file is the same in both cycles and still present in the destination
+     */
+    public boolean isUnchanged(GenerationManifest current, Path destination) {
+        if (inputs.isEmpty() || !inputs.equals(current.inputs) || !classes.equals(current.classes)) {
+            return false;
+        }
+        for (String path : files) {
+            if (!Files.isRegularFile(destination.resolve(path))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
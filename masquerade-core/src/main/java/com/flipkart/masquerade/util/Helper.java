@@ -17,16 +17,21 @@
 package com.flipkart.masquerade.util;
 
 import com.flipkart.masquerade.Configuration;
+import com.flipkart.masquerade.annotation.CacheableFragment;
+import com.flipkart.masquerade.annotation.SharedInstance;
 import com.flipkart.masquerade.rule.BasicRule;
 import com.flipkart.masquerade.rule.Rule;
-import com.google.common.reflect.ClassPath;
+import com.flipkart.masquerade.runtime.MaskContext;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static com.flipkart.masquerade.util.Strings.*;
@@ -38,6 +43,8 @@ public class Helper {
     private static final Set<Class<?>> wrapperTypes = new HashSet<>();
     private static final Set<Class<?>> primitiveTypes = new HashSet<>();
     private static final Map<Class<?>, ClassMeta<?>> classInformation = new HashMap<>();
+    /* Built on first use, which might happen while the Masks of different Rules are generated in parallel */
+    private static final Map<Class<?>, ClassModel> classModels = new ConcurrentHashMap<>();
 
     static {
         wrapperTypes.add(Boolean.class);
@@ -225,6 +232,213 @@ public class Helper {
         return ClassName.get(configuration.getCloakPackage(), ENTRY_CLASS);
     }
 
+    public static ClassName getPredicatesClass(Configuration configuration, Rule rule) {
+        return ClassName.get(configuration.getCloakPackage(), rule.getName() + PREDICATES_SUFFIX);
+    }
+
+    public static boolean hasMaskContext(Configuration configuration) {
+        return configuration.isPredicateMemoizationEnabled() || configuration.isVisibilityCacheEnabled() || !configuration.hotProfiles().isEmpty() || hasSharedInstances(configuration) || hasUndoLog(configuration);
+    }
+
+    public static boolean hasVisibilityCache(Configuration configuration, Rule rule) {
+        return configuration.isVisibilityCacheEnabled() && PartitionAnalyzer.getPartition(rule) != null;
+    }
+
+    public static boolean usesPartitions(Configuration configuration) {
+        return configuration.isVisibilityCacheEnabled() || configuration.isPartitionKeyEnabled() || !configuration.hotProfiles().isEmpty();
+    }
+
+    public static boolean hasPartition(Configuration configuration, Rule rule) {
+        return usesPartitions(configuration) && PartitionAnalyzer.getPartition(rule) != null;
+    }
+
+    /**
+     * @return true if hidden fields are left out of the output without being cleared on the object
+     */
+    public static boolean isNonDestructive(Configuration configuration) {
+        return configuration.isNativeSerializationEnabled() && configuration.isNonDestructiveSerializationEnabled();
+    }
+
+    /**
+     * @return true if the Cloak coalesces concurrent serializations of the Rule.
+     * Only non destructive Masks leave the object intact for the next partition which serializes it.
+     */
+    public static boolean hasCoalescer(Configuration configuration, Rule rule) {
+        return configuration.isCoalescingEnabled() && isNonDestructive(configuration) && hasPartition(configuration, rule);
+    }
+
+    /**
+     * @return true if the Cloak serializes an object for several evaluator objects of the Rule in a single traversal.
+     * The evaluator objects are grouped by the cached visibility masks, and all of them read the same object.
+     */
+    public static boolean hasFanOut(Configuration configuration, Rule rule) {
+        return configuration.isFanOutEnabled() && isNonDestructive(configuration) && hasVisibilityCache(configuration, rule);
+    }
+
+    /**
+     * @return true if the Masks can record the fields they clear in an undo log
+     */
+    public static boolean hasUndoLog(Configuration configuration) {
+        return !configuration.isNativeSerializationEnabled() && configuration.isUndoLogEnabled();
+    }
+
+    /**
+     * @return true if the Masks decide the visibility of fields for the Jackson module
+     */
+    public static boolean hasJacksonModule(Configuration configuration) {
+        return !configuration.isNativeSerializationEnabled() && configuration.isJacksonModuleEnabled();
+    }
+
+    /**
+     * @return true if the Cloak builds masked copies of objects
+     */
+    public static boolean hasMaskedCopy(Configuration configuration) {
+        return !configuration.isNativeSerializationEnabled() && configuration.isMaskedCopyEnabled();
+    }
+
+    /**
+     * @return true if the serialized form of the objects of the class is cached for the Rule. Only immutable classes
+     * beneath which nothing can ever be hidden by the Rule are cached, as their output does not depend on the evaluator.
+     */
+    public static boolean isFragmentCached(Configuration configuration, Rule rule, Class<?> clazz) {
+        if (!configuration.isNativeSerializationEnabled()) {
+            return false;
+        }
+        if (!clazz.isAnnotationPresent(CacheableFragment.class) && !configuration.immutableClasses().contains(clazz)) {
+            return false;
+        }
+        return IndependenceAnalyzer.isIndependent(rule, clazz);
+    }
+
+    public static boolean hasFragmentCache(Configuration configuration, Rule rule) {
+        for (Class<?> clazz : getClasses()) {
+            if (isFragmentCached(configuration, rule, clazz)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Accessor of the cache key declared by the class, or null if the object itself is the key
+     */
+    public static String getFragmentKey(Class<?> clazz) {
+        CacheableFragment fragment = clazz.getAnnotation(CacheableFragment.class);
+        if (fragment == null || fragment.key().isEmpty()) {
+            return null;
+        }
+        return fragment.key();
+    }
+
+    /**
+     * @return true if every object of the class is masked at most once per hide() call
+     */
+    public static boolean isSharedInstance(Configuration configuration, Class<?> clazz) {
+        return configuration.isSharedInstanceMemoizationEnabled() || clazz.isAnnotationPresent(SharedInstance.class);
+    }
+
+    public static boolean hasSharedInstances(Configuration configuration) {
+        for (Class<?> clazz : getClasses()) {
+            if (isSharedInstance(configuration, clazz)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static String getFragmentCacheVariableName(Rule rule) {
+        return "fragments" + rule.getName();
+    }
+
+    public static String getCoalescerVariableName(Rule rule) {
+        return "coalescer" + rule.getName();
+    }
+
+    public static String getJacksonModuleMethodName(Rule rule) {
+        return MODULE_METHOD + rule.getName();
+    }
+
+    public static String getVisibilityCacheVariableName(Rule rule) {
+        return "visibility" + rule.getName();
+    }
+
+    /**
+     * @param configuration Configuration for the current processing cycle
+     * @param rule Current Rule
+     * @return Expression which creates a fresh context for a single hide() call
+     */
+    public static CodeBlock getContextInitializer(Configuration configuration, Rule rule) {
+        ClassName predicatesClass = getPredicatesClass(configuration, rule);
+        if (!hasPartition(configuration, rule)) {
+            return CodeBlock.of("new $T($T.$L)", MaskContext.class, predicatesClass, PREDICATE_COUNT);
+        }
+
+        /* Expects the partition of the evaluator object to be available as a local variable */
+        CodeBlock visibility = hasVisibilityCache(configuration, rule) ?
+                CodeBlock.of("this.$L.row($L)", getVisibilityCacheVariableName(rule), PARTITION_VARIABLE) : CodeBlock.of("null");
+        CodeBlock profile = PartitionAnalyzer.getProfiles(rule).isEmpty() ?
+                CodeBlock.of("0") : CodeBlock.of("$T.$L($L)", predicatesClass, PROFILE_METHOD, PARTITION_VARIABLE);
+        return CodeBlock.of("new $T($T.$L, $L, $L)", MaskContext.class, predicatesClass, PREDICATE_COUNT, visibility, profile);
+    }
+
+    /**
+     * @param configuration Configuration for the current processing cycle
+     * @return Arguments following the object for a call to the entry method from generated code
+     */
+    public static String getEntryArguments(Configuration configuration) {
+        StringBuilder arguments = new StringBuilder(EVAL_PARAMETER);
+        if (configuration.isNativeSerializationEnabled()) {
+            arguments.append(", ").append(SERIALIZED_OBJECT);
+        }
+        if (hasMaskContext(configuration)) {
+            arguments.append(", ").append(CONTEXT_PARAMETER);
+        }
+        return arguments.toString();
+    }
+
+    /**
+     * @param configuration Configuration for the current processing cycle
+     * @param cloakReference Expression which refers to the Entry class object at the call site
+     * @return Arguments following the object for a call to a Mask from generated code
+     */
+    public static String getMaskArguments(Configuration configuration, String cloakReference) {
+        StringBuilder arguments = new StringBuilder(EVAL_PARAMETER).append(", ").append(cloakReference).append(", ").append(SET_PARAMETER);
+        if (configuration.isNativeSerializationEnabled()) {
+            arguments.append(", ").append(SERIALIZED_OBJECT);
+        }
+        if (hasMaskContext(configuration)) {
+            arguments.append(", ").append(CONTEXT_PARAMETER);
+        }
+        return arguments.toString();
+    }
+
+    /**
+     * @param configuration Configuration for the current processing cycle
+     * @return Arguments following the object for a call to the copy method of the Entry class from generated code
+     */
+    public static String getCopyArguments(Configuration configuration) {
+        StringBuilder arguments = new StringBuilder(EVAL_PARAMETER);
+        if (hasMaskContext(configuration)) {
+            arguments.append(", ").append(CONTEXT_PARAMETER);
+        }
+        return arguments.toString();
+    }
+
+    /**
+     * @return Arguments following the object for a call to the fan out entry method from generated code
+     */
+    public static String getFanOutArguments() {
+        return EVALS_PARAMETER + ", " + OUTPUTS_PARAMETER + ", " + CONTEXTS_PARAMETER;
+    }
+
+    /**
+     * @param cloakReference Expression which refers to the Entry class object at the call site
+     * @return Arguments following the object for a call to the fan out method of a Mask from generated code
+     */
+    public static String getFanOutMaskArguments(String cloakReference) {
+        return EVALS_PARAMETER + ", " + cloakReference + ", " + SET_PARAMETER + ", " + OUTPUTS_PARAMETER + ", " + CONTEXTS_PARAMETER;
+    }
+
     public static String getNoOpVariableName(Rule rule) {
         return "noOp" + rule.getName();
     }
@@ -271,13 +485,8 @@ public class Helper {
         return clazz.getSimpleName().toLowerCase() + rule.getName();
     }
 
-    public static Set<ClassPath.ClassInfo> getPackageClasses(ClassLoader classLoader, List<String> packagesToScan) throws IOException {
-        ClassPath classpath = ClassPath.from(classLoader);
-        Set<ClassPath.ClassInfo> classDescriptions = new HashSet<>();
-        for (String basePackage : packagesToScan) {
-            classDescriptions.addAll(classpath.getTopLevelClassesRecursive(basePackage));
-        }
-        return classDescriptions;
+    public static Collection<ClassFile> getPackageClasses(ClassLoader classLoader, List<String> packagesToScan) throws IOException {
+        return ClassScanner.scan(classLoader, packagesToScan);
     }
 
     public static List<Field> getNonStaticFields(Class<?> type) {
@@ -306,6 +515,130 @@ public class Helper {
         return EVAL_PARAMETER + "." + basicRule.getEvaluatorFunction();
     }
 
+    /**
+     * @param evaluatorClass Evaluator class of the Rule
+     * @param accessor A public method (suffixed with parentheses) or a public field of the evaluator class,
+     *                 or a chain of them separated by dots
+     * @return Type returned by the accessor
+     */
+    public static Class<?> getAccessorType(Class<?> evaluatorClass, String accessor) throws NoSuchMethodException, NoSuchFieldException {
+        Class<?> type = evaluatorClass;
+        for (String link : accessor.split("\\.")) {
+            if (link.endsWith("()")) {
+                type = type.getMethod(link.substring(0, link.length() - 2)).getReturnType();
+            } else {
+                type = type.getField(link).getType();
+            }
+        }
+        return type;
+    }
+
+    /**
+     * @param evaluator An evaluator object
+     * @param accessor A public method (suffixed with parentheses) or a public field of the evaluator class,
+     *                 or a chain of them separated by dots
+     * @return Result of the accessor for the evaluator object, or null if a link of the chain returned null
+     */
+    public static Object getAccessorValue(Object evaluator, String accessor) {
+        try {
+            Object value = evaluator;
+            for (String link : accessor.split("\\.")) {
+                if (value == null) {
+                    return null;
+                }
+
+                if (link.endsWith("()")) {
+                    value = value.getClass().getMethod(link.substring(0, link.length() - 2)).invoke(value);
+                } else {
+                    value = value.getClass().getField(link).get(value);
+                }
+            }
+            return value;
+        } catch (Exception e) {
+            throw new UnsupportedOperationException("Please specify a PUBLIC method or field for evaluator accessor");
+        }
+    }
+
+    /**
+     * @param annotationClass Annotation class of the Rule
+     * @param basicRule Current BasicRule
+     * @param annotation Annotation present on the field
+     * @return Value of the annotation member for the BasicRule, or null if the BasicRule should be ignored for this annotation
+     */
+    public static Object getAnnotationValue(Class<? extends Annotation> annotationClass, BasicRule basicRule, Annotation annotation) {
+        Object value;
+        Object defaultValue;
+
+        try {
+            Method annotationValue = annotationClass.getDeclaredMethod(basicRule.getAnnotationMember());
+            value = annotationValue.invoke(annotation);
+            defaultValue = annotationValue.getDefaultValue();
+        } catch (Exception e) {
+            throw new UnsupportedOperationException("Please provide a annotation member that exists");
+        }
+
+        if (basicRule.getOperator().isRange()) {
+            /* A range is ignored only if both of its bounds are left to their defaults */
+            Object upperValue;
+            Object upperDefaultValue;
+            try {
+                Method upperAnnotationValue = annotationClass.getDeclaredMethod(basicRule.getUpperAnnotationMember());
+                upperValue = upperAnnotationValue.invoke(annotation);
+                upperDefaultValue = upperAnnotationValue.getDefaultValue();
+            } catch (Exception e) {
+                throw new UnsupportedOperationException("Please provide a annotation member that exists");
+            }
+
+            if (basicRule.isDefaultIgnored() && Objects.equals(value, defaultValue) && Objects.equals(upperValue, upperDefaultValue)) {
+                return null;
+            }
+            return new Interval(value, upperValue);
+        }
+
+        if (basicRule.isDefaultIgnored() && Objects.deepEquals(value, defaultValue)) {
+            return null;
+        }
+        return value;
+    }
+
+    public static FieldDescriptor getFieldDescriptor(Object value) {
+        boolean isPrimitive = value.getClass().isPrimitive() || getWrapperTypes().contains(value.getClass());
+        return new FieldDescriptor(
+                isPrimitive,
+                isPrimitive || value.getClass().isEnum(),
+                isPrimitive || Comparable.class.isAssignableFrom(value.getClass()),
+                value.getClass().isEnum());
+    }
+
+    /**
+     * @param descriptor Descriptor of the annotation value
+     * @param value Annotation value
+     * @return The operand to be used for the value in the generated code
+     */
+    public static Object getOperand(FieldDescriptor descriptor, Object value) {
+        if (value instanceof Long) {
+            return CodeBlock.of("$LL", value);
+        } else if (value instanceof Float || value instanceof Double) {
+            return getFloatingOperand((Number) value);
+        } else if (!descriptor.isEnumeration()) {
+            return value;
+        }
+
+        ClassName enumName = ClassName.get(value.getClass().getPackage().getName(), value.getClass().getSimpleName());
+        return CodeBlock.of("$T.$L", enumName, value);
+    }
+
+    private static CodeBlock getFloatingOperand(Number value) {
+        Class<?> type = value.getClass();
+        double number = value.doubleValue();
+        if (Double.isNaN(number)) {
+            return CodeBlock.of("$T.NaN", type);
+        } else if (Double.isInfinite(number)) {
+            return CodeBlock.of("$T.$L", type, number > 0 ? "POSITIVE_INFINITY" : "NEGATIVE_INFINITY");
+        }
+        return CodeBlock.of(type == Float.class ? "$Lf" : "$L", value);
+    }
+
     public static boolean isAbstract(Class clazz) {
         return Modifier.isAbstract(clazz.getModifiers());
     }
@@ -318,23 +651,30 @@ public class Helper {
         return clazz.equals(Boolean.TYPE) || clazz.equals(Boolean.class);
     }
 
-    public static void mapClasses(Set<ClassPath.ClassInfo> scannedClasses, ClassLoader classLoader) throws ClassNotFoundException {
-        for (ClassPath.ClassInfo info : scannedClasses) {
-            Class<?> clazz = Class.forName(info.getName(), true, classLoader);
-            classInformation.put(clazz, new ClassMeta<>(clazz));
+    /**
+     * Classes are loaded without being initialized, as generation only reflects on them.
+     * The hierarchy and modifiers come from the class files.
+     */
+    public static void mapClasses(Collection<ClassFile> scannedClasses, ClassLoader classLoader) throws ClassNotFoundException {
+        /* Classes from an earlier cycle might have been loaded by a different class loader */
+        classInformation.clear();
+        classModels.clear();
+        Map<String, Class<?>> loadedClasses = new HashMap<>();
+        for (ClassFile classFile : scannedClasses) {
+            Class<?> clazz = Class.forName(classFile.getName(), false, classLoader);
+            loadedClasses.put(classFile.getName(), clazz);
+            classInformation.put(clazz, new ClassMeta<>(classFile));
         }
 
-        for (Class<?> clazz : classInformation.keySet()) {
-            Class<?> superclass = clazz.getSuperclass();
-            if (superclass == null || superclass.equals(Object.class)) {
+        for (ClassFile classFile : scannedClasses) {
+            if (classFile.getSuperclassName() == null || classFile.getSuperclassName().equals(Object.class.getName())) {
                 continue;
             }
 
-            final ClassMeta<?> superClassMeta = classInformation.get(superclass);
-            if (superClassMeta != null) {
-                superClassMeta.addSubClass(clazz);
+            final Class<?> superclass = loadedClasses.get(classFile.getSuperclassName());
+            if (superclass != null) {
+                classInformation.get(superclass).addSubClass(loadedClasses.get(classFile.getName()));
             }
-
         }
     }
 
@@ -349,4 +689,11 @@ public class Helper {
     public static ClassMeta<?> getClassInformation(Class<?> clazz) {
         return classInformation.get(clazz);
     }
+
+    /**
+     * @return The reflective model of the class, which is only built once per cycle
+     */
+    public static ClassModel getClassModel(Class<?> clazz) {
+        return classModels.computeIfAbsent(clazz, ClassModel::new);
+    }
 }
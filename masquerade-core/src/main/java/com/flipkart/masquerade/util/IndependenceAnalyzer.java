@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.util;
+
+import com.flipkart.masquerade.Configuration;
+import com.flipkart.masquerade.rule.Rule;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.flipkart.masquerade.util.Helper.*;
+
+/**
+ * Finds out, for every Rule, which of the scanned classes can never have anything hidden
+ * in the object graph reachable from them.
+ * <p />
+ * A class depends on a Rule if one of its fields carries the Rule annotation, or if one of its
+ * fields can hold an object which depends on the Rule. This is computed as a least fixpoint over
+ * the class graph so that cycles without any annotations are correctly marked as independent.
+ */
+public class IndependenceAnalyzer {
+    private static final Map<Rule, Set<Class<?>>> dependentClasses = new HashMap<>();
+    /* Filled lazily while the Masks of different Rules are generated in parallel */
+    private static final Map<Class<?>, List<Class<?>>> assignableClasses = new ConcurrentHashMap<>();
+
+    private static Configuration configuration;
+
+    public static void analyze(Configuration configuration) {
+        IndependenceAnalyzer.configuration = configuration;
+        dependentClasses.clear();
+        assignableClasses.clear();
+
+        List<Class<?>> candidates = new ArrayList<>();
+        for (Class<?> clazz : getClasses()) {
+            /* Only classes which get a Mask of their own can hide anything */
+            if (!clazz.isEnum() && !clazz.isInterface() && !getClassInformation(clazz).isAbstract() && getClassInformation(clazz).isPublic()) {
+                candidates.add(clazz);
+            }
+        }
+
+        for (Rule rule : configuration.getRules()) {
+            Set<Class<?>> dependents = new HashSet<>();
+            dependentClasses.put(rule, dependents);
+
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (Class<?> clazz : candidates) {
+                    if (!dependents.contains(clazz) && hasDependentField(rule, clazz)) {
+                        dependents.add(clazz);
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param rule Current Rule
+     * @param type Declared (possibly generic) type of a field
+     * @return true if no object that can be held by this type can ever have a field hidden by the Rule
+     */
+    public static boolean isIndependent(Rule rule, Type type) {
+        return dependentClasses.containsKey(rule) && !mayDepend(rule, type);
+    }
+
+    private static boolean hasDependentField(Rule rule, Class<?> clazz) {
+        for (FieldModel model : getClassModel(clazz).getFields()) {
+            Field field = model.getField();
+            if (model.isIgnored() || field.getType().isPrimitive()) {
+                continue;
+            }
+
+            /* Annotations which can never hide the field within the evaluator domain do not count */
+            Boolean hidden = RuleEvaluator.evaluate(rule, field, (basicRule, value) -> RuleEvaluator.resolve(configuration.evaluatorDomain(), basicRule, value));
+            if (!Boolean.FALSE.equals(hidden) || mayDepend(rule, field.getGenericType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean mayDepend(Rule rule, Type type) {
+        if (type instanceof Class) {
+            return mayDepend(rule, (Class<?>) type);
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            Class<?> rawType = (Class<?>) parameterizedType.getRawType();
+            Type[] arguments = parameterizedType.getActualTypeArguments();
+            if (Collection.class.isAssignableFrom(rawType) && arguments.length == 1) {
+                return hasDependentAssignable(rule, rawType) || mayDepend(rule, arguments[0]);
+            } else if (Map.class.isAssignableFrom(rawType) && arguments.length == 2) {
+                /* Only the values of a Map are ever masked */
+                return hasDependentAssignable(rule, rawType) || mayDepend(rule, arguments[1]);
+            }
+            return mayDepend(rule, rawType);
+        } else if (type instanceof GenericArrayType) {
+            return mayDepend(rule, ((GenericArrayType) type).getGenericComponentType());
+        } else if (type instanceof WildcardType) {
+            return mayDepend(rule, ((WildcardType) type).getUpperBounds()[0]);
+        } else if (type instanceof TypeVariable) {
+            return mayDepend(rule, ((TypeVariable<?>) type).getBounds()[0]);
+        }
+        return true;
+    }
+
+    private static boolean mayDepend(Rule rule, Class<?> clazz) {
+        if (clazz.isArray()) {
+            return mayDepend(rule, clazz.getComponentType());
+        }
+
+        if (isTerminal(clazz)) {
+            return false;
+        }
+
+        /* Raw containers, or types which can hold a container at runtime, could contain anything */
+        if (clazz.isAssignableFrom(ArrayList.class) || clazz.isAssignableFrom(HashMap.class) || Collection.class.isAssignableFrom(clazz) || Map.class.isAssignableFrom(clazz)) {
+            if (!dependentClasses.get(rule).isEmpty()) {
+                return true;
+            }
+        }
+
+        return hasDependentAssignable(rule, clazz);
+    }
+
+    private static boolean hasDependentAssignable(Rule rule, Class<?> clazz) {
+        Set<Class<?>> dependents = dependentClasses.get(rule);
+        for (Class<?> assignable : assignableClasses.computeIfAbsent(clazz, IndependenceAnalyzer::findAssignableClasses)) {
+            if (dependents.contains(assignable)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Class<?>> findAssignableClasses(Class<?> clazz) {
+        List<Class<?>> assignable = new ArrayList<>();
+        for (Class<?> scanned : getClasses()) {
+            if (clazz.isAssignableFrom(scanned)) {
+                assignable.add(scanned);
+            }
+        }
+        return assignable;
+    }
+
+    private static boolean isTerminal(Class<?> clazz) {
+        return clazz.isPrimitive() ||
+                clazz.isEnum() ||
+                getWrapperTypes().contains(clazz) ||
+                String.class.equals(clazz) ||
+                configuration.toStringSerializableClasses().contains(clazz) ||
+                configuration.numericalSerializableClasses().contains(clazz);
+    }
+}
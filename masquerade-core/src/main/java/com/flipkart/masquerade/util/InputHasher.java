@@ -0,0 +1,250 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.masquerade.util;
+
+import com.flipkart.masquerade.Configuration;
+import com.flipkart.masquerade.Masquerade;
+import com.flipkart.masquerade.rule.Rule;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.*;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.CodeSource;
+import java.util.*;
+
+import static com.flipkart.masquerade.util.Helper.*;
+
+/**
+ * Hashes the inputs of a generation cycle, for the manifest which lets a later cycle skip the Masks that would come out the same.
+ * <p />
+ * The structure hash of a class covers everything that its Masks are generated from: fields, methods, constructors and every
+ * annotation on them, along with those of its superclasses. Everything a Mask depends on beyond its own class goes into the
+ * hash of the shared inputs: the generator, the Configuration along with the classes of its Rules, the runtime profile and
+ * the class hierarchy. The results of the analyses over all the scanned classes are hashed separately, since they are only
+ * known once the analyses have run.
+ */
+public class InputHasher {
+    private static final String LAMBDA_MARKER = "$$Lambda$";
+
+    /**
+     * @return Hash of everything shared by the Masks of a cycle, which is known before anything is analyzed
+     */
+    public static String hashInputs(Configuration configuration, RuntimeProfile profile, List<Class<?>> classes) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        putString(hasher, getGeneratorVersion());
+
+        List<Method> methods = new ArrayList<>(Arrays.asList(Configuration.class.getMethods()));
+        methods.sort(Comparator.comparing(Method::getName));
+        for (Method method : methods) {
+            if (method.getParameterCount() != 0 || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            try {
+                putString(hasher, method.getName() + "=" + describe(method.invoke(configuration), new IdentityHashMap<>()));
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new UnsupportedOperationException("Configuration could not be read: " + method.getName(), e);
+            }
+        }
+        putString(hasher, describe(profile, new IdentityHashMap<>()));
+
+        for (Rule rule : configuration.getRules()) {
+            for (Rule constituent : rule.getConstituents()) {
+                putString(hasher, hashStructure(constituent.getAnnotationClass()) + " " + hashStructure(constituent.getEvaluatorClass()));
+            }
+            putString(hasher, hashStructure(rule.getEvaluatorClass()));
+        }
+
+        for (Class<?> clazz : classes) {
+            Class<?> superclass = clazz.getSuperclass();
+            putString(hasher, Modifier.toString(clazz.getModifiers()) + " " + clazz.getName() + " extends " + (superclass == null ? "" : superclass.getName()));
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * @param ruleSpecs Every type generated before the Masks, including the Cloak as it stands before them
+     * @return Hash of the results of the analyses over all the classes, which every Mask of a cycle depends on
+     */
+    public static String hashAnalyses(Configuration configuration, List<Class<?>> classes, List<String> ruleSpecs) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (Rule rule : configuration.getRules()) {
+            for (Class<?> clazz : classes) {
+                if (!IndependenceAnalyzer.isIndependent(rule, clazz)) {
+                    putString(hasher, rule.getName() + " depends " + clazz.getName());
+                }
+            }
+            putString(hasher, describe(PartitionAnalyzer.getPartition(rule), new IdentityHashMap<>()));
+            putString(hasher, describe(PartitionAnalyzer.getProfiles(rule), new IdentityHashMap<>()));
+        }
+        /* Some of them come from unordered Sets in the Configuration */
+        List<String> sortedSpecs = new ArrayList<>(ruleSpecs);
+        Collections.sort(sortedSpecs);
+        sortedSpecs.forEach(spec -> putString(hasher, spec));
+        return hasher.hash().toString();
+    }
+
+    /**
+     * @return Hash of everything the Masks of the class are generated from
+     */
+    public static String hashStructure(Class<?> clazz) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (Class<?> current = clazz; current != null && !Object.class.equals(current); current = current.getSuperclass()) {
+            putString(hasher, Modifier.toString(current.getModifiers()) + " " + current.getName());
+            putString(hasher, describe(current.getDeclaredAnnotations()));
+            putString(hasher, String.valueOf(current.getGenericSuperclass()) + Arrays.toString(current.getGenericInterfaces()));
+
+            List<Field> fields = new ArrayList<>(Arrays.asList(current.getDeclaredFields()));
+            fields.sort(Comparator.comparing(Field::getName));
+            for (Field field : fields) {
+                putString(hasher, field.toGenericString() + describe(field.getDeclaredAnnotations()));
+            }
+
+            List<String> members = new ArrayList<>();
+            for (Method method : current.getDeclaredMethods()) {
+                /* Defaults of annotation members decide what an annotation without them hides */
+                Object defaultValue = method.getDefaultValue();
+                members.add(method.toGenericString() + describe(method.getDeclaredAnnotations())
+                        + (defaultValue == null ? "" : " default " + describe(defaultValue, new IdentityHashMap<>())));
+            }
+            for (Constructor<?> constructor : current.getDeclaredConstructors()) {
+                members.add(constructor.toGenericString() + describe(constructor.getDeclaredAnnotations()));
+            }
+            Collections.sort(members);
+            members.forEach(member -> putString(hasher, member));
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Code generated by a different build of Masquerade can differ for the same inputs
+     */
+    private static String getGeneratorVersion() {
+        CodeSource source = Masquerade.class.getProtectionDomain().getCodeSource();
+        try {
+            if (source != null) {
+                File location = new File(source.getLocation().toURI());
+                if (location.isFile()) {
+                    return Hashing.murmur3_128().hashBytes(Files.readAllBytes(location.toPath())).toString();
+                }
+            }
+        } catch (URISyntaxException | IOException e) {
+            /* Falls back to the declared version */
+        }
+        return String.valueOf(Masquerade.class.getPackage().getImplementationVersion());
+    }
+
+    /**
+     * Annotations print their members in an order which can change between runs
+     */
+    private static String describe(Annotation[] annotations) {
+        List<String> descriptions = new ArrayList<>();
+        for (Annotation annotation : annotations) {
+            descriptions.add(describe(annotation, new IdentityHashMap<>()));
+        }
+        return descriptions.toString();
+    }
+
+    /**
+     * @return A description of the value which does not depend on identity, so that it is the same across builds
+     */
+    private static String describe(Object value, Map<Object, Boolean> visiting) {
+        if (value == null) {
+            return "null";
+        }
+
+        Class<?> clazz = value.getClass();
+        if (value instanceof Class) {
+            return ((Class<?>) value).getName();
+        } else if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        } else if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return clazz.getSimpleName() + ":" + value;
+        } else if (value instanceof Annotation) {
+            Annotation annotation = (Annotation) value;
+            List<Method> members = new ArrayList<>(Arrays.asList(annotation.annotationType().getDeclaredMethods()));
+            members.sort(Comparator.comparing(Method::getName));
+            StringBuilder description = new StringBuilder("@").append(annotation.annotationType().getName()).append("(");
+            for (Method member : members) {
+                member.setAccessible(true);
+                try {
+                    description.append(member.getName()).append("=").append(describe(member.invoke(annotation), visiting)).append(",");
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new UnsupportedOperationException("Annotation could not be read: " + annotation.annotationType().getName(), e);
+                }
+            }
+            return description.append(")").toString();
+        } else if (clazz.getName().contains(LAMBDA_MARKER)) {
+            /* The rest of the name of a lambda class changes between runs */
+            return clazz.getName().substring(0, clazz.getName().indexOf(LAMBDA_MARKER));
+        }
+
+        if (visiting.containsKey(value)) {
+            return "<cycle>";
+        }
+        visiting.put(value, true);
+        try {
+            if (clazz.isArray()) {
+                List<String> elements = new ArrayList<>();
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    elements.add(describe(Array.get(value, i), visiting));
+                }
+                return elements.toString();
+            } else if (value instanceof Map) {
+                List<String> entries = new ArrayList<>();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    entries.add(describe(entry.getKey(), visiting) + "=" + describe(entry.getValue(), visiting));
+                }
+                /* Unordered Maps iterate in an order which can change between runs */
+                if (!(value instanceof SortedMap) && !(value instanceof LinkedHashMap)) {
+                    Collections.sort(entries);
+                }
+                return entries.toString();
+            } else if (value instanceof Collection) {
+                List<String> elements = new ArrayList<>();
+                for (Object element : (Collection<?>) value) {
+                    elements.add(describe(element, visiting));
+                }
+                if (value instanceof Set && !(value instanceof SortedSet) && !(value instanceof LinkedHashSet)) {
+                    Collections.sort(elements);
+                }
+                return elements.toString();
+            } else if (clazz.getName().startsWith("java.")) {
+                return value.toString();
+            }
+
+            StringBuilder description = new StringBuilder(clazz.getName()).append("{");
+            for (Field field : getNonStaticFields(clazz)) {
+                field.setAccessible(true);
+                description.append(field.getName()).append("=").append(describe(field.get(value), visiting)).append(",");
+            }
+            return description.append("}").toString();
+        } catch (IllegalAccessException e) {
+            throw new UnsupportedOperationException("Value could not be read: " + clazz.getName(), e);
+        } finally {
+            visiting.remove(value);
+        }
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        hasher.putString(value, StandardCharsets.UTF_8).putChar('\n');
+    }
+}
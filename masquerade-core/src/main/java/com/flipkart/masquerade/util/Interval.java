@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Closed range of annotation values used with the BETWEEN operator
+ */
+public class Interval {
+    private final Object lower;
+    private final Object upper;
+
+    public Interval(Object lower, Object upper) {
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    public Object getLower() {
+        return lower;
+    }
+
+    public Object getUpper() {
+        return upper;
+    }
+
+    /**
+     * @param intervals Intervals with bounds of the same type
+     * @return Sorted and disjoint intervals which cover exactly the same values, without the empty ones
+     */
+    public static List<Interval> merge(List<Interval> intervals) {
+        List<Interval> sorted = new ArrayList<>();
+        for (Interval interval : intervals) {
+            int comparison = RuleEvaluator.compare(interval.lower, interval.upper);
+            if (comparison == -1 || comparison == 0) {
+                sorted.add(interval);
+            }
+        }
+        sorted.sort((first, second) -> RuleEvaluator.compare(first.lower, second.lower));
+
+        List<Interval> merged = new ArrayList<>();
+        for (Interval interval : sorted) {
+            Interval last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && RuleEvaluator.compare(interval.lower, last.upper) != 1) {
+                Object upper = RuleEvaluator.compare(interval.upper, last.upper) == 1 ? interval.upper : last.upper;
+                merged.set(merged.size() - 1, new Interval(last.lower, upper));
+            } else {
+                merged.add(interval);
+            }
+        }
+        return merged;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Interval interval = (Interval) o;
+        return Objects.equals(lower, interval.lower) && Objects.equals(upper, interval.upper);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lower, upper);
+    }
+}
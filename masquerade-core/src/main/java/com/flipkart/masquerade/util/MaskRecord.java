@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.masquerade.util;
+
+import com.flipkart.masquerade.rule.Rule;
+import com.google.common.hash.HashCode;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * What the aggregates of a cycle need from the Mask of a class for a Rule: its repository entries, the file it was
+ * written to, and every condition, membership test, interval table and visibility mask it registered with the predicates class.
+ * <p />
+ * A later cycle reads the record back from the manifest instead of generating the Mask again when the class is unchanged.
+ * Everything is keyed by its content, so the record does not depend on the other classes or the order they are processed in.
+ */
+public class MaskRecord {
+    private final List<RepositoryEntry> entries = new ArrayList<>();
+    private final Map<String, String> conditions = new LinkedHashMap<>();
+    private final Map<String, Object> memberships = new LinkedHashMap<>();
+    private final Map<String, List<Interval>> intervalTables = new LinkedHashMap<>();
+    private final Map<String, Class<?>> intervalTypes = new LinkedHashMap<>();
+    private final Map<String, List<String>> visibilities = new LinkedHashMap<>();
+    private String file;
+    private HashCode hash;
+
+    public List<RepositoryEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return Every condition keyed by the name of its predicate method
+     */
+    public Map<String, String> getConditions() {
+        return conditions;
+    }
+
+    /**
+     * @return The arrays of every membership test, keyed by its name
+     */
+    public Map<String, Object> getMemberships() {
+        return memberships;
+    }
+
+    public Map<String, List<Interval>> getIntervalTables() {
+        return intervalTables;
+    }
+
+    public Map<String, Class<?>> getIntervalTypes() {
+        return intervalTypes;
+    }
+
+    /**
+     * @return The conditions of every visibility mask, in bit order
+     */
+    public Map<String, List<String>> getVisibilities() {
+        return visibilities;
+    }
+
+    /**
+     * @return Path of the written Mask relative to the destination, or null for a class without one
+     */
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    /**
+     * @return Contribution of the Mask to the schema hash, or null if it is not needed
+     */
+    public HashCode getHash() {
+        return hash;
+    }
+
+    public void setHash(HashCode hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * @return A single line form of the record, for the manifest
+     */
+    public String encode() {
+        List<Object> entryValues = new ArrayList<>();
+        for (RepositoryEntry entry : entries) {
+            entryValues.add(entry.getClazz());
+            entryValues.add(entry.getEntryType());
+        }
+        List<Object> bounds = new ArrayList<>();
+        for (Map.Entry<String, List<Interval>> table : intervalTables.entrySet()) {
+            bounds.add(table.getKey());
+            bounds.add(intervalTypes.get(table.getKey()));
+            bounds.add(table.getValue().size());
+            for (Interval interval : table.getValue()) {
+                bounds.add(interval.getLower());
+                bounds.add(interval.getUpper());
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(file);
+            output.writeObject(hash == null ? null : hash.toString());
+            output.writeObject(entryValues);
+            output.writeObject(conditions);
+            output.writeObject(memberships);
+            output.writeObject(bounds);
+            output.writeObject(visibilities);
+        } catch (IOException e) {
+            throw new UnsupportedOperationException("Mask record could not be written", e);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * @param classLoader Loader of the scanned classes, which resolves the classes and enums referred to by the record
+     * @return The decoded record, or null if it cannot be read, in which case the Mask is generated again
+     */
+    @SuppressWarnings("unchecked")
+    public static MaskRecord decode(String encoded, Rule rule, ClassLoader classLoader) {
+        try (ObjectInputStream input = new LoaderObjectInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(encoded)), classLoader)) {
+            MaskRecord record = new MaskRecord();
+            record.file = (String) input.readObject();
+            String hash = (String) input.readObject();
+            record.hash = hash == null ? null : HashCode.fromString(hash);
+
+            List<Object> entryValues = (List<Object>) input.readObject();
+            for (int i = 0; i < entryValues.size(); i += 2) {
+                record.entries.add(new RepositoryEntry(rule, (Class<?>) entryValues.get(i), (EntryType) entryValues.get(i + 1)));
+            }
+            record.conditions.putAll((Map<String, String>) input.readObject());
+            record.memberships.putAll((Map<String, Object>) input.readObject());
+
+            List<Object> bounds = (List<Object>) input.readObject();
+            for (int i = 0; i < bounds.size(); ) {
+                String key = (String) bounds.get(i++);
+                record.intervalTypes.put(key, (Class<?>) bounds.get(i++));
+                int size = (Integer) bounds.get(i++);
+                List<Interval> table = new ArrayList<>();
+                for (int j = 0; j < size; j++) {
+                    table.add(new Interval(bounds.get(i++), bounds.get(i++)));
+                }
+                record.intervalTables.put(key, table);
+            }
+            record.visibilities.putAll((Map<String, List<String>>) input.readObject());
+            return record;
+        } catch (IOException | ClassNotFoundException | ClassCastException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static class LoaderObjectInputStream extends ObjectInputStream {
+        private final ClassLoader classLoader;
+
+        private LoaderObjectInputStream(InputStream input, ClassLoader classLoader) throws IOException {
+            super(input);
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(description.getName(), false, classLoader);
+            } catch (ClassNotFoundException e) {
+                /* Primitive types */
+                return super.resolveClass(description);
+            }
+        }
+    }
+}
@@ -79,4 +79,13 @@ public class OperationGenerator {
             throw new UnsupportedOperationException("Cannot compare non-comparable types");
         }
     }
+
+    /* The membership test and the accessor are the operands, in that order */
+    public static void processIn(StringBuilder operation, FieldDescriptor descriptor) {
+        operation.append("($L($L))");
+    }
+
+    public static void processNotIn(StringBuilder operation, FieldDescriptor descriptor) {
+        operation.append("(!$L($L))");
+    }
 }
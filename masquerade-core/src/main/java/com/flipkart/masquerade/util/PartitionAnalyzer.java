@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.util;
+
+import com.flipkart.masquerade.Configuration;
+import com.flipkart.masquerade.rule.*;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.*;
+
+import static com.flipkart.masquerade.util.Helper.*;
+
+/**
+ * Finds out, for every Rule, the evaluator partition induced by the annotation values present on the scanned classes.
+ * <p />
+ * A Rule is left without a partition if the key would not fit in a long.
+ */
+public class PartitionAnalyzer {
+    private static final String INCLUSION_ACCESSOR = "isDefaultNonNullInclusion()";
+
+    private static final Map<Rule, EvaluatorPartition> partitions = new HashMap<>();
+    private static final Map<Rule, List<EvaluatorProfile>> profiles = new HashMap<>();
+
+    public static void analyze(Configuration configuration) {
+        partitions.clear();
+        profiles.clear();
+        if (!usesPartitions(configuration)) {
+            return;
+        }
+
+        List<Class<?>> candidates = new ArrayList<>();
+        for (Class<?> clazz : getClasses()) {
+            /* Only classes which get a Mask of their own evaluate any condition */
+            if (!clazz.isEnum() && !clazz.isInterface() && !getClassInformation(clazz).isAbstract() && getClassInformation(clazz).isPublic()) {
+                candidates.add(clazz);
+            }
+        }
+        candidates.sort(Comparator.comparing(Class::getName));
+
+        for (Rule rule : configuration.getRules()) {
+            Verifier.verifyAnnotation(rule);
+
+            Map<String, Set<Object>> values = new LinkedHashMap<>();
+            Set<String> ordered = new HashSet<>();
+            for (Class<?> clazz : candidates) {
+                for (FieldModel model : getClassModel(clazz).getFields()) {
+                    Field field = model.getField();
+                    if (model.isIgnored() || field.getType().isPrimitive()) {
+                        continue;
+                    }
+
+                    for (Rule constituent : rule.getConstituents()) {
+                        for (Annotation annotation : field.getAnnotationsByType(constituent.getAnnotationClass())) {
+                            collectValues(constituent.getValueRule(), constituent.getAnnotationClass(), annotation, values, ordered);
+                        }
+                    }
+                }
+            }
+
+            if (configuration.isNativeSerializationEnabled()) {
+                /* Natively serialized output also depends on the default inclusion of null fields */
+                values.computeIfAbsent(INCLUSION_ACCESSOR, accessor -> new LinkedHashSet<>()).add(true);
+            }
+
+            EvaluatorPartition partition = createPartition(rule, values, ordered);
+            if (partition != null && partition.getBits() <= Long.SIZE) {
+                partitions.put(rule, partition);
+                profiles.put(rule, createProfiles(rule, partition, configuration.hotProfiles()));
+            }
+        }
+    }
+
+    /**
+     * @param rule Current Rule
+     * @return The partition of the Rule, or null if the Rule cannot be partitioned
+     */
+    public static EvaluatorPartition getPartition(Rule rule) {
+        return partitions.get(rule);
+    }
+
+    /**
+     * @param rule Current Rule
+     * @return The hot profiles of the Rule, one for each distinct partition
+     */
+    public static List<EvaluatorProfile> getProfiles(Rule rule) {
+        return profiles.getOrDefault(rule, Collections.emptyList());
+    }
+
+    private static List<EvaluatorProfile> createProfiles(Rule rule, EvaluatorPartition partition, List<Object> evaluators) {
+        List<EvaluatorProfile> ruleProfiles = new ArrayList<>();
+        Set<Long> keys = new HashSet<>();
+        for (Object evaluator : evaluators) {
+            if (!rule.getEvaluatorClass().isInstance(evaluator)) {
+                continue;
+            }
+
+            long key = partition.getPartition(evaluator);
+            if (keys.add(key)) {
+                ruleProfiles.add(new EvaluatorProfile(ruleProfiles.size() + 1, evaluator, key));
+            }
+        }
+        return ruleProfiles;
+    }
+
+    private static void collectValues(CompositeRule compositeRule, Class<? extends Annotation> annotationClass, Annotation annotation, Map<String, Set<Object>> values, Set<String> ordered) {
+        for (ValueRule valueRule : compositeRule.getValueRules()) {
+            if (valueRule instanceof CompositeRule) {
+                collectValues((CompositeRule) valueRule, annotationClass, annotation, values, ordered);
+                continue;
+            }
+
+            BasicRule basicRule = (BasicRule) valueRule;
+            Object value = getAnnotationValue(annotationClass, basicRule, annotation);
+            if (value == null) {
+                continue;
+            }
+
+            Set<Object> accessorValues = values.computeIfAbsent(basicRule.getEvaluatorFunction(), accessor -> new LinkedHashSet<>());
+            if (basicRule.getOperator().isMembership()) {
+                /* Membership only ever tests for equality with the elements */
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    accessorValues.add(Array.get(value, i));
+                }
+                continue;
+            }
+
+            if (basicRule.getOperator().isRange()) {
+                Interval interval = (Interval) value;
+                accessorValues.add(interval.getLower());
+                accessorValues.add(interval.getUpper());
+                ordered.add(basicRule.getEvaluatorFunction());
+                continue;
+            }
+
+            accessorValues.add(value);
+            if (basicRule.getOperator() != Operator.EQUAL && basicRule.getOperator() != Operator.UNEQUAL) {
+                ordered.add(basicRule.getEvaluatorFunction());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EvaluatorPartition createPartition(Rule rule, Map<String, Set<Object>> values, Set<String> ordered) {
+        List<PartitionDimension> dimensions = new ArrayList<>();
+        for (Map.Entry<String, Set<Object>> entry : values.entrySet()) {
+            Class<?> type;
+            try {
+                type = getAccessorType(rule.getEvaluatorClass(), entry.getKey());
+            } catch (NoSuchMethodException | NoSuchFieldException e) {
+                return null;
+            }
+
+            List<Object> dimensionValues = new ArrayList<>(entry.getValue());
+            boolean isOrdered = ordered.contains(entry.getKey());
+            if (isOrdered) {
+                /* The generated comparisons are consistent with the natural ordering of the annotation values */
+                try {
+                    dimensionValues.sort((first, second) -> ((Comparable<Object>) first).compareTo(second));
+                } catch (ClassCastException e) {
+                    return null;
+                }
+            }
+            dimensions.add(new PartitionDimension(entry.getKey(), type, dimensionValues, isOrdered));
+        }
+        return new EvaluatorPartition(dimensions);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.util;
+
+import java.util.List;
+
+/**
+ * One evaluator accessor of a Rule along with every annotation value it is compared against.
+ * <p />
+ * The results of the accessor are split into regions, such that every condition of the Rule
+ * has the same outcome for all the results which fall in the same region.
+ * An ordered dimension has a region for each value, one between each pair of values, one below the
+ * smallest and one above the largest value. An unordered dimension has a region for each value and one for the rest.
+ * Both end with a region for results which cannot be compared and one for null.
+ */
+public class PartitionDimension {
+    private final String accessor;
+    private final Class<?> type;
+    private final List<Object> values;
+    private final boolean ordered;
+
+    /**
+     * @param accessor Evaluator accessor as specified in the BasicRule
+     * @param type Type returned by the accessor
+     * @param values Distinct annotation values, sorted if the dimension is ordered
+     * @param ordered true if any of the BasicRules compares the accessor with an ordering operator
+     */
+    public PartitionDimension(String accessor, Class<?> type, List<Object> values, boolean ordered) {
+        this.accessor = accessor;
+        this.type = type;
+        this.values = values;
+        this.ordered = ordered;
+    }
+
+    public String getAccessor() {
+        return accessor;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public List<Object> getValues() {
+        return values;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    public int getRegions() {
+        return getIncomparableRegion() + 2;
+    }
+
+    public int getIncomparableRegion() {
+        return ordered ? 2 * values.size() + 1 : values.size();
+    }
+
+    public int getNullRegion() {
+        return getIncomparableRegion() + 1;
+    }
+
+    /**
+     * @param actual Result of the accessor for an evaluator object
+     * @return The region in which the result falls, the same as the generated code would compute
+     */
+    public int getRegion(Object actual) {
+        if (actual == null) {
+            return getNullRegion();
+        }
+
+        for (int i = 0; i < values.size(); i++) {
+            int comparison = RuleEvaluator.compare(actual, values.get(i));
+            if (!ordered) {
+                if (RuleEvaluator.isSame(actual, values.get(i))) {
+                    return i;
+                }
+            } else if (comparison == -1) {
+                return 2 * i;
+            } else if (comparison == 0) {
+                return 2 * i + 1;
+            } else if (comparison != 1) {
+                return getIncomparableRegion();
+            }
+        }
+        return ordered ? 2 * values.size() : getIncomparableRegion();
+    }
+
+    /**
+     * @param region A region of the dimension
+     * @return Readable form of the results which fall in the region
+     */
+    public String getRegionName(int region) {
+        if (region == getNullRegion()) {
+            return "null";
+        } else if (region == getIncomparableRegion()) {
+            return ordered ? "?" : "*";
+        } else if (!ordered) {
+            return String.valueOf(values.get(region));
+        } else if (region % 2 == 1) {
+            return String.valueOf(values.get(region / 2));
+        } else if (region == 0) {
+            return "<" + values.get(0);
+        } else if (region == 2 * values.size()) {
+            return ">" + values.get(values.size() - 1);
+        }
+        return "(" + values.get(region / 2 - 1) + "," + values.get(region / 2) + ")";
+    }
+
+    public int getBits() {
+        return Long.SIZE - Long.numberOfLeadingZeros(getRegions() - 1);
+    }
+}
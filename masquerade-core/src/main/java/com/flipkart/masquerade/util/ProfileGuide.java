@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.util;
+
+import com.flipkart.masquerade.rule.Rule;
+import com.squareup.javapoet.CodeBlock;
+
+import java.util.*;
+
+import static com.flipkart.masquerade.util.Helper.getClassInformation;
+import static com.flipkart.masquerade.util.Helper.getClasses;
+
+/**
+ * Answers the questions the generator asks of the runtime profile of the current processing cycle.
+ * <p />
+ * Without a profile, every answer leaves the generated code exactly as it would otherwise be.
+ */
+public class ProfileGuide {
+    /* Beyond a handful of classes a chain of identity checks is no faster than the map lookup */
+    private static final int HOT_CLASS_LIMIT = 8;
+
+    private static RuntimeProfile profile = RuntimeProfile.empty();
+
+    public static void load(RuntimeProfile profile) {
+        ProfileGuide.profile = profile;
+    }
+
+    /**
+     * @param rule Current Rule
+     * @return The scanned classes which most often reach the dispatch site of the Rule, most frequent first
+     */
+    public static List<Class<?>> getHotClasses(Rule rule) {
+        return getFrequentClasses(profile.getClassFrequencies(rule.getName()));
+    }
+
+    /**
+     * @param rule Current Rule
+     * @return Typical output length for the classes most often passed to a top level hide() call, most frequent first
+     */
+    public static Map<Class<?>, Integer> getSizeHints(Rule rule) {
+        Map<String, Integer> sizes = profile.getTypicalSizes(rule.getName());
+        Map<String, Long> frequencies = new HashMap<>();
+        sizes.keySet().forEach(name -> frequencies.put(name, profile.getClassFrequencies(rule.getName()).getOrDefault(name, 0L)));
+
+        Map<Class<?>, Integer> hints = new LinkedHashMap<>();
+        for (Class<?> clazz : getFrequentClasses(frequencies)) {
+            hints.put(clazz, sizes.get(clazz.getName()));
+        }
+        return hints;
+    }
+
+    /**
+     * @param rule Current Rule
+     * @param conditions Conditions which are joined with ||
+     * @return The conditions ordered from the most to the least likely to be true, so that evaluation stops early.
+     * Conditions missing from the profile keep their relative order, after the others.
+     */
+    public static List<CodeBlock> orderBySelectivity(Rule rule, List<CodeBlock> conditions) {
+        List<CodeBlock> ordered = new ArrayList<>(conditions);
+        ordered.sort(Comparator.comparingDouble(condition -> {
+            Double selectivity = profile.getSelectivity(rule.getName(), RuntimeProfile.getSignature(condition));
+            return selectivity == null ? 1 : -selectivity;
+        }));
+        return ordered;
+    }
+
+    private static List<Class<?>> getFrequentClasses(Map<String, Long> frequencies) {
+        Map<String, Class<?>> candidates = new HashMap<>();
+        for (Class<?> clazz : getClasses()) {
+            if (!clazz.isEnum() && !clazz.isInterface() && getClassInformation(clazz).isPublic() && frequencies.containsKey(clazz.getName())) {
+                candidates.put(clazz.getName(), clazz);
+            }
+        }
+
+        List<Class<?>> classes = new ArrayList<>(candidates.values());
+        classes.sort(Comparator.<Class<?>>comparingLong(clazz -> -frequencies.get(clazz.getName())).thenComparing(Class::getName));
+        return classes.subList(0, Math.min(HOT_CLASS_LIMIT, classes.size()));
+    }
+}
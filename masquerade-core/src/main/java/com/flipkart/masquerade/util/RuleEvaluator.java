@@ -0,0 +1,301 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.util;
+
+import com.flipkart.masquerade.rule.*;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import static com.flipkart.masquerade.util.Helper.getAnnotationValue;
+import static com.flipkart.masquerade.util.Helper.getFieldDescriptor;
+
+/**
+ * Evaluates the annotation conditions of a Rule at build time.
+ * <p />
+ * Outcomes are three valued, a null outcome means that the condition can only be resolved at runtime.
+ * Conditions are combined exactly as the generated code combines them.
+ */
+public class RuleEvaluator {
+    private static final int INCOMPARABLE = 2;
+
+    /**
+     * @param rule Current Rule
+     * @param annotations All the annotations of the Rule present on a field
+     * @param resolver Resolves the outcome of a BasicRule for an annotation value, or null if it is not known
+     * @return true if the field is always hidden, false if it never is and null if it is not known
+     */
+    public static Boolean evaluate(Rule rule, Annotation[] annotations, BiFunction<BasicRule, Object, Boolean> resolver) {
+        Boolean outcome = false;
+        for (Annotation annotation : annotations) {
+            outcome = or(outcome, evaluate(rule, annotation, resolver));
+        }
+        return outcome;
+    }
+
+    /**
+     * @param rule Current Rule
+     * @param field A field of a scanned class
+     * @param resolver Resolves the outcome of a BasicRule for an annotation value, or null if it is not known
+     * @return true if the field is always hidden by any constituent of the Rule, false if it never is and null if it is not known
+     */
+    public static Boolean evaluate(Rule rule, Field field, BiFunction<BasicRule, Object, Boolean> resolver) {
+        Boolean outcome = false;
+        for (Rule constituent : rule.getConstituents()) {
+            outcome = or(outcome, evaluate(constituent, field.getAnnotationsByType(constituent.getAnnotationClass()), resolver));
+        }
+        return outcome;
+    }
+
+    private static Boolean evaluate(Rule rule, Annotation annotation, BiFunction<BasicRule, Object, Boolean> resolver) {
+        CompositeRule baseRule = rule.getValueRule();
+        if (isIgnored(baseRule, rule.getAnnotationClass(), annotation)) {
+            /* Every member was ignored, which leaves the identity of the conjunction */
+            return baseRule.getConjunction() == Conjunction.AND;
+        }
+        return evaluate(baseRule, rule.getAnnotationClass(), annotation, resolver);
+    }
+
+    private static Boolean evaluate(CompositeRule compositeRule, Class<? extends Annotation> annotationClass, Annotation annotation, BiFunction<BasicRule, Object, Boolean> resolver) {
+        Boolean outcome = null;
+        boolean first = true;
+        for (ValueRule valueRule : compositeRule.getValueRules()) {
+            Boolean valueOutcome;
+            if (valueRule instanceof CompositeRule) {
+                CompositeRule innerRule = (CompositeRule) valueRule;
+                if (isIgnored(innerRule, annotationClass, annotation)) {
+                    continue;
+                }
+                valueOutcome = evaluate(innerRule, annotationClass, annotation, resolver);
+            } else {
+                BasicRule basicRule = (BasicRule) valueRule;
+                Object value = getAnnotationValue(annotationClass, basicRule, annotation);
+                if (value == null) {
+                    continue;
+                }
+                valueOutcome = resolver.apply(basicRule, value);
+            }
+
+            if (first) {
+                outcome = valueOutcome;
+                first = false;
+            } else {
+                outcome = compositeRule.getConjunction() == Conjunction.AND ? and(outcome, valueOutcome) : or(outcome, valueOutcome);
+            }
+        }
+        return outcome;
+    }
+
+    private static boolean isIgnored(CompositeRule compositeRule, Class<? extends Annotation> annotationClass, Annotation annotation) {
+        for (ValueRule valueRule : compositeRule.getValueRules()) {
+            if (valueRule instanceof CompositeRule) {
+                if (!isIgnored((CompositeRule) valueRule, annotationClass, annotation)) {
+                    return false;
+                }
+            } else if (getAnnotationValue(annotationClass, (BasicRule) valueRule, annotation) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param operator Operator of the BasicRule
+     * @param actual Result of the evaluator accessor
+     * @param value Annotation value
+     * @return Outcome of the comparison, the same as the generated code would compute,
+     * or null if the generated code would dereference the null result of the accessor
+     */
+    public static Boolean compare(Operator operator, Object actual, Object value) {
+        if (operator.isMembership()) {
+            return contains(operator, actual, value);
+        }
+
+        if (operator.isRange()) {
+            Interval interval = (Interval) value;
+            if (actual == null) {
+                return null;
+            }
+            int lower = compare(actual, interval.getLower());
+            int upper = compare(actual, interval.getUpper());
+            return (lower == 1 || lower == 0) && (upper == -1 || upper == 0);
+        }
+
+        if (actual == null) {
+            FieldDescriptor descriptor = getFieldDescriptor(value);
+            if (descriptor.isEnumeration() && (operator == Operator.EQUAL || operator == Operator.UNEQUAL)) {
+                return operator == Operator.UNEQUAL;
+            }
+            /* Left for the runtime, which fails exactly like the generic Masks do */
+            return null;
+        }
+
+        int comparison = compare(actual, value);
+        switch (operator) {
+            case EQUAL:
+                return comparison == 0;
+            case UNEQUAL:
+                return comparison != 0;
+            case GREATER:
+                return comparison == 1;
+            case GREATER_EQUAL:
+                return comparison == 1 || comparison == 0;
+            case LESSER:
+                return comparison == -1;
+            case LESSER_EQUAL:
+                return comparison == -1 || comparison == 0;
+            default:
+                throw new UnsupportedOperationException("Unknown operator " + operator);
+        }
+    }
+
+    /**
+     * @param domain Declared domain of the evaluator accessors
+     * @param basicRule Current BasicRule
+     * @param value Annotation value
+     * @return The outcome of the BasicRule if it is the same for every value in the domain of the accessor, null otherwise
+     */
+    public static Boolean resolve(Map<String, Interval> domain, BasicRule basicRule, Object value) {
+        Interval range = domain.get(basicRule.getEvaluatorFunction());
+        if (range == null) {
+            return null;
+        }
+
+        Object lower = range.getLower();
+        Object upper = range.getUpper();
+        switch (basicRule.getOperator()) {
+            case EQUAL:
+                return isEqual(range, value);
+            case UNEQUAL:
+                return not(isEqual(range, value));
+            case LESSER:
+                return outcome(compare(upper, value) == -1, isAtLeast(lower, value));
+            case LESSER_EQUAL:
+                return outcome(isAtMost(upper, value), compare(lower, value) == 1);
+            case GREATER:
+                return outcome(compare(lower, value) == 1, isAtMost(upper, value));
+            case GREATER_EQUAL:
+                return outcome(isAtLeast(lower, value), compare(upper, value) == -1);
+            case IN:
+                return isMember(range, value);
+            case NOT_IN:
+                return not(isMember(range, value));
+            case BETWEEN:
+                Interval bounds = (Interval) value;
+                return outcome(isAtLeast(lower, bounds.getLower()) && isAtMost(upper, bounds.getUpper()),
+                        compare(bounds.getLower(), bounds.getUpper()) == 1 || compare(bounds.getUpper(), lower) == -1 || compare(bounds.getLower(), upper) == 1);
+            default:
+                return null;
+        }
+    }
+
+    private static Boolean isEqual(Interval range, Object value) {
+        if (isOutside(range, value)) {
+            return false;
+        }
+        return compare(range.getLower(), value) == 0 && compare(range.getUpper(), value) == 0 ? true : null;
+    }
+
+    private static Boolean isMember(Interval range, Object values) {
+        Boolean outcome = false;
+        for (int i = 0; i < Array.getLength(values); i++) {
+            outcome = or(outcome, isEqual(range, Array.get(values, i)));
+        }
+        return outcome;
+    }
+
+    private static boolean isOutside(Interval range, Object value) {
+        return compare(value, range.getLower()) == -1 || compare(value, range.getUpper()) == 1;
+    }
+
+    private static boolean isAtLeast(Object first, Object second) {
+        int comparison = compare(first, second);
+        return comparison == 1 || comparison == 0;
+    }
+
+    private static boolean isAtMost(Object first, Object second) {
+        int comparison = compare(first, second);
+        return comparison == -1 || comparison == 0;
+    }
+
+    private static Boolean outcome(boolean always, boolean never) {
+        return always ? Boolean.TRUE : never ? Boolean.FALSE : null;
+    }
+
+    private static Boolean not(Boolean outcome) {
+        return outcome == null ? null : !outcome;
+    }
+
+    private static Boolean contains(Operator operator, Object actual, Object values) {
+        if (actual == null) {
+            /* Only an EnumSet accepts a null value */
+            return values.getClass().getComponentType().isEnum() ? operator == Operator.NOT_IN : null;
+        }
+
+        for (int i = 0; i < Array.getLength(values); i++) {
+            if (isSame(actual, Array.get(values, i))) {
+                return operator == Operator.IN;
+            }
+        }
+        return operator == Operator.NOT_IN;
+    }
+
+    /**
+     * Equality as tested by the generated membership and partition code, where NaN is the same as NaN
+     */
+    static boolean isSame(Object actual, Object value) {
+        if (actual instanceof Double || actual instanceof Float) {
+            return Double.compare(((Number) actual).doubleValue(), ((Number) value).doubleValue()) == 0;
+        }
+        return compare(actual, value) == 0;
+    }
+
+    /**
+     * @return -1, 0 or 1 as the actual value is less than, equal to or greater than the annotation value,
+     * or a different value if the two cannot be compared, like NaN
+     */
+    @SuppressWarnings("unchecked")
+    static int compare(Object actual, Object value) {
+        if (actual instanceof Double || actual instanceof Float) {
+            double first = ((Number) actual).doubleValue();
+            double second = ((Number) value).doubleValue();
+            return first < second ? -1 : first == second ? 0 : first > second ? 1 : INCOMPARABLE;
+        }
+
+        if (!(actual instanceof Comparable)) {
+            return actual.equals(value) ? 0 : INCOMPARABLE;
+        }
+        return Integer.signum(((Comparable<Object>) actual).compareTo(value));
+    }
+
+    public static Boolean and(Boolean first, Boolean second) {
+        if (Boolean.FALSE.equals(first) || Boolean.FALSE.equals(second)) {
+            return false;
+        }
+        return first == null || second == null ? null : true;
+    }
+
+    public static Boolean or(Boolean first, Boolean second) {
+        if (Boolean.TRUE.equals(first) || Boolean.TRUE.equals(second)) {
+            return true;
+        }
+        return first == null || second == null ? null : false;
+    }
+}
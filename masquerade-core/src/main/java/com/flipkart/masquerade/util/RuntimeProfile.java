@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.util;
+
+import com.flipkart.masquerade.runtime.ProfileRecorder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A runtime profile written by the ProfileRecorder of one or more generated Cloaks, read back at build time
+ */
+public class RuntimeProfile {
+    private final Map<String, Map<String, Long>> classes = new HashMap<>();
+    private final Map<String, Map<Integer, long[]>> conditions = new HashMap<>();
+    private final Map<String, Map<String, long[]>> sizes = new HashMap<>();
+
+    public static RuntimeProfile empty() {
+        return new RuntimeProfile();
+    }
+
+    public static RuntimeProfile read(File file) throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    public static RuntimeProfile read(Reader reader) throws IOException {
+        RuntimeProfile profile = new RuntimeProfile();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] parts = line.split(" ");
+            try {
+                if (ProfileRecorder.CLASS_ENTRY.equals(parts[0])) {
+                    profile.classes.computeIfAbsent(parts[1], rule -> new HashMap<>()).merge(parts[2], Long.parseLong(parts[3]), Long::sum);
+                } else if (ProfileRecorder.CONDITION_ENTRY.equals(parts[0])) {
+                    profile.conditions.computeIfAbsent(parts[1], rule -> new HashMap<>())
+                            .merge(Integer.parseInt(parts[2]), new long[] { Long.parseLong(parts[3]), Long.parseLong(parts[4]) }, RuntimeProfile::add);
+                } else if (ProfileRecorder.SIZE_ENTRY.equals(parts[0])) {
+                    profile.sizes.computeIfAbsent(parts[1], rule -> new HashMap<>())
+                            .merge(parts[2], new long[] { Long.parseLong(parts[3]), Long.parseLong(parts[4]) }, RuntimeProfile::add);
+                } else {
+                    throw new UnsupportedOperationException("Unknown profile entry: " + line);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new UnsupportedOperationException("Malformed profile entry: " + line);
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * @param rule Name of the Rule
+     * @return Number of times every class reached the dispatch site, keyed by class name
+     */
+    public Map<String, Long> getClassFrequencies(String rule) {
+        return classes.getOrDefault(rule, new HashMap<>());
+    }
+
+    /**
+     * @param rule Name of the Rule
+     * @param signature Signature of the condition
+     * @return The fraction of evaluations in which the condition was true, or null if it was never evaluated
+     */
+    public Double getSelectivity(String rule, int signature) {
+        long[] counts = conditions.getOrDefault(rule, new HashMap<>()).get(signature);
+        return counts == null || counts[0] == 0 ? null : (double) counts[1] / counts[0];
+    }
+
+    /**
+     * @param rule Name of the Rule
+     * @return Average output length for every class passed to a top level hide() call, keyed by class name
+     */
+    public Map<String, Integer> getTypicalSizes(String rule) {
+        Map<String, Integer> typicalSizes = new HashMap<>();
+        sizes.getOrDefault(rule, new HashMap<>()).forEach((clazz, counts) -> typicalSizes.put(clazz, (int) Math.min(Integer.MAX_VALUE, counts[1] / counts[0])));
+        return typicalSizes;
+    }
+
+    /**
+     * @return Signature of a condition as recorded at runtime
+     */
+    public static int getSignature(Object condition) {
+        return condition.toString().hashCode();
+    }
+
+    private static long[] add(long[] first, long[] second) {
+        return new long[] { first[0] + second[0], first[1] + second[1] };
+    }
+}
@@ -26,6 +26,15 @@ public class Strings {
 
     public static final String ENTRY_CLASS = "Cloak";
     public static final String ENTRY_METHOD = "hide";
+    public static final String COALESCE_METHOD = "hideCoalesced";
+    public static final String FAN_OUT_METHOD = "hideAll";
+    public static final String COPY_ENTRY_METHOD = "copyMasked";
+    public static final String UNDO_ENTRY_METHOD = "hideReversibly";
+    public static final String UNDO_LOG_PARAMETER = "undoLog";
+    public static final String COPY_METHOD = "copy";
+    public static final String MODULE_METHOD = "jacksonModule";
+    public static final String WRITER_METHOD = "writer";
+    public static final String WRITER_PARAMETER = "writer";
     public static final String SET_CLASS = "Trunk";
 
     public static final String INTERFACE_METHOD = INTERFACE_SUFFIX.toLowerCase();
@@ -35,6 +44,57 @@ public class Strings {
     public static final String SET_PARAMETER = SET_CLASS.toLowerCase();
 
     public static final String SERIALIZED_OBJECT = "serialized";
+    public static final String CONTEXT_PARAMETER = "context";
+    public static final String EVALS_PARAMETER = "evals";
+    public static final String OUTPUTS_PARAMETER = "outputs";
+    public static final String CONTEXTS_PARAMETER = "contexts";
+    public static final String VALUE_PARAMETER = "value";
+
+    public static final String PREDICATES_SUFFIX = "Predicates";
+    public static final String PREDICATE_METHOD = "predicate";
+    public static final String PREDICATE_COUNT = "COUNT";
+
+    public static final String PARTITION_METHOD = "partition";
+    public static final String PROFILE_METHOD = "profile";
+    public static final String MEMBERS_FIELD = "MEMBERS";
+    public static final String MEMBERS_METHOD = "members";
+    public static final String LOWERS_FIELD = "LOWERS";
+    public static final String UPPERS_FIELD = "UPPERS";
+    public static final String INTERVALS_METHOD = "intervals";
+    public static final String RECORDER_FIELD = "RECORDER";
+    public static final String OUTCOME_VARIABLE = "outcome";
+    public static final String HOT_MASK_PREFIX = "hot";
+    public static final String SIZE_HINT_METHOD = "sizeHint";
+    public static final String DESCRIBE_METHOD = "describe";
+    public static final String DESCRIBE_PARTITION_METHOD = "describePartition";
+    public static final String REGIONS_FIELD = "REGIONS";
+    public static final String PARTITION_VARIABLE = "partition";
+    public static final String PARTITIONS_VARIABLE = "partitions";
+    public static final String FAN_OUT_MASK_METHOD = "maskAll";
+    public static final String GROUP_METHOD = "maskGroup";
+    public static final String GROUP_VARIABLE = "group";
+    public static final String GROUPS_VARIABLE = "groups";
+    public static final String KEYS_VARIABLE = "keys";
+    public static final String MARK_VARIABLE = "mark";
+    public static final String REPRESENTATIVES_VARIABLE = "representatives";
+    public static final String KEY_VARIABLE = "key";
+    public static final String FRAGMENT_VARIABLE = "fragment";
+    public static final String START_VARIABLE = "start";
+    public static final String COMPUTE_METHOD = "compute";
+    public static final String TRAVERSE_METHOD = "traverse";
+    public static final String COPY_VARIABLE = "copy";
+    public static final String EXISTING_VARIABLE = "existing";
+    public static final String ELEMENT_VARIABLE = "element";
+    public static final String SCHEMA_HASH_METHOD = "schemaHash";
+    public static final String HIDEABLE_FIELDS = "HIDEABLE_FIELDS";
+    public static final String HIDEABLE_METHOD = "hideableFields";
+    public static final String HIDDEN_METHOD = "isHidden";
+    public static final String FIELD_PARAMETER = "field";
+    public static final String EVALUATOR_PARAMETER = "evaluator";
+    public static final String REGION_VARIABLE = "region";
+    public static final String VISIBILITY_METHOD = "visibility";
+    public static final String VISIBILITY_VARIABLE = "visibility";
+    public static final String VISIBILITY_COUNT = "VISIBILITY_COUNT";
 
     public static final String QUOTES = "\"";
     public static final String NULL_STRING = "_null";
@@ -37,4 +37,11 @@ public class TypeSpecContainer {
     public TypeSpec getSpec() {
         return spec;
     }
+
+    /**
+     * @return Path of the generated file, relative to the destination
+     */
+    public String getRelativePath() {
+        return packagePath.replace('.', '/') + "/" + spec.name + ".java";
+    }
 }
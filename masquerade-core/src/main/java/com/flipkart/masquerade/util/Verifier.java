@@ -20,11 +20,13 @@ import com.flipkart.masquerade.rule.BasicRule;
 import com.flipkart.masquerade.rule.CompositeRule;
 import com.flipkart.masquerade.rule.Rule;
 import com.flipkart.masquerade.rule.ValueRule;
+import com.google.common.primitives.Primitives;
 
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.flipkart.masquerade.util.Helper.getAccessorType;
 import static com.flipkart.masquerade.util.Helper.getWrapperTypes;
 
 /**
@@ -32,37 +34,39 @@ import static com.flipkart.masquerade.util.Helper.getWrapperTypes;
  */
 public class Verifier {
     public static void verifyEvaluationObject(Rule rule) {
-        Class<?> evaluatorClass = rule.getEvaluatorClass();
-        List<String> accessors = new ArrayList<>();
-        getAccessors(rule.getValueRule(), accessors);
-        for (String accessor : accessors) {
-            try {
-                if (accessor.endsWith("()")) {
-                    evaluatorClass.getMethod(accessor.substring(0, accessor.length() - 2));
-                } else {
-                    evaluatorClass.getField(accessor);
+        for (Rule constituent : rule.getConstituents()) {
+            Class<?> evaluatorClass = constituent.getEvaluatorClass();
+            List<String> accessors = new ArrayList<>();
+            getAccessors(constituent.getValueRule(), accessors);
+            for (String accessor : accessors) {
+                try {
+                    getAccessorType(evaluatorClass, accessor);
+                } catch (NoSuchMethodException | NoSuchFieldException e) {
+                    throw new UnsupportedOperationException("Please specify a PUBLIC method or field for evaluator accessor");
                 }
-            } catch (NoSuchMethodException | NoSuchFieldException e) {
-                throw new UnsupportedOperationException("Please specify a PUBLIC method or field for evaluator accessor");
             }
         }
     }
 
     public static void verifyAnnotation(Rule rule) {
-        Class<? extends Annotation> annotationClass = rule.getAnnotationClass();
-        List<String> members = new ArrayList<>();
-        getMembers(rule.getValueRule(), members);
-        for (String member : members) {
-            try {
-                annotationClass.getDeclaredMethod(member);
-            } catch (NoSuchMethodException e) {
-                throw new UnsupportedOperationException("Please specify a method that belongs to the Annotation");
+        for (Rule constituent : rule.getConstituents()) {
+            Class<? extends Annotation> annotationClass = constituent.getAnnotationClass();
+            List<String> members = new ArrayList<>();
+            getMembers(constituent.getValueRule(), members);
+            for (String member : members) {
+                try {
+                    annotationClass.getDeclaredMethod(member);
+                } catch (NoSuchMethodException e) {
+                    throw new UnsupportedOperationException("Please specify a method that belongs to the Annotation");
+                }
             }
         }
     }
 
     public static void verifyTypes(Rule rule) {
-        verifyValueRuleTypes(rule.getValueRule(), rule);
+        for (Rule constituent : rule.getConstituents()) {
+            verifyValueRuleTypes(constituent.getValueRule(), constituent);
+        }
     }
 
     private static void verifyValueRuleTypes(ValueRule valueRule, Rule rule) {
@@ -76,15 +80,22 @@ public class Verifier {
             Class<? extends Annotation> annotationClass = rule.getAnnotationClass();
 
             try {
-                Class<?> evaluatorReturnType;
-                String accessor = basicRule.getEvaluatorFunction();
-                if (accessor.endsWith("()")) {
-                    evaluatorReturnType = evaluatorClass.getMethod(accessor.substring(0, accessor.length() - 2)).getReturnType();
-                } else {
-                    evaluatorReturnType = evaluatorClass.getField(accessor).getType();
-                }
+                Class<?> evaluatorReturnType = getAccessorType(evaluatorClass, basicRule.getEvaluatorFunction());
 
                 Class<?> annotationMemberReturnType = annotationClass.getDeclaredMethod(basicRule.getAnnotationMember()).getReturnType();
+                if (basicRule.getOperator().isMembership()) {
+                    if (!annotationMemberReturnType.isArray()) {
+                        throw new UnsupportedOperationException("Membership operators need an array Annotation member");
+                    }
+                    annotationMemberReturnType = annotationMemberReturnType.getComponentType();
+                }
+
+                if (basicRule.getOperator().isRange()) {
+                    Class<?> upperMemberReturnType = annotationClass.getDeclaredMethod(basicRule.getUpperAnnotationMember()).getReturnType();
+                    if (!upperMemberReturnType.equals(annotationMemberReturnType) || !Comparable.class.isAssignableFrom(Primitives.wrap(annotationMemberReturnType))) {
+                        throw new UnsupportedOperationException("Range bounds should be comparable and of the same type");
+                    }
+                }
 
                 if (!evaluatorReturnType.getName().equals(annotationMemberReturnType.getName())) {
                     throw new UnsupportedOperationException("Accessors and Annotation members should be compatible");
@@ -103,6 +114,9 @@ public class Verifier {
         } else {
             BasicRule basicRule = (BasicRule) valueRule;
             members.add(basicRule.getAnnotationMember());
+            if (basicRule.getOperator().isRange()) {
+                members.add(basicRule.getUpperAnnotationMember());
+            }
         }
     }
 
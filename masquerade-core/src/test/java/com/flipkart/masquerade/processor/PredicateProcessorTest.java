@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.processor;
+
+import com.flipkart.masquerade.Configuration;
+import com.flipkart.masquerade.rule.Rule;
+import com.flipkart.masquerade.test.ConfigurationExtension;
+import com.flipkart.masquerade.test.annotation.ConfigProvider;
+import com.flipkart.masquerade.util.MaskRecord;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.TypeSpec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(ConfigurationExtension.class)
+public class PredicateProcessorTest {
+
+    @Test
+    public void registerDistinctConditions(@ConfigProvider Configuration configuration) {
+        PredicateProcessor processor = new PredicateProcessor(configuration);
+        Rule rule = new ArrayList<>(configuration.getRules()).get(0);
+        MaskRecord record = new MaskRecord();
+
+        CodeBlock first = processor.register(rule, record, CodeBlock.of("eval.getVersion() < $L", 9));
+        CodeBlock second = processor.register(rule, record, CodeBlock.of("eval.getVersion() > $L", 4));
+        CodeBlock repeated = processor.register(rule, record, CodeBlock.of("eval.getVersion() < $L", 9));
+
+        assertEquals(first, repeated, "Same condition should map to the same predicate");
+        assertNotEquals(first, second, "Different conditions should map to different predicates");
+
+        List<TypeSpec> specs = generate(processor, rule, record);
+        assertEquals(configuration.getRules().size(), specs.size(), "One predicates class per Rule");
+        assertEquals("2", specs.get(0).fieldSpecs.get(0).initializer.toString(), "Only distinct conditions should be counted");
+        /* Private constructor and one method per distinct condition */
+        assertEquals(3, specs.get(0).methodSpecs.size());
+    }
+
+    @Test
+    public void keepNamesAcrossClasses(@ConfigProvider Configuration configuration) {
+        Rule rule = new ArrayList<>(configuration.getRules()).get(0);
+        PredicateProcessor processor = new PredicateProcessor(configuration);
+        MaskRecord record = new MaskRecord();
+        CodeBlock first = processor.register(rule, record, CodeBlock.of("eval.getVersion() < $L", 9));
+
+        /* Another class registering other conditions first, in a later cycle */
+        PredicateProcessor later = new PredicateProcessor(configuration);
+        MaskRecord other = new MaskRecord();
+        later.register(rule, other, CodeBlock.of("eval.getVersion() > $L", 4));
+        CodeBlock repeated = later.register(rule, other, CodeBlock.of("eval.getVersion() < $L", 9));
+
+        assertEquals(first, repeated, "The name of a predicate should only depend on its condition");
+        assertEquals(record.getConditions().keySet(), Collections.singleton(first.toString().replaceAll(".*predicate(\\w+)\\(.*", "$1")));
+    }
+
+    @Test
+    public void registerMemberships(@ConfigProvider Configuration configuration) {
+        PredicateProcessor processor = new PredicateProcessor(configuration);
+        Rule rule = new ArrayList<>(configuration.getRules()).get(0);
+        MaskRecord record = new MaskRecord();
+
+        CodeBlock units = processor.register(rule, record, CodeBlock.of("$L($L)", processor.registerMembership(rule, record, new DayOfWeek[] { DayOfWeek.MONDAY, DayOfWeek.FRIDAY }), "eval.day"));
+        CodeBlock names = processor.register(rule, record, CodeBlock.of("$L($L)", processor.registerMembership(rule, record, new String[] { "a", "b" }), "eval.getName()"));
+        CodeBlock repeated = processor.register(rule, record, CodeBlock.of("$L($L)", processor.registerMembership(rule, record, new String[] { "a", "b" }), "eval.getName()"));
+
+        assertEquals(names, repeated, "Equal arrays should map to the same membership test");
+        assertNotEquals(units, names);
+
+        TypeSpec spec = generate(processor, rule, record).get(0);
+        String generated = spec.toString();
+        assertTrue(generated.contains("EnumSet.of(java.time.DayOfWeek.MONDAY, java.time.DayOfWeek.FRIDAY)"), generated);
+        assertTrue(generated.contains("case \"b\":"), generated);
+    }
+
+    @Test
+    public void renderTypedMemberships(@ConfigProvider Configuration configuration) {
+        PredicateProcessor processor = new PredicateProcessor(configuration);
+        Rule rule = new ArrayList<>(configuration.getRules()).get(0);
+        MaskRecord record = new MaskRecord();
+
+        processor.register(rule, record, CodeBlock.of("$L($L)", processor.registerMembership(rule, record, new long[] { 3000000000L }), "eval.getAccount()"));
+        processor.register(rule, record, CodeBlock.of("$L($L)", processor.registerMembership(rule, record, new float[] { 0.5f, Float.NaN, Float.NEGATIVE_INFINITY }), "eval.getRating()"));
+        processor.register(rule, record, CodeBlock.of("$L($L)", processor.registerMembership(rule, record, new Class<?>[] { String.class, int[].class }), "eval.getType()"));
+
+        String generated = generate(processor, rule, record).get(0).toString();
+        assertTrue(generated.contains("(value == 3000000000L)"), generated);
+        assertTrue(generated.contains("java.lang.Float.compare(value, 0.5f) == 0"), generated);
+        assertTrue(generated.contains("java.lang.Float.compare(value, java.lang.Float.NaN) == 0"), generated);
+        assertTrue(generated.contains("java.lang.Float.NEGATIVE_INFINITY"), generated);
+        assertTrue(generated.contains("value == java.lang.String.class || value == int[].class"), generated);
+    }
+
+    @Test
+    public void rejectUnsupportedMemberships(@ConfigProvider Configuration configuration) {
+        PredicateProcessor processor = new PredicateProcessor(configuration);
+        Rule rule = new ArrayList<>(configuration.getRules()).get(0);
+        MaskRecord record = new MaskRecord();
+
+        processor.register(rule, record, CodeBlock.of("$L($L)", processor.registerMembership(rule, record, new Object[] { new Object() }), "eval.getValue()"));
+        assertThrows(UnsupportedOperationException.class, () -> generate(processor, rule, record));
+    }
+
+    private static List<TypeSpec> generate(PredicateProcessor processor, Rule rule, MaskRecord record) {
+        return processor.generatePredicates(Collections.singletonMap(rule, Collections.singletonList(record)));
+    }
+}
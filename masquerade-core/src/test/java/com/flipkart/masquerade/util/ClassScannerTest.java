@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClassScannerTest {
+
+    @Test
+    public void scanDirectory() throws IOException {
+        Map<String, ClassFile> classFiles = scan("com.flipkart.masquerade.test");
+
+        ClassFile evaluator = classFiles.get("com.flipkart.masquerade.test.Evaluator");
+        assertNotNull(evaluator, "Classes in the package should be found");
+        assertTrue(evaluator.isPublic());
+        assertFalse(evaluator.isAbstract());
+        assertFalse(evaluator.isInterface());
+        assertEquals(Object.class.getName(), evaluator.getSuperclassName());
+
+        ClassFile provider = classFiles.get("com.flipkart.masquerade.test.annotation.ConfigProvider");
+        assertNotNull(provider, "Classes in sub-packages should be found");
+        assertTrue(provider.isInterface());
+        assertTrue(provider.isAbstract());
+
+        assertTrue(classFiles.keySet().stream().allMatch(name -> name.startsWith("com.flipkart.masquerade.test.")), "Only the package should be scanned");
+        assertTrue(classFiles.keySet().stream().noneMatch(name -> name.contains("$")), "Nested classes should be skipped");
+    }
+
+    @Test
+    public void scanJar() throws IOException {
+        Map<String, ClassFile> classFiles = scan("org.junit.jupiter.api");
+
+        ClassFile test = classFiles.get(Test.class.getName());
+        assertNotNull(test, "Classes in jars should be found");
+        assertTrue(test.isInterface());
+        assertTrue(classFiles.keySet().stream().allMatch(name -> name.startsWith("org.junit.jupiter.api.")), "Only the package should be scanned");
+    }
+
+    @Test
+    public void scanMultiplePackages() throws IOException {
+        Map<String, ClassFile> classFiles = ClassScanner.scan(getClass().getClassLoader(), Arrays.asList("com.flipkart.masquerade.test", "com.flipkart.masquerade.test.annotation")).stream()
+                .collect(Collectors.toMap(ClassFile::getName, Function.identity()));
+
+        assertEquals(scan("com.flipkart.masquerade.test").keySet(), classFiles.keySet(), "Overlapping packages should not duplicate classes");
+    }
+
+    private Map<String, ClassFile> scan(String basePackage) throws IOException {
+        return ClassScanner.scan(getClass().getClassLoader(), Collections.singletonList(basePackage)).stream()
+                .collect(Collectors.toMap(ClassFile::getName, Function.identity()));
+    }
+}
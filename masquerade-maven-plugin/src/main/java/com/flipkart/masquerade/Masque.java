@@ -16,6 +16,7 @@
 
 package com.flipkart.masquerade;
 
+import com.flipkart.masquerade.util.RuntimeProfile;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -52,6 +53,12 @@ public class Masque extends AbstractMojo {
     @Parameter
     private File targetFile;
 
+    /**
+     * Runtime profile recorded by an earlier build of the Cloak, used to guide the generated code
+     */
+    @Parameter
+    private File profileFile;
+
     @Parameter(defaultValue = "${project}", required = true, readonly = true)
     private MavenProject project;
 
@@ -73,8 +80,18 @@ public class Masque extends AbstractMojo {
             throw new MojoExecutionException("Wrong configuration class", e);
         }
 
+        RuntimeProfile profile = RuntimeProfile.empty();
+        if (profileFile != null) {
+            try {
+                profile = RuntimeProfile.read(profileFile);
+                getLog().info("Using runtime profile from " + profileFile.getPath());
+            } catch (Exception e) {
+                throw new MojoExecutionException("Unreadable profile file", e);
+            }
+        }
+
         try {
-            Masquerade.initialize(configuration, Thread.currentThread().getContextClassLoader(), targetFile);
+            Masquerade.initialize(configuration, Thread.currentThread().getContextClassLoader(), targetFile, profile);
         } catch (Exception e) {
             throw new MojoExecutionException("Error while creating masks", e);
         }
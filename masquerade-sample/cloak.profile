@@ -0,0 +1,4 @@
+# Runtime profile of the serialization Cloak, as written by VaAnPredicates.RECORDER
+class VaAn com.flipkart.masquerade.test.actual.One 900
+class VaAn com.flipkart.masquerade.test.actual.Two 400
+size VaAn com.flipkart.masquerade.test.actual.One 300 30000
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.masquerade.test;
+
+/**
+ * Evaluator for the {@link Entitled} rule
+ */
+public class Entitlement {
+    private final String tier;
+    private final long account;
+    private final float rating;
+
+    public Entitlement(String tier) {
+        this(tier, 0, 0);
+    }
+
+    public Entitlement(String tier, long account, float rating) {
+        this.tier = tier;
+        this.account = account;
+        this.rating = rating;
+    }
+
+    public String getTier() {
+        return tier;
+    }
+
+    public long getAccount() {
+        return account;
+    }
+
+    public float getRating() {
+        return rating;
+    }
+
+    public boolean isDefaultNonNullInclusion() {
+        return false;
+    }
+}
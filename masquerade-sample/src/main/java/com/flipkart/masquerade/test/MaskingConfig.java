@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+/**
+ * Same rules as {@link TestConfig}, but generates masks which only mask objects in place
+ */
+public class MaskingConfig extends TestConfig {
+    @Override
+    public String getCloakPackage() {
+        return "org.test.masks";
+    }
+
+    @Override
+    public boolean isNativeSerializationEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isPredicateMemoizationEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isMaskedCopyEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isUndoLogEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isJacksonModuleEnabled() {
+        return true;
+    }
+}
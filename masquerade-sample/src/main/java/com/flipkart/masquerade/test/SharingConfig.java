@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+/**
+ * Same rules as {@link TestConfig}, but generates masks which never modify the objects they serialize,
+ * and which can serialize an object for several evaluator objects at once
+ */
+public class SharingConfig extends TestConfig {
+    @Override
+    public String getCloakPackage() {
+        return "org.test.shared";
+    }
+
+    @Override
+    public boolean isNonDestructiveSerializationEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isFanOutEnabled() {
+        return true;
+    }
+}
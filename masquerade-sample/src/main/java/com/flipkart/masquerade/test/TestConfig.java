@@ -20,11 +20,9 @@ import com.flipkart.masquerade.Configuration;
 import com.flipkart.masquerade.rule.*;
 import com.flipkart.masquerade.serialization.SerializationProperty;
 import com.flipkart.masquerade.util.Fallback;
+import com.flipkart.masquerade.util.Interval;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Created by shrey.garg on 25/04/17.
@@ -32,6 +30,8 @@ import java.util.Set;
 public class TestConfig implements Configuration {
     private static Set<Rule> rules = new HashSet<>();
     private static HashSet<SerializationProperty> serializationProperties = new HashSet<>();
+    private static List<Object> hotProfiles = new ArrayList<>();
+    private static Map<String, Interval> evaluatorDomain = new HashMap<>();
 
     static {
         Rule rule = new Rule(
@@ -44,12 +44,40 @@ public class TestConfig implements Configuration {
                                 new BasicRule("since", Operator.LESSER, "getVersion()"),
                                 new BasicRule("till", Operator.GREATER, "getVersion()")
                         ),
-                        new BasicRule("client", Operator.UNEQUAL, "getClient()")
+                        new BasicRule("client", Operator.UNEQUAL, "getClient()"),
+                        new BasicRule("exemptClients", Operator.NOT_IN, "getClient()"),
+                        new BasicRule("hiddenFrom", "hiddenTill", Operator.BETWEEN, "getVersion()")
                 )
         );
         rules.add(rule);
 
+        Rule entitlement = new Rule(
+                "EnAn",
+                Entitled.class,
+                Entitlement.class,
+                new CompositeRule(
+                        new BasicRule("tiers", Operator.NOT_IN, "getTier()"),
+                        new BasicRule("accounts", Operator.IN, "getAccount()"),
+                        new BasicRule("ratings", Operator.IN, "getRating()")
+                )
+        );
+        rules.add(entitlement);
+
+        /* Applies both the rules above in a single traversal */
+        rules.add(new CombinedRule("VaEn", Viewer.class, new CombinedRule.Member(rule, "getEval()"), new CombinedRule.Member(entitlement, "getEntitlement()")));
+
         serializationProperties.add(SerializationProperty.SORT_PROPERTIES_ALPHABETICALLY);
+
+        hotProfiles.add(new Eval(Platform.ANDROID, 199));
+        Eval app = new Eval(Platform.ANDROID, 5);
+        app.setClient("app");
+        hotProfiles.add(app);
+        Eval inclusive = new Eval(Platform.WEB, 1);
+        inclusive.setDefaultNonNullInclusion(true);
+        hotProfiles.add(inclusive);
+
+        /* Versions below 1 are no longer supported */
+        evaluatorDomain.put("getVersion()", new Interval(1, 1000));
     }
 
     @Override
@@ -86,4 +114,39 @@ public class TestConfig implements Configuration {
     public Fallback fallback() {
         return new FallbackImpl();
     }
+
+    @Override
+    public boolean isPredicateMemoizationEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isVisibilityCacheEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isPartitionKeyEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isProfilingEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isCoalescingEnabled() {
+        return true;
+    }
+
+    @Override
+    public List<Object> hotProfiles() {
+        return hotProfiles;
+    }
+
+    @Override
+    public Map<String, Interval> evaluatorDomain() {
+        return evaluatorDomain;
+    }
 }
@@ -29,4 +29,7 @@ public @interface ValidationAnnotation {
     String client() default "app";
     int since() default 0;
     int till() default 0;
+    String[] exemptClients() default {};
+    int hiddenFrom() default 0;
+    int hiddenTill() default 0;
 }
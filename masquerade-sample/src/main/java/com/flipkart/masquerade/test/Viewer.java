@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.masquerade.test;
+
+/**
+ * Evaluator for the rule which combines the {@link ValidationAnnotation} and {@link Entitled} rules
+ */
+public class Viewer {
+    private final Eval eval;
+    private final Entitlement entitlement;
+
+    public Viewer(Eval eval, Entitlement entitlement) {
+        this.eval = eval;
+        this.entitlement = entitlement;
+    }
+
+    public Eval getEval() {
+        return eval;
+    }
+
+    public Entitlement getEntitlement() {
+        return entitlement;
+    }
+
+    public boolean isDefaultNonNullInclusion() {
+        return eval.isDefaultNonNullInclusion();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test.actual;
+
+import com.flipkart.masquerade.test.Platform;
+import com.flipkart.masquerade.test.ValidationAnnotation;
+
+public class Exempt {
+    @ValidationAnnotation(name = Platform.WEB, exemptClients = { "partner", "internal" })
+    private String notes;
+    @ValidationAnnotation(name = Platform.WEB, exemptClients = { "internal", "partner", "internal" })
+    private String remarks;
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+
+    public String getRemarks() {
+        return remarks;
+    }
+
+    public void setRemarks(String remarks) {
+        this.remarks = remarks;
+    }
+}
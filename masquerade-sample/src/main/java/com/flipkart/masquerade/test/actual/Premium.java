@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test.actual;
+
+import com.flipkart.masquerade.test.Entitled;
+import com.flipkart.masquerade.test.Platform;
+import com.flipkart.masquerade.test.ValidationAnnotation;
+
+public class Premium {
+    @ValidationAnnotation(name = Platform.ANDROID, since = 65)
+    private String early;
+    @Entitled(tiers = { "gold", "silver" })
+    private String paid;
+    @ValidationAnnotation(name = Platform.ANDROID, since = 12)
+    @Entitled(tiers = "gold")
+    private String exclusive;
+    private String open;
+
+    public String getEarly() {
+        return early;
+    }
+
+    public void setEarly(String early) {
+        this.early = early;
+    }
+
+    public String getPaid() {
+        return paid;
+    }
+
+    public void setPaid(String paid) {
+        this.paid = paid;
+    }
+
+    public String getExclusive() {
+        return exclusive;
+    }
+
+    public void setExclusive(String exclusive) {
+        this.exclusive = exclusive;
+    }
+
+    public String getOpen() {
+        return open;
+    }
+
+    public void setOpen(String open) {
+        this.open = open;
+    }
+}
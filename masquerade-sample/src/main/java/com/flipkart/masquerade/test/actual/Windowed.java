@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test.actual;
+
+import com.flipkart.masquerade.test.Platform;
+import com.flipkart.masquerade.test.ValidationAnnotation;
+
+public class Windowed {
+    @ValidationAnnotation(name = Platform.ANDROID, hiddenFrom = 42, hiddenTill = 65)
+    @ValidationAnnotation(name = Platform.ANDROID, hiddenFrom = 9, hiddenTill = 12)
+    @ValidationAnnotation(name = Platform.ANDROID, hiddenFrom = 12, hiddenTill = 20)
+    @ValidationAnnotation(name = Platform.iOS, hiddenFrom = 2, hiddenTill = 2)
+    private String banner;
+    @ValidationAnnotation(name = Platform.ANDROID, hiddenFrom = -10, hiddenTill = 0)
+    private String retired;
+
+    public String getBanner() {
+        return banner;
+    }
+
+    public void setBanner(String banner) {
+        this.banner = banner;
+    }
+
+    public String getRetired() {
+        return retired;
+    }
+
+    public void setRetired(String retired) {
+        this.retired = retired;
+    }
+}
@@ -19,6 +19,8 @@ package com.flipkart.masquerade.test;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.flipkart.masquerade.test.actual.One;
+import com.flipkart.masquerade.test.actual.Two;
 import org.test.veils.Cloak;
 
 /**
@@ -33,4 +35,16 @@ public class BaseTest {
         mapper.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
         mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
     }
+
+    protected static One createOne() {
+        One one = new One();
+        one.setT1("something");
+        one.setT2(2);
+
+        Two two = new Two();
+        two.setL1("else");
+        two.setL2(7);
+        one.setTwo(two);
+        return one;
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import com.flipkart.masquerade.runtime.Coalescer;
+import com.flipkart.masquerade.test.actual.One;
+import org.junit.jupiter.api.Test;
+import org.test.shared.Cloak;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoalescerTest extends BaseTest {
+    private final Cloak sharedCloak = new Cloak();
+
+    @Test
+    public void testCoalescedOutput() throws Exception {
+        Eval eval = new Eval(Platform.ANDROID, 1);
+        eval.setClient("web");
+
+        assertEquals(cloak.hide(createOne(), eval), sharedCloak.hideCoalesced(createOne(), "one", eval));
+        /* Nothing is cached once a call completes */
+        One changed = createOne();
+        changed.setT1("changed");
+        String expected = sharedCloak.hide(changed, eval);
+        assertEquals(expected, sharedCloak.hideCoalesced(changed, "one", eval));
+    }
+
+    @Test
+    public void testInstanceSharedAcrossPartitions() throws Exception {
+        Eval hiding = new Eval(Platform.ANDROID, 1);
+        hiding.setClient("web");
+        Eval showing = new Eval(Platform.MOBILE_WEB, 1);
+        showing.setClient("web");
+
+        One one = createOne();
+        assertEquals(cloak.hide(createOne(), hiding), sharedCloak.hideCoalesced(one, "one", hiding));
+        assertEquals(cloak.hide(createOne(), showing), sharedCloak.hideCoalesced(one, "one", showing));
+        assertNotNull(one.getT2());
+        assertNotNull(one.getTwo().getL1());
+    }
+
+    @Test
+    public void testConcurrentCallsShareSerialization() throws Exception {
+        Coalescer coalescer = new Coalescer();
+        AtomicInteger serializations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        AtomicReference<String> leaderOutput = new AtomicReference<>();
+        Thread leader = new Thread(() -> leaderOutput.set(coalescer.coalesce("key", 1, () -> {
+            serializations.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "output";
+        })));
+        leader.start();
+        started.await();
+
+        AtomicReference<String> followerOutput = new AtomicReference<>();
+        Thread follower = new Thread(() -> followerOutput.set(coalescer.coalesce("key", 1, () -> {
+            serializations.incrementAndGet();
+            return "follower";
+        })));
+        follower.start();
+        waitUntilBlocked(follower);
+
+        /* A different partition is never coalesced */
+        assertEquals("other", coalescer.coalesce("key", 2, () -> "other"));
+
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertEquals("output", leaderOutput.get());
+        assertEquals("output", followerOutput.get());
+        assertEquals(1, serializations.get());
+        assertEquals("after", coalescer.coalesce("key", 1, () -> "after"));
+    }
+
+    @Test
+    public void testFailureShared() throws Exception {
+        Coalescer coalescer = new Coalescer();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread leader = new Thread(() -> {
+            try {
+                coalescer.coalesce("key", 1, () -> {
+                    started.countDown();
+                    await(release);
+                    throw new IllegalStateException("failed");
+                });
+            } catch (IllegalStateException ignored) {
+            }
+        });
+        leader.start();
+        started.await();
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread follower = new Thread(() -> {
+            try {
+                coalescer.coalesce("key", 1, () -> "follower");
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        follower.start();
+        waitUntilBlocked(follower);
+
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertTrue(failure.get() instanceof IllegalStateException);
+    }
+
+    private static void waitUntilBlocked(Thread thread) throws InterruptedException {
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.flipkart.masquerade.test.actual.Premium;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CombinedRuleTest extends BaseTest {
+    @Test
+    public void testCombinedRuleHidesWhatEitherRuleHides() throws Exception {
+        for (Platform platform : Platform.values()) {
+            for (int version : new int[] { 1, 12, 42, 65, 199 }) {
+                for (String tier : new String[] { "gold", "silver", "bronze" }) {
+                    Eval eval = new Eval(platform, version);
+                    eval.setClient("web");
+                    Entitlement entitlement = new Entitlement(tier);
+                    Viewer viewer = new Viewer(eval, entitlement);
+
+                    /* Hiding clears the hidden fields, so every call gets a fresh object */
+                    for (Supplier<Object> object : Arrays.<Supplier<Object>>asList(this::createPremium, BaseTest::createOne)) {
+                        Map<String, Object> expected = merge(read(cloak.hide(object.get(), eval)), read(cloak.hide(object.get(), entitlement)));
+                        assertEquals(expected, read(cloak.hide(object.get(), viewer)), platform + " " + version + " " + tier);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCombinedRuleOutput() throws Exception {
+        Viewer viewer = new Viewer(new Eval(Platform.ANDROID, 42), new Entitlement("silver"));
+        assertEquals("{\"early\":null,\"exclusive\":null,\"open\":\"open\",\"paid\":\"paid\"}", cloak.hide(createPremium(), viewer));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> merge(Map<String, Object> first, Map<String, Object> second) {
+        Map<String, Object> merged = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : first.entrySet()) {
+            Object other = second.get(entry.getKey());
+            if (entry.getValue() == null || other == null) {
+                merged.put(entry.getKey(), null);
+            } else if (entry.getValue() instanceof Map) {
+                merged.put(entry.getKey(), merge((Map<String, Object>) entry.getValue(), (Map<String, Object>) other));
+            } else {
+                merged.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return merged;
+    }
+
+    private Map<String, Object> read(String serialized) throws Exception {
+        return mapper.readValue(serialized, new TypeReference<Map<String, Object>>() {});
+    }
+
+    private Premium createPremium() {
+        Premium premium = new Premium();
+        premium.setEarly("early");
+        premium.setPaid("paid");
+        premium.setExclusive("exclusive");
+        premium.setOpen("open");
+        return premium;
+    }
+}
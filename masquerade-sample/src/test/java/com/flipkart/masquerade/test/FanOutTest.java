@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import com.flipkart.masquerade.test.actual.Four;
+import com.flipkart.masquerade.test.actual.One;
+import com.flipkart.masquerade.test.actual.Three;
+import com.flipkart.masquerade.test.actual.collections.CollectOne;
+import com.flipkart.masquerade.test.actual.collections.CollectThree;
+import com.flipkart.masquerade.test.actual.maps.MapOne;
+import com.flipkart.masquerade.test.actual.maps.MapTwo;
+import org.junit.jupiter.api.Test;
+import org.test.shared.Cloak;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FanOutTest extends BaseTest {
+    private final Cloak sharedCloak = new Cloak();
+
+    @Test
+    public void testFanOutMatchesSingleSerialization() throws Exception {
+        Eval[] evals = createEvals();
+        assertFanOut(createOne(), evals);
+        assertFanOut(Arrays.asList(createOne(), null, createOne()), evals);
+        assertFanOut(createCollectOne(), evals);
+        assertFanOut(createMapOne(), evals);
+        assertFanOut(new Object[]{ createOne(), "plain", 4 }, evals);
+        assertFanOut(null, evals);
+    }
+
+    @Test
+    public void testSingleEvaluator() throws Exception {
+        Eval eval = new Eval(Platform.ANDROID, 1);
+        eval.setClient("web");
+        assertFanOut(createOne(), new Eval[]{ eval });
+        assertEquals(0, sharedCloak.hideAll(createOne(), new Eval[0]).length);
+    }
+
+    @Test
+    public void testTraversedOnce() throws Exception {
+        Eval[] evals = createEvals();
+        CountingList<One> ones = new CountingList<>();
+        ones.add(createOne());
+        ones.add(createOne());
+
+        String[] outputs = sharedCloak.hideAll(ones, evals);
+        assertEquals(1, ones.iterations);
+        /* The outputs still split where the evaluator objects see the elements differently */
+        assertTrue(new HashSet<>(Arrays.asList(outputs)).size() > 1);
+    }
+
+    private void assertFanOut(Object object, Eval[] evals) {
+        String[] outputs = sharedCloak.hideAll(object, evals);
+        assertEquals(evals.length, outputs.length);
+        for (int i = 0; i < evals.length; i++) {
+            assertEquals(sharedCloak.hide(object, evals[i]), outputs[i]);
+        }
+    }
+
+    private Eval[] createEvals() {
+        List<Eval> evals = new ArrayList<>();
+        for (Platform platform : Platform.values()) {
+            for (int version = 1; version <= 200; version += 33) {
+                for (String client : Arrays.asList("web", "app")) {
+                    Eval eval = new Eval(platform, version);
+                    eval.setClient(client);
+                    evals.add(eval);
+
+                    Eval inclusive = new Eval(platform, version);
+                    inclusive.setClient(client);
+                    inclusive.setDefaultNonNullInclusion(true);
+                    evals.add(inclusive);
+                }
+            }
+        }
+        return evals.toArray(new Eval[0]);
+    }
+
+    private CollectOne createCollectOne() {
+        CollectThree collectThree = new CollectThree();
+        collectThree.setId(2);
+        collectThree.setThrees(new Three[]{ new Three(2, 53.125), new Three(624, 212.63) });
+
+        CollectOne collectOne = new CollectOne();
+        collectOne.setCollectTwo(collectThree);
+        collectOne.setFours(Arrays.asList(new Four(1232.12324, 423.61), new Four(2643.12, 6943.255)));
+        return collectOne;
+    }
+
+    private MapOne createMapOne() {
+        Map<String, Object> objectMap = new LinkedHashMap<>();
+        objectMap.put("a", false);
+        objectMap.put("b", 43.63);
+        objectMap.put("c", new Three(4, 621.1));
+        objectMap.put("d", createOne());
+
+        MapTwo mapTwo = new MapTwo();
+        mapTwo.setTbm("Jill");
+        mapTwo.setObjectMap(objectMap);
+
+        Map<String, MapTwo> mapTwoMap = new LinkedHashMap<>();
+        mapTwoMap.put("1", mapTwo);
+        mapTwoMap.put("2", null);
+
+        MapOne mapOne = new MapOne();
+        mapOne.setAbc("xyz");
+        mapOne.setSomeBoolean(true);
+        mapOne.setMapTwoMap(mapTwoMap);
+        return mapOne;
+    }
+
+    private static class CountingList<T> extends ArrayList<T> {
+        private int iterations;
+
+        @Override
+        public Iterator<T> iterator() {
+            iterations++;
+            return super.iterator();
+        }
+    }
+}
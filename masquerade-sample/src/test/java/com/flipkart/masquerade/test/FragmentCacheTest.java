@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import com.flipkart.masquerade.test.actual.Brand;
+import com.flipkart.masquerade.test.actual.Listing;
+import com.flipkart.masquerade.test.actual.Seller;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FragmentCacheTest extends BaseTest {
+    @Test
+    public void testFragmentsSplicedByIdentity() throws Exception {
+        Brand brand = createBrand("acme");
+        Listing listing = createListing(brand, createSeller("s1", "first"));
+
+        Eval eval = new Eval(Platform.ANDROID, 1);
+        assertEquals("{\"brand\":{\"logo\":null,\"name\":\"acme\"},\"offer\":null,\"seller\":{\"id\":\"s1\",\"name\":\"first\"}}", cloak.hide(listing, eval));
+        assertEquals("{\"logo\":null,\"name\":\"acme\"}", cloak.fragmentsVaAn().get(brand, null, false));
+
+        /* Cached objects are expected to be immutable, a modified object keeps its cached form */
+        brand.setName("changed");
+        assertEquals("{\"logo\":null,\"name\":\"acme\"}", cloak.hide(brand, eval));
+        assertEquals("{\"logo\":null,\"name\":\"changed\"}", cloak.hide(createBrand("changed"), eval));
+    }
+
+    @Test
+    public void testFragmentsSplicedByKey() throws Exception {
+        Eval eval = new Eval(Platform.WEB, 1);
+        assertEquals("{\"id\":\"s2\",\"name\":\"second\"}", cloak.hide(createSeller("s2", "second"), eval));
+        assertEquals("{\"id\":\"s2\",\"name\":\"second\"}", cloak.hide(createSeller("s2", "other"), eval));
+        assertEquals("{\"id\":\"s3\",\"name\":\"other\"}", cloak.hide(createSeller("s3", "other"), eval));
+    }
+
+    @Test
+    public void testFragmentsSeparatedByInclusion() throws Exception {
+        Brand brand = createBrand("acme");
+
+        Eval exclusive = new Eval(Platform.WEB, 1);
+        Eval inclusive = new Eval(Platform.WEB, 1);
+        inclusive.setDefaultNonNullInclusion(true);
+
+        assertEquals("{\"logo\":null,\"name\":\"acme\"}", cloak.hide(brand, exclusive));
+        assertEquals("{\"name\":\"acme\"}", cloak.hide(brand, inclusive));
+        assertEquals("{\"logo\":null,\"name\":\"acme\"}", cloak.hide(brand, exclusive));
+    }
+
+    @Test
+    public void testEvaluatorDependentClassesNotCached() throws Exception {
+        Listing listing = createListing(createBrand("acme"), createSeller("s4", "fourth"));
+        cloak.hide(listing, new Eval(Platform.ANDROID, 1));
+        assertNull(cloak.fragmentsVaAn().get(listing, null, false));
+    }
+
+    private Brand createBrand(String name) {
+        Brand brand = new Brand();
+        brand.setName(name);
+        return brand;
+    }
+
+    private Seller createSeller(String id, String name) {
+        Seller seller = new Seller();
+        seller.setId(id);
+        seller.setName(name);
+        return seller;
+    }
+
+    private Listing createListing(Brand brand, Seller seller) {
+        Listing listing = new Listing();
+        listing.setBrand(brand);
+        listing.setSeller(seller);
+        listing.setOffer("offer");
+        return listing;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import com.flipkart.masquerade.runtime.FragmentStore;
+import com.flipkart.masquerade.test.actual.Seller;
+import org.junit.jupiter.api.Test;
+import org.test.veils.Cloak;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FragmentStoreTest extends BaseTest {
+    private static final int CAPACITY = 64 * 1024;
+
+    @Test
+    public void testFragmentsSurviveRestart() throws Exception {
+        Path file = Files.createTempFile("fragments", ".store");
+        Eval eval = new Eval(Platform.WEB, 1);
+
+        try (FragmentStore store = new FragmentStore(file, CAPACITY, cloak.schemaHash())) {
+            cloak.fragmentsVaAn().attach(store);
+            assertEquals("{\"id\":\"s10\",\"name\":\"first\"}", cloak.hide(createSeller("s10", "first"), eval));
+        }
+
+        /* A new Cloak starts with an empty cache, and is served from the file */
+        Cloak restarted = new Cloak();
+        assertEquals(cloak.schemaHash(), restarted.schemaHash());
+        try (FragmentStore store = new FragmentStore(file, CAPACITY, restarted.schemaHash())) {
+            restarted.fragmentsVaAn().attach(store);
+            assertEquals("{\"id\":\"s10\",\"name\":\"first\"}", restarted.hide(createSeller("s10", "other"), eval));
+            assertEquals("{\"id\":\"s11\",\"name\":\"other\"}", restarted.hide(createSeller("s11", "other"), eval));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSchemaChangeInvalidatesFragments() throws Exception {
+        Path file = Files.createTempFile("fragments", ".store");
+        Eval eval = new Eval(Platform.WEB, 1);
+
+        try (FragmentStore store = new FragmentStore(file, CAPACITY, cloak.schemaHash())) {
+            store.put("VaAn:stale", "{}");
+        }
+
+        try (FragmentStore store = new FragmentStore(file, CAPACITY, cloak.schemaHash() + 1)) {
+            assertNull(store.get("VaAn:stale"));
+            cloak.fragmentsVaAn().attach(store);
+            assertEquals("{\"id\":\"s12\",\"name\":\"first\"}", cloak.hide(createSeller("s12", "first"), eval));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testFullStoreKeepsServing() throws Exception {
+        Path file = Files.createTempFile("fragments", ".store");
+
+        try (FragmentStore store = new FragmentStore(file, 64, cloak.schemaHash())) {
+            store.put("first", "{\"id\":\"s13\"}");
+            store.put("second", "{\"id\":\"s14\",\"name\":\"a much longer fragment\"}");
+            assertEquals("{\"id\":\"s13\"}", store.get("first"));
+            assertNull(store.get("second"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private Seller createSeller(String id, String name) {
+        Seller seller = new Seller();
+        seller.setId(id);
+        seller.setName(name);
+        return seller;
+    }
+}
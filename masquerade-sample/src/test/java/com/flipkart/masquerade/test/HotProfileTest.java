@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import com.flipkart.masquerade.runtime.MaskContext;
+import org.junit.jupiter.api.Test;
+import org.test.veils.VaAnPredicates;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HotProfileTest extends BaseTest {
+    @Test
+    public void testSpecializedMasksMatchGenericMasks() throws Exception {
+        List<Eval> evals = new ArrayList<>();
+        for (Platform platform : Platform.values()) {
+            for (int version : new int[] { 1, 5, 9, 42, 199 }) {
+                for (String client : new String[] { "web", "app" }) {
+                    for (boolean inclusive : new boolean[] { false, true }) {
+                        Eval eval = new Eval(platform, version);
+                        eval.setClient(client);
+                        eval.setDefaultNonNullInclusion(inclusive);
+                        evals.add(eval);
+                    }
+                }
+            }
+        }
+
+        for (Eval eval : evals) {
+            assertEquals(hideGeneric(createOne(), eval), cloak.hide(createOne(), eval), "Partition: " + cloak.describePartition(eval));
+        }
+    }
+
+    @Test
+    public void testProfilesSelectedByPartition() throws Exception {
+        Eval eval = new Eval(Platform.ANDROID, 150);
+        assertEquals(1, VaAnPredicates.profile(cloak.partition(eval)));
+
+        eval.setClient("app");
+        assertEquals(0, VaAnPredicates.profile(cloak.partition(eval)));
+    }
+
+    private String hideGeneric(Object object, Eval eval) {
+        /* A context without a profile always takes the generic Masks */
+        StringBuilder serialized = new StringBuilder();
+        cloak.hide(object, eval, serialized, new MaskContext(VaAnPredicates.COUNT, new AtomicLongArray(VaAnPredicates.VISIBILITY_COUNT), 0));
+        return serialized.toString();
+    }
+}
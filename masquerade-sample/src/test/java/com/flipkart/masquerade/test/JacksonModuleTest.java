@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.flipkart.masquerade.test.actual.One;
+import com.flipkart.masquerade.test.actual.property.HiddenChange;
+import org.junit.jupiter.api.Test;
+import org.test.masks.Cloak;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JacksonModuleTest {
+    private static final ObjectMapper plainMapper = new ObjectMapper().configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
+
+    private final Cloak cloak = new Cloak();
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+            .registerModule(cloak.jacksonModuleVaAn());
+
+    @Test
+    public void testMatchesMasking() throws Exception {
+        One one = BaseTest.createOne();
+        HiddenChange hiddenChange = new HiddenChange();
+        hiddenChange.setAbc("abc");
+        hiddenChange.setDef("def");
+        String original = plainMapper.writeValueAsString(one);
+
+        for (Platform platform : Platform.values()) {
+            for (int version = 1; version <= 70; version += 3) {
+                for (String client : new String[] { "app", "web" }) {
+                    Eval eval = new Eval(platform, version);
+                    eval.setClient(client);
+                    ObjectWriter writer = cloak.writer(mapper.writer(), eval);
+
+                    assertEquals(plainMapper.writeValueAsString(cloak.copyMasked(one, eval)), writer.writeValueAsString(one));
+                    assertEquals(plainMapper.writeValueAsString(cloak.copyMasked(hiddenChange, eval)), writer.writeValueAsString(hiddenChange));
+                }
+            }
+        }
+
+        /* The object is never modified */
+        assertEquals(original, plainMapper.writeValueAsString(one));
+    }
+
+    @Test
+    public void testRenamedProperty() throws Exception {
+        HiddenChange hiddenChange = new HiddenChange();
+        hiddenChange.setAbc("abc");
+        hiddenChange.setDef("def");
+
+        assertEquals("{\"aaa\":null,\"abc\":\"abc\"}", cloak.writer(mapper.writer(), new Eval(Platform.ANDROID, 1)).writeValueAsString(hiddenChange));
+        assertEquals("{\"aaa\":\"def\",\"abc\":\"abc\"}", cloak.writer(mapper.writer(), new Eval(Platform.ANDROID, 10)).writeValueAsString(hiddenChange));
+        assertEquals("def", hiddenChange.getDef());
+    }
+
+    @Test
+    public void testHiddenWithoutEvaluator() throws Exception {
+        String serialized = mapper.writeValueAsString(BaseTest.createOne());
+        assertEquals("{\"t1\":\"something\",\"t2\":null,\"two\":null}", serialized);
+    }
+}
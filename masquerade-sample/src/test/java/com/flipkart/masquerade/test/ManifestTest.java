@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import com.flipkart.masquerade.Masquerade;
+import com.flipkart.masquerade.util.GenerationManifest;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ManifestTest {
+    private static final FileTime EARLIER = FileTime.fromMillis(1000);
+    private static final String CLOAK = "org/test/veils/Cloak.java";
+    private static final String ONE_MASK = "org/test/veils/com/flipkart/masquerade/test/actual/OneVaAnMask.java";
+    private static final String TWO_MASK = "org/test/veils/com/flipkart/masquerade/test/actual/TwoVaAnMask.java";
+
+    @Test
+    public void testIncrementalGeneration() throws Exception {
+        Path destination = Files.createTempDirectory("masquerade");
+        generate(destination);
+        Path manifest = destination.resolve("org/test/veils").resolve(GenerationManifest.FILE_NAME);
+        assertTrue(Files.isRegularFile(manifest));
+        String generated = read(destination, ONE_MASK);
+        String generatedTwo = read(destination, TWO_MASK);
+
+        /* Nothing changed, so nothing is written */
+        touchAll(destination);
+        generate(destination);
+        assertEquals(EARLIER, modified(destination, CLOAK));
+        assertEquals(EARLIER, modified(destination, ONE_MASK));
+
+        /* A missing Mask is written again, while aggregates with the same content are left as they are */
+        Files.delete(destination.resolve(ONE_MASK));
+        generate(destination);
+        assertEquals(generated, read(destination, ONE_MASK));
+        assertEquals(EARLIER, modified(destination, CLOAK));
+        assertEquals(EARLIER, modified(destination, TWO_MASK));
+
+        /* Only the Masks of a class whose structure changed are generated again, the others are taken from their records */
+        Files.write(destination.resolve(ONE_MASK), "edited".getBytes(StandardCharsets.UTF_8));
+        Files.write(destination.resolve(TWO_MASK), "edited".getBytes(StandardCharsets.UTF_8));
+        touchAll(destination);
+        List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8).stream()
+                .map(line -> line.startsWith("class com.flipkart.masquerade.test.actual.One ") ? "class com.flipkart.masquerade.test.actual.One changed" : line)
+                .collect(Collectors.toList());
+        Files.write(manifest, lines, StandardCharsets.UTF_8);
+        generate(destination);
+        assertEquals(generated, read(destination, ONE_MASK));
+        assertEquals("edited", read(destination, TWO_MASK));
+        assertEquals(EARLIER, modified(destination, CLOAK));
+
+        /* Changed inputs generate every Mask again, which repairs the edited one */
+        lines = Files.readAllLines(manifest, StandardCharsets.UTF_8).stream()
+                .map(line -> line.startsWith("inputs ") ? "inputs changed" : line)
+                .collect(Collectors.toList());
+        Files.write(manifest, lines, StandardCharsets.UTF_8);
+        generate(destination);
+        assertEquals(generatedTwo, read(destination, TWO_MASK));
+        assertEquals(EARLIER, modified(destination, CLOAK));
+    }
+
+    @Test
+    public void testWriteAvoidance() throws Exception {
+        Path destination = Files.createTempDirectory("masquerade");
+        generate(destination);
+        Path manifest = destination.resolve("org/test/veils").resolve(GenerationManifest.FILE_NAME);
+
+        /* A Mask which is no longer generated, recorded by the previous cycle */
+        Path removed = destination.resolve("org/test/veils/com/flipkart/masquerade/test/removed/RemovedVaAnMask.java");
+        Files.createDirectories(removed.getParent());
+        Files.write(removed, "class RemovedVaAnMask {}".getBytes(StandardCharsets.UTF_8));
+        Path unrelated = destination.resolve("org/test/veils/Unrelated.java");
+        Files.write(unrelated, "class Unrelated {}".getBytes(StandardCharsets.UTF_8));
+
+        /* Everything is generated again, but only files whose content differs are written */
+        List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8).stream()
+                .map(line -> line.startsWith("inputs ") ? "inputs changed" : line)
+                .collect(Collectors.toList());
+        lines.add("file org/test/veils/com/flipkart/masquerade/test/removed/RemovedVaAnMask.java");
+        Files.write(manifest, lines, StandardCharsets.UTF_8);
+        Files.write(destination.resolve(TWO_MASK), "edited".getBytes(StandardCharsets.UTF_8));
+        touchAll(destination);
+        generate(destination);
+
+        assertEquals(EARLIER, modified(destination, CLOAK));
+        assertEquals(EARLIER, modified(destination, ONE_MASK));
+        assertNotEquals(EARLIER, modified(destination, TWO_MASK));
+        assertNotEquals("edited", read(destination, TWO_MASK));
+        assertFalse(Files.exists(removed));
+        assertFalse(Files.exists(removed.getParent()));
+        assertTrue(Files.exists(unrelated));
+    }
+
+    @Test
+    public void testParallelGeneration() throws Exception {
+        Path sequential = Files.createTempDirectory("masquerade");
+        Path parallel = Files.createTempDirectory("masquerade");
+        Masquerade.initialize(new TestConfig() {
+            @Override
+            public int generationParallelism() {
+                return 1;
+            }
+        }, getClass().getClassLoader(), sequential.toFile());
+        Masquerade.initialize(new TestConfig() {
+            @Override
+            public int generationParallelism() {
+                return 16;
+            }
+        }, getClass().getClassLoader(), parallel.toFile());
+
+        /* The chunks of every Rule are merged back in order, so the generated files do not depend on scheduling */
+        List<String> files = list(sequential);
+        assertEquals(files, list(parallel));
+        for (String path : files) {
+            assertEquals(read(sequential, path), read(parallel, path), path);
+        }
+    }
+
+    private void generate(Path destination) throws IOException, ClassNotFoundException {
+        Masquerade.initialize(new TestConfig(), getClass().getClassLoader(), destination.toFile());
+    }
+
+    private void touchAll(Path destination) throws IOException {
+        try (Stream<Path> files = Files.walk(destination)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                Files.setLastModifiedTime(file, EARLIER);
+            }
+        }
+    }
+
+    private List<String> list(Path destination) throws IOException {
+        try (Stream<Path> files = Files.walk(destination)) {
+            return files.filter(Files::isRegularFile)
+                    .map(file -> destination.relativize(file).toString())
+                    .filter(path -> !path.endsWith(GenerationManifest.FILE_NAME))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private String read(Path destination, String path) throws IOException {
+        return new String(Files.readAllBytes(destination.resolve(path)), StandardCharsets.UTF_8);
+    }
+
+    private FileTime modified(Path destination, String path) throws IOException {
+        return Files.getLastModifiedTime(destination.resolve(path.replace('/', File.separatorChar)));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flipkart.masquerade.test.actual.Category;
+import com.flipkart.masquerade.test.actual.Four;
+import com.flipkart.masquerade.test.actual.collections.CollectOne;
+import com.flipkart.masquerade.test.actual.graph.Node;
+import org.junit.jupiter.api.Test;
+import org.test.masks.Cloak;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MaskedCopyTest {
+    private static final ObjectMapper mapper = new ObjectMapper().configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
+
+    private final Cloak cloak = new Cloak();
+
+    @Test
+    public void testCopyMatchesMasking() throws Exception {
+        for (Platform platform : Platform.values()) {
+            for (int version = 1; version <= 70; version += 3) {
+                Eval eval = new Eval(platform, version);
+                eval.setClient("web");
+                assertMaskedCopy(BaseTest::createOne, eval);
+                assertMaskedCopy(this::createCollectOne, eval);
+            }
+        }
+    }
+
+    @Test
+    public void testIndependentObjectsShared() throws Exception {
+        Node node = new Node();
+        node.setName("node");
+        node.setNext(node);
+
+        assertSame(node, cloak.copyMasked(node, new Eval(Platform.ANDROID, 1)));
+    }
+
+    @Test
+    public void testSharedInstancesCopiedOnce() throws Exception {
+        Category root = new Category();
+        root.setBadge("badge");
+        Category child = new Category();
+        child.setBadge("badge");
+        root.setChildren(Arrays.asList(child, child));
+        child.setParent(root);
+        child.setChildren(Collections.emptyList());
+
+        Eval eval = new Eval(Platform.ANDROID, 1);
+        eval.setClient("web");
+        Category copy = cloak.copyMasked(root, eval);
+
+        assertNotSame(root, copy);
+        assertNull(copy.getBadge());
+        assertSame(copy.getChildren().get(0), copy.getChildren().get(1));
+        assertSame(copy, copy.getChildren().get(0).getParent());
+        assertNull(copy.getChildren().get(0).getBadge());
+        assertEquals("badge", child.getBadge());
+    }
+
+    private void assertMaskedCopy(Supplier<Object> supplier, Eval eval) throws Exception {
+        Object source = supplier.get();
+        String before = mapper.writeValueAsString(source);
+
+        Object copy = cloak.copyMasked(source, eval);
+        Object masked = supplier.get();
+        cloak.hide(masked, eval);
+
+        assertEquals(mapper.writeValueAsString(masked), mapper.writeValueAsString(copy));
+        assertEquals(before, mapper.writeValueAsString(source));
+    }
+
+    private CollectOne createCollectOne() {
+        CollectOne collectOne = new CollectOne();
+        collectOne.setFours(Arrays.asList(new Four(1232.12324, 423.61), new Four(2643.12, 6943.255)));
+        return collectOne;
+    }
+}
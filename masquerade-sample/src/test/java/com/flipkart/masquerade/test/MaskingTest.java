@@ -0,0 +1,201 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import com.flipkart.masquerade.test.actual.Category;
+import com.flipkart.masquerade.test.actual.Exempt;
+import com.flipkart.masquerade.test.actual.Four;
+import com.flipkart.masquerade.test.actual.One;
+import com.flipkart.masquerade.test.actual.Premium;
+import com.flipkart.masquerade.test.actual.Statement;
+import com.flipkart.masquerade.test.actual.Two;
+import com.flipkart.masquerade.test.actual.Windowed;
+import com.flipkart.masquerade.test.actual.collections.CollectOne;
+import com.flipkart.masquerade.test.actual.graph.Node;
+import org.junit.jupiter.api.Test;
+import org.test.masks.Cloak;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MaskingTest {
+    private final Cloak cloak = new Cloak();
+
+    @Test
+    public void testNestedMasking() throws Exception {
+        One one = new One();
+        one.setT1("something");
+        one.setT2(2);
+
+        Two two = new Two();
+        two.setL1("else");
+        two.setL2(7);
+        one.setTwo(two);
+
+        Eval eval = new Eval(Platform.ANDROID, 1);
+        eval.setClient("web");
+
+        cloak.hide(one, eval);
+
+        assertEquals("something", one.getT1());
+        assertNull(one.getT2());
+        assertNull(two.getL1());
+        assertEquals(7, two.getL2().intValue());
+    }
+
+    @Test
+    public void testMembershipMasking() throws Exception {
+        Eval eval = new Eval(Platform.WEB, 1);
+        eval.setClient("partner");
+        Exempt exempt = createExempt();
+        cloak.hide(exempt, eval);
+        assertEquals("notes", exempt.getNotes());
+        assertEquals("remarks", exempt.getRemarks());
+
+        eval.setClient("web");
+        exempt = createExempt();
+        cloak.hide(exempt, eval);
+        assertNull(exempt.getNotes());
+        assertNull(exempt.getRemarks());
+
+        exempt = createExempt();
+        cloak.hide(exempt, new Eval(Platform.ANDROID, 1));
+        assertEquals("notes", exempt.getNotes());
+    }
+
+    @Test
+    public void testRangeMasking() throws Exception {
+        for (int version = 1; version <= 70; version++) {
+            Windowed android = new Windowed();
+            android.setBanner("banner");
+            android.setRetired("retired");
+            cloak.hide(android, new Eval(Platform.ANDROID, version));
+            boolean hidden = (version >= 9 && version <= 20) || (version >= 42 && version <= 65);
+            assertEquals(hidden ? null : "banner", android.getBanner(), "Version: " + version);
+            assertEquals("retired", android.getRetired(), "Version: " + version);
+
+            Windowed iOS = new Windowed();
+            iOS.setBanner("banner");
+            cloak.hide(iOS, new Eval(Platform.iOS, version));
+            assertEquals(version == 2 ? null : "banner", iOS.getBanner(), "Version: " + version);
+        }
+    }
+
+    @Test
+    public void testTypedMembershipMasking() throws Exception {
+        Statement statement = createStatement();
+        cloak.hide(statement, new Entitlement("gold", 3000000000L, 1.5f));
+        assertNull(statement.getBalance());
+        assertEquals("review", statement.getReview());
+
+        statement = createStatement();
+        cloak.hide(statement, new Entitlement("gold", 8, Float.NaN));
+        assertEquals("balance", statement.getBalance());
+        assertNull(statement.getReview());
+
+        statement = createStatement();
+        cloak.hide(statement, new Entitlement("gold", 7, 0.5f));
+        assertNull(statement.getBalance());
+        assertNull(statement.getReview());
+        assertEquals("summary", statement.getSummary());
+    }
+
+    @Test
+    public void testCollectionMasking() throws Exception {
+        Four four1 = new Four(1232.12324, 423.61);
+        Four four2 = new Four(2643.12, 6943.255);
+
+        CollectOne collectOne = new CollectOne();
+        collectOne.setFours(Arrays.asList(four1, four2));
+
+        cloak.hide(collectOne, new Eval(Platform.MOBILE_WEB, 1));
+
+        assertNull(four1.getBbDouble());
+        assertNull(four2.getBbDouble());
+    }
+
+    @Test
+    public void testIndependentCycles() throws Exception {
+        Node first = new Node();
+        first.setName("first");
+        Node second = new Node();
+        second.setName("second");
+
+        first.setNext(second);
+        second.setNext(first);
+        first.setChildren(Arrays.asList(first, second));
+
+        /* Nothing reachable from a Node can be hidden, so the cycle is never walked */
+        cloak.hide(first, new Eval(Platform.ANDROID, 1));
+
+        assertEquals("first", first.getName());
+        assertSame(first, second.getNext());
+    }
+
+    @Test
+    public void testSharedInstanceCycles() throws Exception {
+        Category root = new Category();
+        root.setBadge("badge");
+        Category child = new Category();
+        child.setBadge("badge");
+        root.setChildren(Arrays.asList(child, child));
+        child.setParent(root);
+
+        Eval eval = new Eval(Platform.ANDROID, 1);
+        eval.setClient("web");
+
+        /* Every Category is masked once, so the cycle is not walked again */
+        cloak.hide(root, eval);
+
+        assertNull(root.getBadge());
+        assertNull(child.getBadge());
+    }
+
+    private Statement createStatement() {
+        Statement statement = new Statement();
+        statement.setBalance("balance");
+        statement.setReview("review");
+        statement.setSummary("summary");
+        return statement;
+    }
+
+        private Exempt createExempt() {
+        Exempt exempt = new Exempt();
+        exempt.setNotes("notes");
+        exempt.setRemarks("remarks");
+        return exempt;
+    }
+
+    @Test
+    public void testCombinedMasking() throws Exception {
+        Premium premium = new Premium();
+        premium.setEarly("early");
+        premium.setPaid("paid");
+        premium.setExclusive("exclusive");
+        premium.setOpen("open");
+
+        Eval eval = new Eval(Platform.ANDROID, 42);
+        eval.setClient("web");
+        cloak.hide(premium, new Viewer(eval, new Entitlement("silver")));
+
+        assertNull(premium.getEarly());
+        assertEquals("paid", premium.getPaid());
+        assertNull(premium.getExclusive());
+        assertEquals("open", premium.getOpen());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import com.flipkart.masquerade.test.actual.Category;
+import com.flipkart.masquerade.test.actual.Premium;
+import org.junit.jupiter.api.Test;
+import org.test.shared.Cloak;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NonDestructiveTest extends BaseTest {
+    private final Cloak sharedCloak = new Cloak();
+
+    @Test
+    public void testOutputMatchesDestructiveSerialization() throws Exception {
+        for (Eval eval : createEvals()) {
+            assertUnmodified(BaseTest::createOne, eval);
+            assertUnmodified(this::createCategory, eval);
+        }
+    }
+
+    @Test
+    public void testCombinedOutputMatchesDestructiveSerialization() throws Exception {
+        for (Eval eval : createEvals()) {
+            for (String tier : Arrays.asList("silver", "gold")) {
+                Viewer viewer = new Viewer(eval, new Entitlement(tier));
+                Premium premium = createPremium();
+                String before = mapper.writeValueAsString(premium);
+                assertEquals(cloak.hide(createPremium(), viewer), sharedCloak.hide(premium, viewer));
+                assertEquals(before, mapper.writeValueAsString(premium));
+            }
+        }
+    }
+
+    private void assertUnmodified(Supplier<Object> supplier, Eval eval) throws Exception {
+        Object object = supplier.get();
+        String before = mapper.writeValueAsString(object);
+        assertEquals(cloak.hide(supplier.get(), eval), sharedCloak.hide(object, eval));
+        assertEquals(before, mapper.writeValueAsString(object));
+    }
+
+    private List<Eval> createEvals() {
+        List<Eval> evals = new ArrayList<>();
+        for (Platform platform : Platform.values()) {
+            for (int version = 1; version <= 200; version += 33) {
+                for (String client : Arrays.asList("web", "app")) {
+                    Eval eval = new Eval(platform, version);
+                    eval.setClient(client);
+                    evals.add(eval);
+
+                    Eval inclusive = new Eval(platform, version);
+                    inclusive.setClient(client);
+                    inclusive.setDefaultNonNullInclusion(true);
+                    evals.add(inclusive);
+                }
+            }
+        }
+        return evals;
+    }
+
+    private Category createCategory() {
+        Category leaf = new Category();
+        leaf.setName("leaf");
+        leaf.setBadge("badge");
+
+        Category root = new Category();
+        root.setName("root");
+        root.setBadge("badge");
+        root.setChildren(Arrays.asList(leaf, leaf));
+        return root;
+    }
+
+    private Premium createPremium() {
+        Premium premium = new Premium();
+        premium.setEarly("early");
+        premium.setPaid("paid");
+        premium.setExclusive("exclusive");
+        premium.setOpen("open");
+        return premium;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionKeyTest extends BaseTest {
+    @Test
+    public void testEqualKeysProduceEqualOutput() throws Exception {
+        Eval first = createEval(Platform.ANDROID, 5, "app");
+        Eval second = createEval(Platform.ANDROID, 8, "app");
+
+        assertEquals(cloak.partition(first), cloak.partition(second));
+        assertEquals(cloak.hide(createOne(), first), cloak.hide(createOne(), second));
+    }
+
+    @Test
+    public void testThresholdsSplitPartitions() throws Exception {
+        Eval below = createEval(Platform.ANDROID, 8, "app");
+        Eval at = createEval(Platform.ANDROID, 9, "app");
+        Eval otherPlatform = createEval(Platform.iOS, 8, "app");
+        Eval inclusive = createEval(Platform.ANDROID, 8, "app");
+        inclusive.setDefaultNonNullInclusion(true);
+
+        assertNotEquals(cloak.partition(below), cloak.partition(at));
+        assertNotEquals(cloak.partition(below), cloak.partition(otherPlatform));
+        assertNotEquals(cloak.partition(below), cloak.partition(inclusive));
+        assertNotEquals(cloak.hide(createOne(), below), cloak.hide(createOne(), at));
+    }
+
+    @Test
+    public void testReadablePartition() throws Exception {
+        String description = cloak.describePartition(createEval(Platform.ANDROID, 5, null));
+
+        assertTrue(description.contains("platform=ANDROID"), description);
+        assertTrue(description.contains("getVersion()=(4,9)"), description);
+        assertTrue(description.contains("getClient()=null"), description);
+    }
+
+    private Eval createEval(Platform platform, int version, String client) {
+        Eval eval = new Eval(platform, version);
+        eval.setClient(client);
+        return eval;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import org.test.plain.Cloak;
+
+/**
+ * Runs the {@link SampleTest} assertions against the masks generated from {@link PlainConfig}
+ */
+public class PlainConfigTest extends SampleTest {
+    private final Cloak plainCloak = new Cloak();
+
+    @Override
+    protected String hide(Object object, Eval eval) {
+        return plainCloak.hide(object, eval);
+    }
+}
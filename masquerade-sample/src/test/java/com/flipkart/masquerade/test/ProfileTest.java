@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import com.flipkart.masquerade.test.actual.One;
+import com.flipkart.masquerade.test.actual.Two;
+import com.flipkart.masquerade.util.RuntimeProfile;
+import org.junit.jupiter.api.Test;
+import org.test.veils.VaAnPredicates;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProfileTest extends BaseTest {
+    @Test
+    public void testRecordedProfileRoundTrip() throws Exception {
+        StringWriter before = new StringWriter();
+        VaAnPredicates.RECORDER.write(before);
+        RuntimeProfile initial = RuntimeProfile.read(new StringReader(before.toString()));
+        long ones = initial.getClassFrequencies("VaAn").getOrDefault(One.class.getName(), 0L);
+        long twos = initial.getClassFrequencies("VaAn").getOrDefault(Two.class.getName(), 0L);
+
+        One one = new One();
+        one.setT1("something");
+        one.setT2(2);
+        Two two = new Two();
+        two.setL1("else");
+        two.setL2(7);
+        one.setTwo(two);
+
+        /* Fields of a final type are masked directly, so only the top level object reaches the dispatch site */
+        cloak.hide(one, new Eval(Platform.ANDROID, 42));
+        cloak.hide(two, new Eval(Platform.ANDROID, 42));
+
+        StringWriter after = new StringWriter();
+        VaAnPredicates.RECORDER.write(after);
+        RuntimeProfile profile = RuntimeProfile.read(new StringReader(after.toString()));
+
+        assertEquals(ones + 1, (long) profile.getClassFrequencies("VaAn").get(One.class.getName()));
+        assertEquals(twos + 1, (long) profile.getClassFrequencies("VaAn").get(Two.class.getName()));
+        assertTrue(profile.getTypicalSizes("VaAn").containsKey(One.class.getName()));
+        assertTrue(profile.getTypicalSizes("VaAn").get(One.class.getName()) > 0);
+        assertTrue(profile.getClassFrequencies("MaAn").isEmpty());
+    }
+
+    @Test
+    public void testMalformedProfileRejected() {
+        assertThrows(UnsupportedOperationException.class, () -> RuntimeProfile.read(new StringReader("class VaAn")));
+        assertThrows(UnsupportedOperationException.class, () -> RuntimeProfile.read(new StringReader("unknown VaAn a 1")));
+    }
+}
@@ -35,6 +35,10 @@ import static org.junit.jupiter.api.Assertions.*;
  * Created by shrey.garg on 28/05/17.
  */
 public class SampleTest extends BaseTest {
+    protected String hide(Object object, Eval eval) {
+        return cloak.hide(object, eval);
+    }
+
     @Test
     public void testSimpleCloaking() throws Exception {
         One one = new One();
@@ -47,7 +51,7 @@ public class SampleTest extends BaseTest {
         eval.setVersion(5);
 
         assertNotNull(one.getT2());
-        String serialized = cloak.hide(one, eval);
+        String serialized = hide(one, eval);
         assertNull(one.getT2());
         assertEquals(mapper.writeValueAsString(one), serialized);
 
@@ -70,7 +74,7 @@ public class SampleTest extends BaseTest {
         eval.setVersion(5);
 
         assertNotNull(one.getT2());
-        String serialized = cloak.hide(one, eval);
+        String serialized = hide(one, eval);
         assertNotNull(one.getT2());
         assertEquals(mapper.writeValueAsString(one), serialized);
 
@@ -96,7 +100,7 @@ public class SampleTest extends BaseTest {
         eval.setVersion(5);
 
         assertNotNull(one.getT2());
-        String serialized = cloak.hide(wrapper, eval);
+        String serialized = hide(wrapper, eval);
         assertNull(one.getT2());
         assertEquals(mapper.writeValueAsString(wrapper), serialized);
 
@@ -128,7 +132,7 @@ public class SampleTest extends BaseTest {
         assertNotNull(one.getT2());
         assertNotNull(two.getL1());
 
-        String serialized = cloak.hide(one, eval);
+        String serialized = hide(one, eval);
 
         assertNull(one.getT2());
         assertNull(two.getL1());
@@ -170,7 +174,7 @@ public class SampleTest extends BaseTest {
         assertNotNull(four2.getBbDouble());
         assertNotNull(four3.getBbDouble());
 
-        String serialized = cloak.hide(collectOne, eval);
+        String serialized = hide(collectOne, eval);
 
         assertNull(four1.getBbDouble());
         assertNull(four2.getBbDouble());
@@ -214,7 +218,7 @@ public class SampleTest extends BaseTest {
         assertNotNull(mapTwo.getTbm());
         assertNotNull(mapTwo1.getTbm());
 
-        String serialized = cloak.hide(mapOne, eval);
+        String serialized = hide(mapOne, eval);
 
         assertNull(mapTwo.getTbm());
         assertNull(mapTwo1.getTbm());
@@ -265,7 +269,7 @@ public class SampleTest extends BaseTest {
                 "\t\t\t\t\t\t\t\tbut also keeps your private data truly private\\.With a 1.3 GHz quad - core processor and 4 G support,\n" +
                 "\t\t\t\t\t\t\t\tthis dual - SIM smartphone offers a powerful performance.Adding further to your convenience is the Moto Display feature that helps you check your notifications and updates quickly even when the phone is locked. < /p>");
 
-        String serialized = cloak.hide(others, defaultEval);
+        String serialized = hide(others, defaultEval);
 
         assertEquals(mapper.writeValueAsString(others), serialized);
         System.out.println(serialized);
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import com.flipkart.masquerade.test.actual.Category;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SharedInstanceTest extends BaseTest {
+    @Test
+    public void testSharedInstancesCopied() throws Exception {
+        Category leaf = createCategory("leaf");
+        Category shared = createCategory("root");
+        shared.setChildren(Arrays.asList(leaf, leaf));
+
+        Category distinct = createCategory("root");
+        distinct.setChildren(Arrays.asList(createCategory("leaf"), createCategory("leaf")));
+
+        for (Eval eval : Arrays.asList(new Eval(Platform.ANDROID, 1), new Eval(Platform.ANDROID, 100), new Eval(Platform.WEB, 1))) {
+            String serialized = cloak.hide(shared, eval);
+            assertEquals(cloak.hide(distinct, eval), serialized);
+            assertEquals(mapper.writeValueAsString(distinct), serialized);
+        }
+    }
+
+    @Test
+    public void testSharedInstancesAcrossCalls() throws Exception {
+        Category leaf = createCategory("leaf");
+        Category first = createCategory("first");
+        first.setChildren(Collections.singletonList(leaf));
+        Category second = createCategory("second");
+        second.setChildren(Collections.singletonList(leaf));
+
+        /* Every call serializes the shared object afresh */
+        Eval eval = new Eval(Platform.WEB, 1);
+        cloak.hide(first, eval);
+        leaf.setName("renamed");
+        assertTrue(cloak.hide(second, eval).contains("renamed"));
+    }
+
+    @Test
+    public void testCyclesFailFast() throws Exception {
+        Category root = createCategory("root");
+        Category child = createCategory("child");
+        root.setChildren(Collections.singletonList(child));
+        child.setParent(root);
+
+        assertThrows(UnsupportedOperationException.class, () -> cloak.hide(root, new Eval(Platform.WEB, 1)));
+    }
+
+    private Category createCategory(String name) {
+        Category category = new Category();
+        category.setName(name);
+        category.setBadge("badge");
+        return category;
+    }
+}
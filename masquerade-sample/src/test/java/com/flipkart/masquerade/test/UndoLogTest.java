@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flipkart.masquerade.runtime.UndoLog;
+import com.flipkart.masquerade.test.actual.Four;
+import com.flipkart.masquerade.test.actual.One;
+import com.flipkart.masquerade.test.actual.collections.CollectOne;
+import org.junit.jupiter.api.Test;
+import org.test.masks.Cloak;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UndoLogTest {
+    private static final ObjectMapper mapper = new ObjectMapper().configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
+
+    private final Cloak cloak = new Cloak();
+
+    @Test
+    public void testRestore() throws Exception {
+        One one = BaseTest.createOne();
+        String original = mapper.writeValueAsString(one);
+
+        Eval eval = new Eval(Platform.ANDROID, 1);
+        eval.setClient("web");
+        UndoLog undoLog = new UndoLog(1);
+        cloak.hideReversibly(one, eval, undoLog);
+
+        assertNull(one.getT2());
+        assertNull(one.getTwo().getL1());
+        assertEquals(2, undoLog.size());
+
+        undoLog.restore();
+        assertEquals(original, mapper.writeValueAsString(one));
+        assertEquals(0, undoLog.size());
+    }
+
+    @Test
+    public void testLogReused() throws Exception {
+        CollectOne collectOne = new CollectOne();
+        collectOne.setFours(Arrays.asList(new Four(1232.12324, 423.61), new Four(2643.12, 6943.255)));
+        String original = mapper.writeValueAsString(collectOne);
+
+        UndoLog undoLog = new UndoLog();
+        for (Platform platform : Platform.values()) {
+            for (int version = 1; version <= 70; version += 3) {
+                Eval eval = new Eval(platform, version);
+                cloak.hideReversibly(collectOne, eval, undoLog);
+
+                /* The log matches what plain masking does to an identical object */
+                CollectOne masked = new CollectOne();
+                masked.setFours(Arrays.asList(new Four(1232.12324, 423.61), new Four(2643.12, 6943.255)));
+                cloak.hide(masked, eval);
+                assertEquals(mapper.writeValueAsString(masked), mapper.writeValueAsString(collectOne));
+
+                undoLog.restore();
+                assertEquals(original, mapper.writeValueAsString(collectOne));
+            }
+        }
+    }
+
+    @Test
+    public void testNullsNotRecorded() throws Exception {
+        One one = BaseTest.createOne();
+        one.setT2(null);
+
+        Eval eval = new Eval(Platform.ANDROID, 1);
+        eval.setClient("web");
+        UndoLog undoLog = new UndoLog();
+        cloak.hideReversibly(one, eval, undoLog);
+        assertEquals(1, undoLog.size());
+
+        undoLog.clear();
+        assertEquals(0, undoLog.size());
+        assertNull(one.getTwo().getL1());
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Flipkart Internet, pvt ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.masquerade.test;
+
+import org.junit.jupiter.api.Test;
+import org.test.veils.Cloak;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class VisibilityCacheTest extends BaseTest {
+    @Test
+    public void testCachedMasksAcrossPartitions() throws Exception {
+        List<Eval> evals = new ArrayList<>();
+        for (Platform platform : Platform.values()) {
+            for (int version : new int[] { 1, 2, 3, 4, 9, 10, 42, 100 }) {
+                for (String client : new String[] { "web", "app" }) {
+                    Eval eval = new Eval(platform, version);
+                    eval.setClient(client);
+                    evals.add(eval);
+                }
+            }
+        }
+
+        /* The second round is served from the masks cached during the first one */
+        for (int round = 0; round < 2; round++) {
+            for (Eval eval : evals) {
+                assertEquals(new Cloak().hide(createOne(), eval), cloak.hide(createOne(), eval), "Platform: " + eval.platform + " Version: " + eval.getVersion());
+            }
+        }
+    }
+}